@@ -0,0 +1,47 @@
+package com.mathbridge.be_project.badge;
+
+import com.mathbridge.be_project.user.User;
+import com.mathbridge.be_project.user.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/me")
+@RequiredArgsConstructor
+public class BadgeController {
+
+    private final UnreadCounters unreadCounters;
+    private final UserService userService;
+
+    // Unread message and notification counts for the header badge
+    @GetMapping("/badges")
+    public ResponseEntity<?> getBadges() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User user = authentication != null ? userService.getUserByEmail(authentication.getName()).orElse(null) : null;
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(createErrorResponse("User not authenticated"));
+        }
+        try {
+            return ResponseEntity.ok(unreadCounters.getBadges(user.getId()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Failed to get badges: " + e.getMessage()));
+        }
+    }
+
+    private Map<String, String> createErrorResponse(String message) {
+        Map<String, String> response = new HashMap<>();
+        response.put("error", message);
+        return response;
+    }
+}
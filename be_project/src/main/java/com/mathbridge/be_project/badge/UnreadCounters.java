@@ -0,0 +1,295 @@
+package com.mathbridge.be_project.badge;
+
+import com.mathbridge.be_project.message.MessageSentEvent;
+import com.mathbridge.be_project.notification.NotificationCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-user unread message and notification counts for the header badge, kept in memory.
+ * <p>
+ * Users are spread over lock stripes; each stripe holds its users' {messages, notifications} pair and a
+ * version that every delta bumps (even for users not loaded yet). Counts missing from memory are loaded
+ * with two small per-user queries, and a load is only installed when the stripe version did not move while
+ * the database was being read, so a concurrent send or read is never lost.
+ * <p>
+ * A periodic set-based reconcile (and one at startup) corrects any drift. Its scan takes seconds on a busy
+ * system, so instead of discarding stripes that changed meanwhile, every delta applied during the scan is
+ * also recorded per user and the reconcile installs the scanned count plus that delta. A change whose
+ * commit the scan already saw is then counted twice; the next reconcile in which that user is quiet fixes it.
+ */
+@Component
+public class UnreadCounters {
+
+    private static final int STRIPES = 64;
+    private static final int MESSAGES = 0;
+    private static final int NOTIFICATIONS = 1;
+
+    private static final String UNREAD_MESSAGES_BY_USER_SQL =
+            "SELECT p.user_id, COUNT(*) FROM (" +
+            "  SELECT user_low_id AS user_id, user_low_id, user_high_id, last_read_low_id AS watermark FROM conversations " +
+            "  UNION ALL " +
+            "  SELECT user_high_id, user_low_id, user_high_id, last_read_high_id FROM conversations) p " +
+            "JOIN messages m ON m.user_low_id = p.user_low_id AND m.user_high_id = p.user_high_id " +
+            "  AND m.id > p.watermark AND m.sender_id <> p.user_id " +
+            "GROUP BY p.user_id";
+
+    private static final String UNREAD_NOTIFICATIONS_BY_USER_SQL =
+            "SELECT user_id, COUNT(*) FROM notifications WHERE is_read = 0 GROUP BY user_id";
+
+    private static final String UNREAD_MESSAGES_SQL =
+            "SELECT COUNT(*) FROM conversations c " +
+            "JOIN messages m ON m.user_low_id = c.user_low_id AND m.user_high_id = c.user_high_id " +
+            "WHERE (c.user_low_id = ? OR c.user_high_id = ?) AND m.sender_id <> ? " +
+            "AND m.id > CASE WHEN c.user_low_id = ? THEN c.last_read_low_id ELSE c.last_read_high_id END";
+
+    private static final String UNREAD_NOTIFICATIONS_SQL =
+            "SELECT COUNT(*) FROM notifications WHERE user_id = ? AND is_read = 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Object[] locks = new Object[STRIPES];
+    private final long[] versions = new long[STRIPES];
+    // Per stripe, while a reconcile scan runs: deltas applied since it started
+    private final boolean[] recording = new boolean[STRIPES];
+    private final List<Map<Long, long[]>> recordedDeltas = new ArrayList<>(STRIPES);
+    private final Object reconcileLock = new Object();
+    private final List<Map<Long, long[]>> counts = new ArrayList<>(STRIPES);
+    private final MeterRegistry meterRegistry;
+    private final Counter loads;
+    private final Counter corrections;
+
+    @Value("${badges.max-entries:200000}")
+    private int maxEntries;
+
+    @Value("${badges.reconcile.enabled:true}")
+    private boolean reconcileEnabled;
+
+    public UnreadCounters(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+            counts.add(new HashMap<>());
+            recordedDeltas.add(new HashMap<>());
+        }
+        this.loads = Counter.builder("badges.loads")
+                .description("Users whose unread counts were loaded from the database on demand")
+                .register(meterRegistry);
+        this.corrections = Counter.builder("badges.reconcile.corrections")
+                .description("In-memory unread counts corrected by the reconcile job")
+                .register(meterRegistry);
+    }
+
+    // Registered after construction so the gauge never sees a half-built instance
+    @PostConstruct
+    public void registerGauge() {
+        Gauge.builder("badges.users", this, UnreadCounters::size)
+                .description("Users with unread counts held in memory")
+                .register(meterRegistry);
+    }
+
+    // {messages, notifications} for the badge; only reads the database the first time a user is seen
+    public Map<String, Long> getBadges(Long userId) {
+        int stripe = stripe(userId);
+        long version;
+        synchronized (locks[stripe]) {
+            long[] entry = counts.get(stripe).get(userId);
+            if (entry != null) {
+                return toMap(entry);
+            }
+            version = versions[stripe];
+        }
+        long[] loaded = load(userId);
+        loads.increment();
+        synchronized (locks[stripe]) {
+            long[] entry = counts.get(stripe).get(userId);
+            if (entry != null) {
+                return toMap(entry);
+            }
+            if (versions[stripe] == version && counts.get(stripe).size() < maxEntries / STRIPES) {
+                counts.get(stripe).put(userId, loaded);
+            }
+        }
+        return toMap(loaded);
+    }
+
+    public void addMessages(Long userId, long delta) {
+        add(userId, MESSAGES, delta);
+    }
+
+    public void addNotifications(Long userId, long delta) {
+        add(userId, NOTIFICATIONS, delta);
+    }
+
+    // One more unread message for the receiver once the send has committed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        Object senderId = event.getPayload().get("senderId");
+        Object receiverId = event.getPayload().get("receiverId");
+        if (receiverId instanceof Long receiver && !receiver.equals(senderId)) {
+            addMessages(receiver, 1);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        addNotifications(event.getNotification().getUserId(), 1);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAtStartup() {
+        if (reconcileEnabled) {
+            reconcile(true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${badges.reconcile.interval-ms:600000}", initialDelayString = "${badges.reconcile.interval-ms:600000}")
+    public void reconcilePeriodically() {
+        if (reconcileEnabled) {
+            reconcile(false);
+        }
+    }
+
+    // Recompute every count with two GROUP BY queries; populate=true also loads users not in memory yet
+    public void reconcile(boolean populate) {
+        synchronized (reconcileLock) {
+            try {
+                for (int i = 0; i < STRIPES; i++) {
+                    synchronized (locks[i]) {
+                        recordedDeltas.get(i).clear();
+                        recording[i] = true;
+                    }
+                }
+                List<Map<Long, long[]>> fresh = new ArrayList<>(STRIPES);
+                for (int i = 0; i < STRIPES; i++) {
+                    fresh.add(new HashMap<>());
+                }
+                jdbcTemplate.query(UNREAD_MESSAGES_BY_USER_SQL, rs -> {
+                    long userId = rs.getLong(1);
+                    fresh.get(stripe(userId)).computeIfAbsent(userId, id -> new long[2])[MESSAGES] = rs.getLong(2);
+                });
+                jdbcTemplate.query(UNREAD_NOTIFICATIONS_BY_USER_SQL, rs -> {
+                    long userId = rs.getLong(1);
+                    fresh.get(stripe(userId)).computeIfAbsent(userId, id -> new long[2])[NOTIFICATIONS] = rs.getLong(2);
+                });
+
+                long corrected = 0;
+                for (int i = 0; i < STRIPES; i++) {
+                    synchronized (locks[i]) {
+                        corrected += install(i, fresh.get(i), populate);
+                    }
+                }
+                corrections.increment(corrected);
+                if (corrected > 0) {
+                    System.out.println("Badge reconcile corrected " + corrected + " users");
+                }
+            } catch (Exception e) {
+                System.err.println("Badge reconcile failed: " + e.getMessage());
+            } finally {
+                for (int i = 0; i < STRIPES; i++) {
+                    synchronized (locks[i]) {
+                        recording[i] = false;
+                        recordedDeltas.get(i).clear();
+                    }
+                }
+            }
+        }
+    }
+
+    // Scanned counts plus the deltas recorded since the scan started; called with the stripe lock held
+    private long install(int stripe, Map<Long, long[]> scanned, boolean populate) {
+        Map<Long, long[]> stripeCounts = counts.get(stripe);
+        Map<Long, long[]> deltas = recordedDeltas.get(stripe);
+        long corrected = 0;
+        for (Map.Entry<Long, long[]> entry : stripeCounts.entrySet()) {
+            long[] actual = current(scanned.get(entry.getKey()), deltas.get(entry.getKey()));
+            long[] held = entry.getValue();
+            if (held[MESSAGES] != actual[MESSAGES] || held[NOTIFICATIONS] != actual[NOTIFICATIONS]) {
+                held[MESSAGES] = actual[MESSAGES];
+                held[NOTIFICATIONS] = actual[NOTIFICATIONS];
+                corrected++;
+            }
+        }
+        if (populate) {
+            Set<Long> userIds = new HashSet<>(scanned.keySet());
+            userIds.addAll(deltas.keySet());
+            for (Long userId : userIds) {
+                if (stripeCounts.size() >= maxEntries / STRIPES) {
+                    break;
+                }
+                if (!stripeCounts.containsKey(userId)) {
+                    stripeCounts.put(userId, current(scanned.get(userId), deltas.get(userId)));
+                }
+            }
+        }
+        return corrected;
+    }
+
+    private static long[] current(long[] scanned, long[] delta) {
+        long[] result = new long[2];
+        for (int i = 0; i < 2; i++) {
+            result[i] = Math.max(0, (scanned != null ? scanned[i] : 0) + (delta != null ? delta[i] : 0));
+        }
+        return result;
+    }
+
+    public int size() {
+        int total = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            synchronized (locks[i]) {
+                total += counts.get(i).size();
+            }
+        }
+        return total;
+    }
+
+    private void add(Long userId, int index, long delta) {
+        if (userId == null || delta == 0) {
+            return;
+        }
+        int stripe = stripe(userId);
+        synchronized (locks[stripe]) {
+            versions[stripe]++;
+            if (recording[stripe]) {
+                recordedDeltas.get(stripe).computeIfAbsent(userId, id -> new long[2])[index] += delta;
+            }
+            long[] entry = counts.get(stripe).get(userId);
+            if (entry != null) {
+                entry[index] = Math.max(0, entry[index] + delta);
+            }
+        }
+    }
+
+    private long[] load(Long userId) {
+        Long messages = jdbcTemplate.queryForObject(UNREAD_MESSAGES_SQL, Long.class, userId, userId, userId, userId);
+        Long notifications = jdbcTemplate.queryForObject(UNREAD_NOTIFICATIONS_SQL, Long.class, userId);
+        return new long[]{messages != null ? messages : 0, notifications != null ? notifications : 0};
+    }
+
+    private Map<String, Long> toMap(long[] entry) {
+        Map<String, Long> badges = new HashMap<>();
+        badges.put("messages", entry[MESSAGES]);
+        badges.put("notifications", entry[NOTIFICATIONS]);
+        return badges;
+    }
+
+    private static int stripe(Long userId) {
+        return (int) Math.floorMod(userId, (long) STRIPES);
+    }
+}
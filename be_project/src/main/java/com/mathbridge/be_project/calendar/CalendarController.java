@@ -0,0 +1,105 @@
+package com.mathbridge.be_project.calendar;
+
+import com.mathbridge.be_project.user.User;
+import com.mathbridge.be_project.user.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/calendar")
+@Tag(name = "Calendar Feeds", description = "iCalendar subscription feeds for tutors and students")
+public class CalendarController {
+
+    private final CalendarFeedService calendarFeedService;
+    private final UserService userService;
+
+    public CalendarController(CalendarFeedService calendarFeedService, UserService userService) {
+        this.calendarFeedService = calendarFeedService;
+        this.userService = userService;
+    }
+
+    @GetMapping("/token")
+    @Operation(summary = "Get calendar feed URL", description = "Return (and create on first use) the current user's calendar feed token")
+    public ResponseEntity<?> getFeedToken() {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(createErrorResponse("Bạn cần đăng nhập để lấy lịch"));
+        }
+        return ResponseEntity.ok(createTokenResponse(calendarFeedService.getOrCreateToken(currentUser)));
+    }
+
+    @PostMapping("/token/rotate")
+    @Operation(summary = "Rotate calendar feed token", description = "Invalidate the old feed URL and issue a new one")
+    public ResponseEntity<?> rotateFeedToken() {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(createErrorResponse("Bạn cần đăng nhập để lấy lịch"));
+        }
+        return ResponseEntity.ok(createTokenResponse(calendarFeedService.rotateToken(currentUser)));
+    }
+
+    @GetMapping("/feed/{token}.ics")
+    @Operation(summary = "Calendar feed", description = "iCalendar feed of the token owner's sessions (supports ETag / If-Modified-Since)")
+    public void getFeed(@PathVariable String token, ServletWebRequest webRequest, HttpServletResponse response)
+            throws IOException {
+        Optional<CalendarFeed> feedOpt = calendarFeedService.getFeed(token);
+        if (feedOpt.isEmpty()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        CalendarFeed feed = feedOpt.get();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=300");
+        if (webRequest.checkNotModified(feed.getEtag(), feed.getLastModified())) {
+            return;
+        }
+        response.setContentType("text/calendar;charset=UTF-8");
+        response.setContentLength(feed.getContent().length);
+        response.getOutputStream().write(feed.getContent());
+    }
+
+    /**
+     * Lấy user hiện tại từ SecurityContext (JWT token)
+     */
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+
+        String email = authentication.getName();
+        if (email == null || email.isEmpty()) {
+            return null;
+        }
+
+        return userService.getUserByEmail(email).orElse(null);
+    }
+
+    private Map<String, String> createTokenResponse(String token) {
+        Map<String, String> response = new HashMap<>();
+        response.put("token", token);
+        response.put("url", "/api/calendar/feed/" + token + ".ics");
+        return response;
+    }
+
+    private Map<String, String> createErrorResponse(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        error.put("message", message);
+        return error;
+    }
+}
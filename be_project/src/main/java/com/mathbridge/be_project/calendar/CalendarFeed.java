@@ -0,0 +1,29 @@
+package com.mathbridge.be_project.calendar;
+
+/**
+ * Pre-rendered .ics document with the validators used for conditional GETs.
+ */
+public class CalendarFeed {
+
+    private final byte[] content;
+    private final String etag;
+    private final long lastModified;
+
+    public CalendarFeed(byte[] content, String etag, long lastModified) {
+        this.content = content;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+}
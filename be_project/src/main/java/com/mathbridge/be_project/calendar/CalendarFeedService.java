@@ -0,0 +1,255 @@
+package com.mathbridge.be_project.calendar;
+
+import com.mathbridge.be_project.common.SessionStatus;
+import com.mathbridge.be_project.common.UserRole;
+import com.mathbridge.be_project.session.SessionChangedEvent;
+import com.mathbridge.be_project.session.SessionExportRow;
+import com.mathbridge.be_project.session.SessionRepository;
+import com.mathbridge.be_project.student.StudentRepository;
+import com.mathbridge.be_project.tutor.TutorRepository;
+import com.mathbridge.be_project.user.User;
+import com.mathbridge.be_project.user.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Per-user iCalendar subscription feeds.
+ * <p>
+ * Feeds are rendered from a forward-only cursor over the owner's sessions and cached as bytes per
+ * tutor/student (bounded LRU), so calendar apps polling every few minutes cost a map lookup and,
+ * thanks to the ETag/Last-Modified validators, usually a 304. Cached feeds are dropped when a session
+ * of that tutor/student changes, and re-rendered after {@code ttl-seconds} so the past-days window moves on.
+ * A render that overlaps such a change is not cached: every change bumps a striped version, and the feed is
+ * only stored if the version did not move while it was being rendered.
+ * <p>
+ * Tokens are looked up in the database on every request (a unique index seek), so a rotated token stops
+ * working immediately on every node.
+ */
+@Service
+public class CalendarFeedService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int STRIPES = 64;
+
+    private final CalendarFeedTokenRepository tokenRepository;
+    private final UserRepository userRepository;
+    private final TutorRepository tutorRepository;
+    private final StudentRepository studentRepository;
+    private final SessionRepository sessionRepository;
+
+    // owner key ("tutor:1" / "student:2") -> rendered feed; versions are guarded by the feeds lock
+    private final Map<String, CalendarFeed> feeds;
+    private final long[] versions = new long[STRIPES];
+
+    @Value("${calendar.past-days:30}")
+    private long pastDays;
+
+    @Value("${calendar.zone:Asia/Ho_Chi_Minh}")
+    private String zone;
+
+    @Value("${calendar.cache.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    public CalendarFeedService(CalendarFeedTokenRepository tokenRepository, UserRepository userRepository,
+                               TutorRepository tutorRepository, StudentRepository studentRepository,
+                               SessionRepository sessionRepository,
+                               @Value("${calendar.cache.max-entries:10000}") int maxEntries) {
+        this.tokenRepository = tokenRepository;
+        this.userRepository = userRepository;
+        this.tutorRepository = tutorRepository;
+        this.studentRepository = studentRepository;
+        this.sessionRepository = sessionRepository;
+        this.feeds = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CalendarFeed> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    // Get the user's feed token, creating one on first use
+    @Transactional
+    public String getOrCreateToken(User user) {
+        return tokenRepository.findByUserId(user.getId())
+                .map(CalendarFeedToken::getToken)
+                .orElseGet(() -> tokenRepository.save(new CalendarFeedToken(user.getId(), newToken())).getToken());
+    }
+
+    // Replace the user's feed token; old subscription URLs stop working
+    @Transactional
+    public String rotateToken(User user) {
+        CalendarFeedToken feedToken = tokenRepository.findByUserId(user.getId())
+                .orElseGet(() -> new CalendarFeedToken(user.getId(), null));
+        feedToken.setToken(newToken());
+        feedToken.setCreatedAt(LocalDateTime.now());
+        return tokenRepository.save(feedToken).getToken();
+    }
+
+    // Resolve a feed by token; empty if the token is unknown or the user has no tutor/student profile
+    @Transactional(readOnly = true)
+    public Optional<CalendarFeed> getFeed(String token) {
+        String owner = resolveOwner(token);
+        if (owner == null) {
+            return Optional.empty();
+        }
+
+        int stripe = stripe(owner);
+        long version;
+        synchronized (feeds) {
+            CalendarFeed feed = feeds.get(owner);
+            if (feed != null && System.currentTimeMillis() - feed.getLastModified() < ttlSeconds * 1000) {
+                return Optional.of(feed);
+            }
+            version = versions[stripe];
+        }
+        CalendarFeed feed = render(owner);
+        synchronized (feeds) {
+            // A session changed while rendering: serve this feed but let the next request render again
+            if (versions[stripe] == version) {
+                feeds.put(owner, feed);
+            }
+        }
+        return Optional.of(feed);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(SessionChangedEvent event) {
+        synchronized (feeds) {
+            if (event.isBulk()) {
+                for (int i = 0; i < STRIPES; i++) {
+                    versions[i]++;
+                }
+                feeds.clear();
+                return;
+            }
+            if (event.getTutorId() != null) {
+                invalidate("tutor:" + event.getTutorId());
+            }
+            if (event.getStudentId() != null) {
+                invalidate("student:" + event.getStudentId());
+            }
+        }
+    }
+
+    private void invalidate(String owner) {
+        versions[stripe(owner)]++;
+        feeds.remove(owner);
+    }
+
+    private int stripe(String owner) {
+        return Math.floorMod(owner.hashCode(), STRIPES);
+    }
+
+    private String resolveOwner(String token) {
+        Optional<User> userOpt = tokenRepository.findByToken(token)
+                .flatMap(feedToken -> userRepository.findById(feedToken.getUserId()));
+        if (userOpt.isEmpty()) {
+            return null;
+        }
+        User user = userOpt.get();
+        if (user.getRole() == UserRole.TUTOR) {
+            return tutorRepository.findByUserId(user.getId()).map(tutor -> "tutor:" + tutor.getId()).orElse(null);
+        }
+        if (user.getRole() == UserRole.STUDENT) {
+            return studentRepository.findByUser(user).map(student -> "student:" + student.getId()).orElse(null);
+        }
+        return null;
+    }
+
+    private CalendarFeed render(String owner) {
+        boolean tutorFeed = owner.startsWith("tutor:");
+        Long ownerId = Long.valueOf(owner.substring(owner.indexOf(':') + 1));
+        LocalDateTime from = LocalDateTime.now().minusDays(pastDays);
+        ZoneId zoneId = ZoneId.of(zone);
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+        IcsWriter ics = new IcsWriter(buffer);
+        try (Stream<SessionExportRow> rows = tutorFeed
+                ? sessionRepository.streamExportRowsByTutorFrom(ownerId, from)
+                : sessionRepository.streamExportRowsByStudentFrom(ownerId, from)) {
+            ics.property("BEGIN", "VCALENDAR");
+            ics.property("VERSION", "2.0");
+            ics.property("PRODID", "-//MathBridge//Sessions//VI");
+            ics.property("CALSCALE", "GREGORIAN");
+            ics.property("METHOD", "PUBLISH");
+            ics.text("X-WR-CALNAME", "MathBridge - Lịch học");
+            ics.property("X-PUBLISHED-TTL", "PT15M");
+
+            Iterator<SessionExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writeEvent(ics, iterator.next(), tutorFeed, zoneId, now);
+            }
+            ics.property("END", "VCALENDAR");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        byte[] content = buffer.toByteArray();
+        return new CalendarFeed(content, etagOf(content), now.toEpochMilli());
+    }
+
+    private void writeEvent(IcsWriter ics, SessionExportRow row, boolean tutorFeed, ZoneId zoneId, Instant now)
+            throws IOException {
+        Instant start = row.getScheduledDate().atZone(zoneId).toInstant();
+        int duration = row.getDuration() != null ? row.getDuration() : 60;
+        String otherParty = tutorFeed ? row.getStudentName() : row.getTutorName();
+
+        ics.property("BEGIN", "VEVENT");
+        ics.property("UID", "session-" + row.getId() + "@mathbridge");
+        ics.dateTime("DTSTAMP", now);
+        ics.dateTime("DTSTART", start);
+        ics.dateTime("DTEND", start.plus(duration, ChronoUnit.MINUTES));
+        ics.text("SUMMARY", otherParty != null ? row.getSubject() + " - " + otherParty : row.getSubject());
+        ics.text("LOCATION", row.getLocation());
+        ics.text("DESCRIPTION", "Giảng viên: " + row.getTutorName() + "\nHọc sinh: " + row.getStudentName());
+        ics.property("STATUS", eventStatus(row.getStatus()));
+        ics.property("END", "VEVENT");
+    }
+
+    private String eventStatus(SessionStatus status) {
+        if (status == SessionStatus.CANCELLED || status == SessionStatus.EXPIRED) {
+            return "CANCELLED";
+        }
+        if (status == SessionStatus.SCHEDULED) {
+            return "TENTATIVE";
+        }
+        return "CONFIRMED";
+    }
+
+    private String etagOf(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,70 @@
+package com.mathbridge.be_project.calendar;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes iCalendar (RFC 5545) content lines to a stream: escapes text values and folds lines at 75 octets.
+ */
+public class IcsWriter {
+
+    private static final DateTimeFormatter UTC_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FOLD = "\r\n ".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private final OutputStream out;
+
+    public IcsWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    // Property with a raw value (already valid iCalendar syntax)
+    public void property(String name, String value) throws IOException {
+        writeLine(name + ":" + value);
+    }
+
+    // Property with a TEXT value that needs escaping
+    public void text(String name, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        writeLine(name + ":" + escape(value));
+    }
+
+    public void dateTime(String name, Instant value) throws IOException {
+        writeLine(name + ":" + UTC_FORMAT.format(value));
+    }
+
+    private String escape(String value) {
+        return value.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n")
+                .replace("\r", "\\n");
+    }
+
+    // Fold on code point boundaries so multi-byte (Vietnamese) characters are never split
+    private void writeLine(String line) throws IOException {
+        int lineOctets = 0;
+        int i = 0;
+        while (i < line.length()) {
+            int codePoint = line.codePointAt(i);
+            byte[] bytes = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8);
+            if (lineOctets + bytes.length > MAX_LINE_OCTETS) {
+                out.write(FOLD);
+                lineOctets = 1;
+            }
+            out.write(bytes);
+            lineOctets += bytes.length;
+            i += Character.charCount(codePoint);
+        }
+        out.write(CRLF);
+    }
+}
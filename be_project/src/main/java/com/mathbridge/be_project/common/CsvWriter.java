@@ -0,0 +1,68 @@
+package com.mathbridge.be_project.common;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Minimal RFC 4180 CSV writer that writes rows straight to the underlying writer.
+ */
+public class CsvWriter implements Flushable {
+
+    private static final char SEPARATOR = ',';
+    private static final String LINE_END = "\r\n";
+
+    private final Writer writer;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    // Byte order mark so Excel opens UTF-8 (Vietnamese) text correctly
+    public void writeBom() throws IOException {
+        writer.write('\uFEFF');
+    }
+
+    public void writeRow(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(SEPARATOR);
+            }
+            writeValue(values[i]);
+        }
+        writer.write(LINE_END);
+    }
+
+    // Text starting with =, +, -, @, tab or CR is read as a formula by Excel; an apostrophe keeps it plain text
+    public static Object escapeFormula(Object value) {
+        if (!(value instanceof CharSequence text) || text.isEmpty()) {
+            return value;
+        }
+        char first = text.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+            return "'" + text;
+        }
+        return value;
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        boolean needsQuotes = text.indexOf(SEPARATOR) >= 0 || text.indexOf('"') >= 0
+                || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+        if (!needsQuotes) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+}
@@ -0,0 +1,26 @@
+package com.mathbridge.be_project.common;
+
+public enum OutboxStatus {
+    PENDING("pending"),
+    DONE("done"),
+    DEAD("dead");
+
+    private final String value;
+
+    OutboxStatus(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static OutboxStatus fromValue(String value) {
+        for (OutboxStatus status : OutboxStatus.values()) {
+            if (status.value.equals(value)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown outbox status: " + value);
+    }
+}
@@ -0,0 +1,26 @@
+package com.mathbridge.be_project.common;
+
+public enum ReminderStatus {
+    PENDING("pending"),
+    FIRED("fired"),
+    CANCELLED("cancelled");
+
+    private final String value;
+
+    ReminderStatus(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static ReminderStatus fromValue(String value) {
+        for (ReminderStatus status : ReminderStatus.values()) {
+            if (status.value.equals(value)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown reminder status: " + value);
+    }
+}
@@ -0,0 +1,25 @@
+package com.mathbridge.be_project.common;
+
+public enum ReminderType {
+    BEFORE_SESSION("before_session"),
+    CONFIRMATION("confirmation");
+
+    private final String value;
+
+    ReminderType(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static ReminderType fromValue(String value) {
+        for (ReminderType type : ReminderType.values()) {
+            if (type.value.equals(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown reminder type: " + value);
+    }
+}
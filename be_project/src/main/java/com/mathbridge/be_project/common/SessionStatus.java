@@ -4,7 +4,8 @@ public enum SessionStatus {
     SCHEDULED("scheduled"),
     CONFIRMED("confirmed"),
     COMPLETED("completed"),
-    CANCELLED("cancelled");
+    CANCELLED("cancelled"),
+    EXPIRED("expired"); // time passed without being completed or cancelled
 
     private final String value;
 
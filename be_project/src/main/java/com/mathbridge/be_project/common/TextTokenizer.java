@@ -0,0 +1,100 @@
+package com.mathbridge.be_project.common;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Accent-folding tokenizer for Vietnamese text: "Đặng Thị Ánh" -> [dang, thi, anh].
+ * Folding is done character by character so every token keeps the offsets of the original text
+ * (used for search highlighting).
+ */
+public final class TextTokenizer {
+
+    public static final int MAX_TERM_LENGTH = 64;
+
+    public static final class Token {
+        private final String term;
+        private final int start;
+        private final int end;
+
+        private Token(String term, int start, int end) {
+            this.term = term;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        // Offsets in the original text, end exclusive
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+    }
+
+    private TextTokenizer() {}
+
+    public static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder term = new StringBuilder();
+        int start = -1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK && start >= 0) {
+                // Combining accent of an already-decomposed character: part of the current token
+                continue;
+            }
+            char folded = fold(c);
+            if (Character.isLetterOrDigit(folded)) {
+                if (start < 0) {
+                    start = i;
+                }
+                term.append(folded);
+            } else if (start >= 0) {
+                add(tokens, term, start, i);
+                term.setLength(0);
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            add(tokens, term, start, text.length());
+        }
+        return tokens;
+    }
+
+    // Distinct terms of a text, in order of first appearance
+    public static Set<String> terms(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (Token token : tokenize(text)) {
+            terms.add(token.getTerm());
+        }
+        return terms;
+    }
+
+    public static char fold(char c) {
+        if (c == 'đ' || c == 'Đ') {
+            return 'd';
+        }
+        if (c < 128) {
+            return Character.toLowerCase(c);
+        }
+        String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+        return Character.toLowerCase(decomposed.charAt(0));
+    }
+
+    private static void add(List<Token> tokens, StringBuilder term, int start, int end) {
+        String value = term.length() > MAX_TERM_LENGTH ? term.substring(0, MAX_TERM_LENGTH) : term.toString();
+        tokens.add(new Token(value, start, end));
+    }
+}
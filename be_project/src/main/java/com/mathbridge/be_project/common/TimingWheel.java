@@ -0,0 +1,174 @@
+package com.mathbridge.be_project.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel keyed by an arbitrary id.
+ * <p>
+ * Level 0 has {@code wheelSize} buckets of {@code tickMillis}; each higher level has buckets as wide as the
+ * whole level below it and is created on demand, so far-away deadlines cost nothing until they get close.
+ * Scheduling and cancelling are O(1); {@link #advance(long)} returns the keys whose deadline has been reached.
+ * Not tied to any clock: callers pass the current time in epoch milliseconds.
+ */
+public class TimingWheel<K> {
+
+    private static final class Entry<K> {
+        private final K key;
+        private final long deadline;
+        // Deadline rounded up to a tick boundary so entries never fire early
+        private final long expiration;
+        private Set<Entry<K>> bucket;
+
+        private Entry(K key, long deadline, long expiration) {
+            this.key = key;
+            this.deadline = deadline;
+            this.expiration = expiration;
+        }
+    }
+
+    private final class Level {
+        private final long tick;
+        private final long interval;
+        private final List<Set<Entry<K>>> buckets;
+        private long currentTime;
+
+        private Level(long tick, long startMillis) {
+            this.tick = tick;
+            this.interval = tick * wheelSize;
+            this.currentTime = startMillis - (startMillis % tick);
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new LinkedHashSet<>());
+            }
+        }
+
+        private Set<Entry<K>> bucketFor(long time) {
+            return buckets.get((int) ((time / tick) % wheelSize));
+        }
+    }
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<Level> levels = new ArrayList<>();
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    private final List<K> expired = new ArrayList<>();
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("Tick must be positive and wheel size greater than 1");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels.add(new Level(tickMillis, startMillis));
+    }
+
+    // Schedule (or reschedule) a key; deadlines already in the past fire on the next advance
+    public synchronized void schedule(K key, long deadlineMillis) {
+        Entry<K> existing = entries.get(key);
+        if (existing != null && existing.deadline == deadlineMillis) {
+            return;
+        }
+        cancel(key);
+        long expiration = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis) * tickMillis;
+        Entry<K> entry = new Entry<>(key, deadlineMillis, expiration);
+        entries.put(key, entry);
+        insert(entry);
+    }
+
+    public synchronized boolean cancel(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.bucket != null) {
+            entry.bucket.remove(entry);
+            entry.bucket = null;
+        } else {
+            expired.remove(key);
+        }
+        return true;
+    }
+
+    public synchronized boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Move the clock forward to nowMillis and return every key whose deadline has been reached
+    public synchronized List<K> advance(long nowMillis) {
+        Level root = levels.get(0);
+        while (nowMillis >= root.currentTime + tickMillis) {
+            root.currentTime += tickMillis;
+            cascade(1, root.currentTime);
+            flush(root);
+        }
+        if (expired.isEmpty()) {
+            return List.of();
+        }
+        List<K> due = new ArrayList<>(expired);
+        expired.clear();
+        for (K key : due) {
+            entries.remove(key);
+        }
+        return due;
+    }
+
+    private void cascade(int index, long time) {
+        if (index >= levels.size()) {
+            return;
+        }
+        Level level = levels.get(index);
+        if (time >= level.currentTime + level.tick) {
+            level.currentTime = time - (time % level.tick);
+            cascade(index + 1, level.currentTime);
+            flush(level);
+        }
+    }
+
+    // Re-insert the entries of the bucket that just became current; they drop to a lower level or expire
+    private void flush(Level level) {
+        Set<Entry<K>> bucket = level.bucketFor(level.currentTime);
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Entry<K>> pending = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Entry<K> entry : pending) {
+            entry.bucket = null;
+            insert(entry);
+        }
+    }
+
+    private void insert(Entry<K> entry) {
+        Level root = levels.get(0);
+        if (entry.expiration < root.currentTime + root.tick) {
+            expired.add(entry.key);
+            return;
+        }
+        for (int i = 0; ; i++) {
+            Level level = levelAt(i);
+            if (entry.expiration < level.currentTime + level.interval) {
+                Set<Entry<K>> bucket = level.bucketFor(entry.expiration);
+                bucket.add(entry);
+                entry.bucket = bucket;
+                return;
+            }
+        }
+    }
+
+    private Level levelAt(int index) {
+        while (levels.size() <= index) {
+            Level below = levels.get(levels.size() - 1);
+            levels.add(new Level(below.interval, below.currentTime));
+        }
+        return levels.get(index);
+    }
+}
@@ -0,0 +1,202 @@
+package com.mathbridge.be_project.common;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Minimal streaming XLSX (Office Open XML) writer: rows go straight into the zipped sheet XML as inline strings
+ * and numbers, so memory use does not depend on the number of rows.
+ * <p>
+ * When a sheet reaches Excel's row limit a new sheet is started with the same header. The workbook parts that
+ * list the sheets are written on {@link #close()}, after all rows.
+ */
+public class XlsxWriter implements Flushable, Closeable {
+
+    // Excel's limit is 1,048,576 rows per sheet
+    private static final int MAX_ROWS_PER_SHEET = 1_048_576;
+
+    private final ZipOutputStream zip;
+    private final Writer writer;
+    private final String sheetName;
+    private final int maxRowsPerSheet;
+    private Object[] header;
+    private int sheetCount;
+    private int rowInSheet;
+
+    public XlsxWriter(OutputStream out, String sheetName) {
+        this(out, sheetName, MAX_ROWS_PER_SHEET);
+    }
+
+    // Smaller row limits are only for tests
+    XlsxWriter(OutputStream out, String sheetName, int maxRowsPerSheet) {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        this.writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        this.sheetName = sheetName;
+        this.maxRowsPerSheet = maxRowsPerSheet;
+    }
+
+    // First row of every sheet, in bold
+    public void writeHeader(Object... values) throws IOException {
+        header = values;
+        startSheetIfNeeded();
+        writeCells(values, true);
+    }
+
+    public void writeRow(Object... values) throws IOException {
+        startSheetIfNeeded();
+        writeCells(values, false);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (sheetCount == 0) {
+            startSheetIfNeeded();
+        }
+        endSheet();
+        writeEntry("[Content_Types].xml", contentTypes());
+        writeEntry("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        writeEntry("xl/workbook.xml", workbook());
+        writeEntry("xl/_rels/workbook.xml.rels", workbookRels());
+        writeEntry("xl/styles.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                + "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+                + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+                + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                + "<cellXfs count=\"2\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+                + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/></cellXfs>"
+                + "</styleSheet>");
+        zip.finish();
+        writer.flush();
+        zip.close();
+    }
+
+    private void startSheetIfNeeded() throws IOException {
+        if (sheetCount > 0 && rowInSheet < maxRowsPerSheet) {
+            return;
+        }
+        if (sheetCount > 0) {
+            endSheet();
+        }
+        sheetCount++;
+        rowInSheet = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetCount + ".xml"));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+        if (sheetCount > 1 && header != null) {
+            writeCells(header, true);
+        }
+    }
+
+    private void endSheet() throws IOException {
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private void writeCells(Object[] values, boolean bold) throws IOException {
+        rowInSheet++;
+        writer.write("<row r=\"");
+        writer.write(Integer.toString(rowInSheet));
+        writer.write("\">");
+        for (Object value : values) {
+            if (value == null) {
+                writer.write("<c/>");
+            } else if (value instanceof Number number && !bold && isFinite(number)) {
+                writer.write("<c><v>");
+                writer.write(number instanceof BigDecimal decimal ? decimal.toPlainString() : number.toString());
+                writer.write("</v></c>");
+            } else {
+                writer.write(bold ? "<c t=\"inlineStr\" s=\"1\"><is><t>" : "<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                writeEscaped(value.toString());
+                writer.write("</t></is></c>");
+            }
+        }
+        writer.write("</row>");
+    }
+
+    private static boolean isFinite(Number number) {
+        return !(number instanceof Double || number instanceof Float) || Double.isFinite(number.doubleValue());
+    }
+
+    // XML-escape and drop characters XML 1.0 does not allow (control characters pasted into free text)
+    private void writeEscaped(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> writer.write("&lt;");
+                case '>' -> writer.write("&gt;");
+                case '&' -> writer.write("&amp;");
+                case '"' -> writer.write("&quot;");
+                default -> {
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(content);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private String contentTypes() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheetCount; i++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return xml.append("</Types>").toString();
+    }
+
+    private String workbook() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+        for (int i = 1; i <= sheetCount; i++) {
+            xml.append("<sheet name=\"").append(sheetCount == 1 ? sheetName : sheetName + " " + i)
+                    .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return xml.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRels() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheetCount; i++) {
+            xml.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                    .append(i).append(".xml\"/>");
+        }
+        int stylesId = sheetCount + 1;
+        xml.append("<Relationship Id=\"rId").append(stylesId)
+                .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>");
+        return xml.append("</Relationships>").toString();
+    }
+}
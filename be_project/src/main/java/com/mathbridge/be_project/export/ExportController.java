@@ -0,0 +1,106 @@
+package com.mathbridge.be_project.export;
+
+import com.mathbridge.be_project.user.User;
+import com.mathbridge.be_project.user.UserService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+// Admin only: /api/admin/** requires ROLE_ADMIN in SecurityConfig
+@RestController
+@RequestMapping("/api/admin/exports")
+public class ExportController {
+
+    private static final MediaType XLSX = MediaType.parseMediaType(
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final ExportJobService exportJobService;
+    private final UserService userService;
+
+    public ExportController(ExportJobService exportJobService, UserService userService) {
+        this.exportJobService = exportJobService;
+        this.userService = userService;
+    }
+
+    // Start an export in the background; poll the job (or wait for the notification) for the download link
+    @PostMapping
+    public ResponseEntity<?> createExport(@RequestBody ExportRequest request) {
+        User user = getCurrentUser();
+        try {
+            Map<String, Object> job = exportJobService.submit(request, user != null ? user.getId() : null);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(createErrorResponse("Hệ thống đang bận, vui lòng thử lại"));
+        }
+    }
+
+    // Recent export jobs, newest first
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> listExports() {
+        return ResponseEntity.ok(exportJobService.listJobs());
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getExport(@PathVariable String jobId) {
+        Map<String, Object> job = exportJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse("Không tìm thấy tác vụ"));
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<?> downloadExport(@PathVariable String jobId) {
+        ExportJobService.Job job = exportJobService.findDone(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(createErrorResponse("Tệp chưa sẵn sàng hoặc đã hết hạn"));
+        }
+        Resource file = new FileSystemResource(exportJobService.getFile(job));
+        boolean csv = job.getFileName().endsWith(".csv");
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : XLSX)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(job.getFileName()).build().toString())
+                .body(file);
+    }
+
+    // Cancel a running export or delete a finished one
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<?> deleteExport(@PathVariable String jobId) {
+        if (!exportJobService.delete(jobId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse("Không tìm thấy tác vụ"));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return userService.getUserByEmail(authentication.getName()).orElse(null);
+    }
+
+    private Map<String, String> createErrorResponse(String message) {
+        Map<String, String> response = new HashMap<>();
+        response.put("error", message);
+        return response;
+    }
+}
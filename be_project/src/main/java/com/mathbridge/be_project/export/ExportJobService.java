@@ -0,0 +1,460 @@
+package com.mathbridge.be_project.export;
+
+import com.mathbridge.be_project.common.CsvWriter;
+import com.mathbridge.be_project.common.XlsxWriter;
+import com.mathbridge.be_project.notification.NotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Admin spreadsheet exports of feedback and sessions, run as background jobs.
+ * <p>
+ * Each job streams its query through a forward-only JDBC cursor (fetch size {@code fetch-size}) straight into a
+ * {@link CsvWriter} or {@link XlsxWriter} on a local file, so memory use does not depend on the number of rows.
+ * When the file is complete the requesting admin gets a notification and the job status carries a download link.
+ * Files are kept for {@code ttl-hours} and then deleted.
+ */
+@Service
+public class ExportJobService {
+
+    private static final int MAX_TRACKED_JOBS = 100;
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private static final String[] FEEDBACK_HEADER = {"id", "createdAt", "date", "course", "teacher", "tutorId",
+            "sessionId", "mode", "rating", "useful", "name", "comments", "suggestions"};
+    private static final String[] SESSION_HEADER = {"id", "subject", "scheduledDate", "duration", "status", "location",
+            "hourlyRate", "totalAmount", "tutorId", "tutorName", "studentId", "studentName"};
+
+    public static final class Job {
+        private final String id;
+        private final ExportRequest request;
+        private final Long requestedBy;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicLong rows = new AtomicLong();
+        private volatile String status = "QUEUED";
+        private volatile boolean cancelled;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile Path file;
+        private volatile long sizeBytes;
+        private volatile String error;
+
+        private Job(String id, ExportRequest request, Long requestedBy) {
+            this.id = id;
+            this.request = request;
+            this.requestedBy = requestedBy;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("jobId", id);
+            map.put("dataset", request.getDataset());
+            map.put("format", request.getFormat());
+            map.put("from", request.getFrom());
+            map.put("to", request.getTo());
+            map.put("tutorId", request.getTutorId());
+            map.put("teacher", request.getTeacher());
+            map.put("course", request.getCourse());
+            map.put("status", status);
+            map.put("rows", rows.get());
+            map.put("sizeBytes", "DONE".equals(status) ? sizeBytes : null);
+            map.put("createdAt", createdAt);
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+            map.put("error", error);
+            map.put("downloadUrl", "DONE".equals(status) ? "/api/admin/exports/" + id + "/download" : null);
+            return map;
+        }
+
+        public String getFileName() {
+            return request.getDataset().name().toLowerCase() + "-" + createdAt.toLocalDate() + "."
+                    + request.getFormat().name().toLowerCase();
+        }
+    }
+
+    // A query and its parameters, built from the request filters
+    private record Query(String sql, Object[] params) {
+    }
+
+    // CSV and XLSX behind one row interface
+    private interface RowSink extends AutoCloseable {
+        void header(String... names) throws IOException;
+
+        void row(Object... values) throws IOException;
+
+        void flush() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private final JdbcTemplate streamingTemplate;
+    private final NotificationService notificationService;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+            return size() > MAX_TRACKED_JOBS;
+        }
+    };
+
+    @Value("${exports.dir:./data/exports}")
+    private String exportDir;
+
+    @Value("${exports.ttl-hours:24}")
+    private long ttlHours;
+
+    public ExportJobService(DataSource dataSource, NotificationService notificationService, MeterRegistry meterRegistry,
+                            @Value("${exports.fetch-size:1000}") int fetchSize,
+                            @Value("${exports.parallelism:2}") int parallelism,
+                            @Value("${exports.queue-capacity:16}") int queueCapacity) {
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate.setFetchSize(fetchSize);
+        this.notificationService = notificationService;
+        this.meterRegistry = meterRegistry;
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "export-job");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Validate and queue an export; throws RejectedExecutionException when too many jobs are waiting
+    public Map<String, Object> submit(ExportRequest request, Long requestedBy) {
+        if (request.getDataset() == null) {
+            throw new IllegalArgumentException("Thiếu loại dữ liệu cần xuất");
+        }
+        if (request.getFormat() == null) {
+            request.setFormat(ExportRequest.Format.XLSX);
+        }
+        if (request.getFrom() != null && request.getTo() != null && request.getFrom().isAfter(request.getTo())) {
+            throw new IllegalArgumentException("Ngày bắt đầu phải trước ngày kết thúc");
+        }
+        Query query = request.getDataset() == ExportRequest.Dataset.FEEDBACK ? feedbackQuery(request) : sessionQuery(request);
+        Job job = new Job(UUID.randomUUID().toString(), request, requestedBy);
+        executor.execute(() -> run(job, query));
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+        return job.toMap();
+    }
+
+    public Map<String, Object> getJob(String jobId) {
+        Job job = find(jobId);
+        return job != null ? job.toMap() : null;
+    }
+
+    public List<Map<String, Object>> listJobs() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        synchronized (jobs) {
+            jobs.values().forEach(job -> result.add(0, job.toMap()));
+        }
+        return result;
+    }
+
+    // The finished job, or null if it does not exist or is not done
+    public Job findDone(String jobId) {
+        Job job = find(jobId);
+        return job != null && "DONE".equals(job.status) && job.file != null && Files.exists(job.file) ? job : null;
+    }
+
+    public Path getFile(Job job) {
+        return job.file;
+    }
+
+    // Cancel a queued/running job or delete a finished one's file; false if unknown
+    public boolean delete(String jobId) {
+        Job job;
+        synchronized (jobs) {
+            job = jobs.remove(jobId);
+        }
+        if (job == null) {
+            return false;
+        }
+        job.cancelled = true;
+        deleteQuietly(job.file);
+        return true;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // Drop files (including ones left by a previous run of the application) older than the TTL
+    @Scheduled(fixedDelayString = "${exports.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(ttlHours));
+        synchronized (jobs) {
+            jobs.values().removeIf(job -> job.finishedAt != null
+                    && job.finishedAt.isBefore(LocalDateTime.now().minusHours(ttlHours)));
+        }
+        Path dir = Paths.get(exportDir);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> {
+                try {
+                    return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+                } catch (IOException e) {
+                    return false;
+                }
+            }).forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            System.err.println("Export cleanup failed: " + e.getMessage());
+        }
+    }
+
+    private Job find(String jobId) {
+        synchronized (jobs) {
+            return jobs.get(jobId);
+        }
+    }
+
+    private void run(Job job, Query query) {
+        if (job.cancelled) {
+            return;
+        }
+        job.status = "RUNNING";
+        job.startedAt = LocalDateTime.now();
+        ExportRequest request = job.request;
+        Path part = Paths.get(exportDir, job.id + ".part");
+        long started = System.nanoTime();
+        try {
+            Files.createDirectories(part.getParent());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part));
+                 RowSink sink = openSink(request, out)) {
+                boolean feedback = request.getDataset() == ExportRequest.Dataset.FEEDBACK;
+                sink.header(feedback ? FEEDBACK_HEADER : SESSION_HEADER);
+                streamingTemplate.query(query.sql(), rs -> {
+                    if (job.cancelled) {
+                        throw new CancellationException();
+                    }
+                    try {
+                        sink.row(feedback ? feedbackRow(rs) : sessionRow(rs));
+                        if (job.rows.incrementAndGet() % FLUSH_EVERY_ROWS == 0) {
+                            sink.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new SQLException("Export write failed: " + e.getMessage(), e);
+                    }
+                }, query.params());
+            }
+            Path target = Paths.get(exportDir, job.id + "." + request.getFormat().name().toLowerCase());
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+            job.file = target;
+            job.sizeBytes = Files.size(target);
+            job.status = "DONE";
+            System.out.println("Export " + job.id + " wrote " + job.rows.get() + " " + request.getDataset() + " rows");
+            if (job.requestedBy != null) {
+                notificationService.createNotification(job.requestedBy,
+                        "Tệp xuất dữ liệu " + job.getFileName() + " (" + job.rows.get() + " dòng) đã sẵn sàng để tải về",
+                        "EXPORT_READY");
+            }
+        } catch (CancellationException e) {
+            job.status = "CANCELLED";
+            deleteQuietly(part);
+        } catch (Exception e) {
+            job.status = job.cancelled ? "CANCELLED" : "FAILED";
+            job.error = job.cancelled ? null : e.getMessage();
+            deleteQuietly(part);
+            if (!job.cancelled) {
+                System.err.println("Export " + job.id + " failed: " + e.getMessage());
+            }
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            Timer.builder("exports.run")
+                    .description("Duration of one spreadsheet export job")
+                    .tag("dataset", request.getDataset().name())
+                    .tag("format", request.getFormat().name())
+                    .tag("status", job.status)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private RowSink openSink(ExportRequest request, OutputStream out) {
+        if (request.getFormat() == ExportRequest.Format.CSV) {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            CsvWriter csv = new CsvWriter(writer);
+            return new RowSink() {
+                @Override
+                public void header(String... names) throws IOException {
+                    csv.writeBom();
+                    csv.writeRow((Object[]) names);
+                }
+
+                @Override
+                public void row(Object... values) throws IOException {
+                    // Free text comes from the public feedback form
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = CsvWriter.escapeFormula(values[i]);
+                    }
+                    csv.writeRow(values);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    csv.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    writer.close();
+                }
+            };
+        }
+        XlsxWriter xlsx = new XlsxWriter(out, request.getDataset() == ExportRequest.Dataset.FEEDBACK ? "Feedback" : "Sessions");
+        return new RowSink() {
+            @Override
+            public void header(String... names) throws IOException {
+                xlsx.writeHeader((Object[]) names);
+            }
+
+            @Override
+            public void row(Object... values) throws IOException {
+                xlsx.writeRow(values);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                xlsx.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                xlsx.close();
+            }
+        };
+    }
+
+    // Names of anonymous feedback are never exported
+    private Query feedbackQuery(ExportRequest request) {
+        StringBuilder sql = new StringBuilder("SELECT f.id, f.created_at, f.date, f.course, f.teacher, f.tutor_id, f.session_id, "
+                + "f.mode, f.rating, f.useful, CASE WHEN f.anonymous = 1 THEN NULL ELSE f.name END, f.comments, f.suggestions "
+                + "FROM feedbacks f WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (request.getFrom() != null) {
+            sql.append(" AND f.date >= ?");
+            params.add(Date.valueOf(request.getFrom()));
+        }
+        if (request.getTo() != null) {
+            sql.append(" AND f.date <= ?");
+            params.add(Date.valueOf(request.getTo()));
+        }
+        if (request.getTutorId() != null) {
+            sql.append(" AND f.tutor_id = ?");
+            params.add(request.getTutorId());
+        }
+        if (request.getTeacher() != null && !request.getTeacher().isBlank()) {
+            sql.append(" AND f.teacher = ?");
+            params.add(request.getTeacher().trim());
+        }
+        if (request.getCourse() != null && !request.getCourse().isBlank()) {
+            sql.append(" AND f.course = ?");
+            params.add(request.getCourse().trim());
+        }
+        sql.append(" ORDER BY f.id");
+        return new Query(sql.toString(), params.toArray());
+    }
+
+    private Query sessionQuery(ExportRequest request) {
+        StringBuilder sql = new StringBuilder("SELECT s.id, s.subject, s.scheduled_date, s.duration, s.status, s.location, "
+                + "s.hourly_rate, s.total_amount, t.id, tu.full_name, st.id, st.full_name "
+                + "FROM sessions s JOIN tutors t ON t.id = s.tutor_id JOIN users tu ON tu.id = t.user_id "
+                + "JOIN students st ON st.id = s.student_id WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (request.getFrom() != null) {
+            sql.append(" AND s.scheduled_date >= ?");
+            params.add(Timestamp.valueOf(request.getFrom().atStartOfDay()));
+        }
+        if (request.getTo() != null) {
+            sql.append(" AND s.scheduled_date < ?");
+            params.add(Timestamp.valueOf(request.getTo().plusDays(1).atStartOfDay()));
+        }
+        if (request.getTutorId() != null) {
+            sql.append(" AND s.tutor_id = ?");
+            params.add(request.getTutorId());
+        }
+        if (request.getTeacher() != null && !request.getTeacher().isBlank()) {
+            sql.append(" AND tu.full_name = ?");
+            params.add(request.getTeacher().trim());
+        }
+        if (request.getCourse() != null && !request.getCourse().isBlank()) {
+            sql.append(" AND s.subject = ?");
+            params.add(request.getCourse().trim());
+        }
+        sql.append(" ORDER BY s.id");
+        return new Query(sql.toString(), params.toArray());
+    }
+
+    private Object[] feedbackRow(ResultSet rs) throws SQLException {
+        return new Object[]{rs.getLong(1), dateTime(rs.getTimestamp(2)), date(rs.getDate(3)), rs.getString(4),
+                rs.getString(5), rs.getObject(6), rs.getObject(7), rs.getString(8), rs.getInt(9), rs.getString(10),
+                rs.getString(11), rs.getString(12), rs.getString(13)};
+    }
+
+    private Object[] sessionRow(ResultSet rs) throws SQLException {
+        return new Object[]{rs.getLong(1), rs.getString(2), dateTime(rs.getTimestamp(3)), rs.getInt(4), rs.getString(5),
+                rs.getString(6), rs.getBigDecimal(7), rs.getBigDecimal(8), rs.getLong(9), rs.getString(10),
+                rs.getLong(11), rs.getString(12)};
+    }
+
+    private static String dateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().toString().replace('T', ' ') : null;
+    }
+
+    private static String date(Date date) {
+        return date != null ? date.toLocalDate().toString() : null;
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Could not delete export file " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.mathbridge.be_project.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportRequest {
+
+    public enum Dataset {
+        FEEDBACK,
+        SESSIONS
+    }
+
+    public enum Format {
+        CSV,
+        XLSX
+    }
+
+    private Dataset dataset;
+    private Format format = Format.XLSX;
+    private LocalDate from; // inclusive; feedback date / session scheduled date
+    private LocalDate to; // inclusive
+    private Long tutorId;
+    private String teacher; // exact teacher name (feedback) or tutor full name (sessions)
+    private String course; // feedback course or session subject
+}
@@ -5,7 +5,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "feedbacks")
+@Table(name = "feedbacks", indexes = {
+        // Per-tutor keyset paging newest first; foreign keys are added by V15
+        @Index(name = "IX_feedbacks_tutor_created", columnList = "tutor_id, created_at DESC, id DESC"),
+        @Index(name = "IX_feedbacks_session", columnList = "session_id")
+})
 public class Feedback {
 
     @Id
@@ -21,6 +25,13 @@ public class Feedback {
     @Column(name = "teacher", nullable = false, length = 255)
     private String teacher;
 
+    // Resolved from sessionId, an explicit tutorId or the teacher name; null if no tutor matched
+    @Column(name = "tutor_id")
+    private Long tutorId;
+
+    @Column(name = "session_id")
+    private Long sessionId;
+
     @Column(name = "date", nullable = false)
     private LocalDate date;
 
@@ -42,6 +53,10 @@ public class Feedback {
     @Column(name = "anonymous", nullable = false)
     private Boolean anonymous = false;
 
+    // Id handed out by the async ingestion endpoint; makes spool replays idempotent
+    @Column(name = "submission_id", length = 36, updatable = false)
+    private String submissionId;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
@@ -165,6 +180,30 @@ public class Feedback {
         this.anonymous = anonymous;
     }
 
+    public Long getTutorId() {
+        return tutorId;
+    }
+
+    public void setTutorId(Long tutorId) {
+        this.tutorId = tutorId;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(String submissionId) {
+        this.submissionId = submissionId;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,134 @@
+package com.mathbridge.be_project.feedback;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of feedback for one teacher or one course. Overall totals are the sum of the course rows
+ * (every feedback has exactly one course), so no single row is written by every submission.
+ * Maintained by {@link FeedbackAnalyticsService} with one atomic MERGE per scope on every create/delete,
+ * so reading stats never touches the feedbacks table.
+ */
+@Entity
+@Table(name = "feedback_aggregates", uniqueConstraints = {
+        @UniqueConstraint(name = "UX_feedback_aggregates_scope_key", columnNames = {"scope", "scope_key"})
+})
+public class FeedbackAggregate {
+
+    public static final String SCOPE_TEACHER = "TEACHER";
+    public static final String SCOPE_COURSE = "COURSE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "scope", nullable = false, length = 20)
+    private String scope;
+
+    // Normalized (trimmed, lower-case) teacher or course name
+    @Column(name = "scope_key", nullable = false, length = 255)
+    private String scopeKey;
+
+    @Column(name = "display_name", length = 255)
+    private String displayName;
+
+    @Column(name = "total_count", nullable = false)
+    private long totalCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "rating_1", nullable = false)
+    private long rating1;
+
+    @Column(name = "rating_2", nullable = false)
+    private long rating2;
+
+    @Column(name = "rating_3", nullable = false)
+    private long rating3;
+
+    @Column(name = "rating_4", nullable = false)
+    private long rating4;
+
+    @Column(name = "rating_5", nullable = false)
+    private long rating5;
+
+    @Column(name = "useful_yes", nullable = false)
+    private long usefulYes;
+
+    @Column(name = "useful_no", nullable = false)
+    private long usefulNo;
+
+    @Column(name = "mode_in_person", nullable = false)
+    private long modeInPerson;
+
+    @Column(name = "mode_online", nullable = false)
+    private long modeOnline;
+
+    @Column(name = "mode_hybrid", nullable = false)
+    private long modeHybrid;
+
+    @Column(name = "mode_other", nullable = false)
+    private long modeOther;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public FeedbackAggregate() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public String getScopeKey() {
+        return scopeKey;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public long[] getRatingHistogram() {
+        return new long[]{rating1, rating2, rating3, rating4, rating5};
+    }
+
+    public long getUsefulYes() {
+        return usefulYes;
+    }
+
+    public long getUsefulNo() {
+        return usefulNo;
+    }
+
+    public long getModeInPerson() {
+        return modeInPerson;
+    }
+
+    public long getModeOnline() {
+        return modeOnline;
+    }
+
+    public long getModeHybrid() {
+        return modeHybrid;
+    }
+
+    public long getModeOther() {
+        return modeOther;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
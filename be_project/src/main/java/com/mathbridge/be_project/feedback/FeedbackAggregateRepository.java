@@ -0,0 +1,47 @@
+package com.mathbridge.be_project.feedback;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface FeedbackAggregateRepository extends JpaRepository<FeedbackAggregate, Long> {
+
+    Optional<FeedbackAggregate> findByScopeAndScopeKey(String scope, String scopeKey);
+
+    Page<FeedbackAggregate> findByScopeOrderByTotalCountDesc(String scope, Pageable pageable);
+
+    // Add count deltas (negative on delete) to one scope's totals; HOLDLOCK makes the upsert race-free
+    @Modifying
+    @Query(value = "MERGE feedback_aggregates WITH (HOLDLOCK) AS t " +
+                   "USING (SELECT :scope AS scope, :scopeKey AS scope_key) AS s " +
+                   "ON t.scope = s.scope AND t.scope_key = s.scope_key " +
+                   "WHEN MATCHED THEN UPDATE SET " +
+                   "  display_name = CASE WHEN :count > 0 THEN :displayName ELSE t.display_name END, " +
+                   "  total_count = t.total_count + :count, rating_sum = t.rating_sum + :ratingSum, " +
+                   "  rating_1 = t.rating_1 + :rating1, rating_2 = t.rating_2 + :rating2, rating_3 = t.rating_3 + :rating3, " +
+                   "  rating_4 = t.rating_4 + :rating4, rating_5 = t.rating_5 + :rating5, " +
+                   "  useful_yes = t.useful_yes + :usefulYes, useful_no = t.useful_no + :usefulNo, " +
+                   "  mode_in_person = t.mode_in_person + :modeInPerson, mode_online = t.mode_online + :modeOnline, " +
+                   "  mode_hybrid = t.mode_hybrid + :modeHybrid, mode_other = t.mode_other + :modeOther, " +
+                   "  updated_at = SYSDATETIME() " +
+                   "WHEN NOT MATCHED AND :count > 0 THEN INSERT (scope, scope_key, display_name, total_count, rating_sum, " +
+                   "  rating_1, rating_2, rating_3, rating_4, rating_5, useful_yes, useful_no, " +
+                   "  mode_in_person, mode_online, mode_hybrid, mode_other, updated_at) " +
+                   "VALUES (:scope, :scopeKey, :displayName, :count, :ratingSum, :rating1, :rating2, :rating3, :rating4, :rating5, " +
+                   "  :usefulYes, :usefulNo, :modeInPerson, :modeOnline, :modeHybrid, :modeOther, SYSDATETIME());",
+           nativeQuery = true)
+    int addCounts(@Param("scope") String scope, @Param("scopeKey") String scopeKey, @Param("displayName") String displayName,
+                  @Param("count") long count, @Param("ratingSum") long ratingSum,
+                  @Param("rating1") long rating1, @Param("rating2") long rating2, @Param("rating3") long rating3,
+                  @Param("rating4") long rating4, @Param("rating5") long rating5,
+                  @Param("usefulYes") long usefulYes, @Param("usefulNo") long usefulNo,
+                  @Param("modeInPerson") long modeInPerson, @Param("modeOnline") long modeOnline,
+                  @Param("modeHybrid") long modeHybrid, @Param("modeOther") long modeOther);
+}
@@ -0,0 +1,350 @@
+package com.mathbridge.be_project.feedback;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-teacher and per-course feedback statistics backed by the feedback_aggregates table, and overall statistics
+ * summed from its course rows.
+ * <p>
+ * {@link #apply(Feedback, int)} runs inside the transaction that creates or deletes the feedback and bumps
+ * its teacher and course rows with an atomic MERGE, so teacher and course reads are a single unique-key lookup
+ * no matter how much feedback there is. Overall stats sum the course rows at read time rather than keeping one
+ * row that every submission would have to lock. {@link #rebuild()} recomputes the whole table from feedbacks with
+ * set-based SQL in one transaction; it locks feedback_aggregates first, the same order writers use (aggregates,
+ * then feedbacks), so concurrent submissions wait instead of deadlocking or being counted twice.
+ */
+@Service
+public class FeedbackAnalyticsService {
+
+    // Keep in sync with normalizeMode / normalizeUseful
+    private static final String MODE_SQL = "CASE LOWER(LTRIM(RTRIM(f.mode))) "
+            + "WHEN N'trực tiếp' THEN 'IN_PERSON' WHEN N'offline' THEN 'IN_PERSON' "
+            + "WHEN N'online' THEN 'ONLINE' WHEN N'hybrid' THEN 'HYBRID' ELSE 'OTHER' END";
+    private static final String USEFUL_SQL = "LOWER(LTRIM(RTRIM(f.useful)))";
+
+    // Count changes for one aggregate row
+    private static final class Delta {
+        private final String scope;
+        private final String key;
+        private String displayName;
+        private long count;
+        private long ratingSum;
+        private final long[] ratings = new long[5];
+        private long usefulYes;
+        private long usefulNo;
+        // IN_PERSON, ONLINE, HYBRID, OTHER
+        private final long[] modes = new long[4];
+
+        private Delta(String scope, String key) {
+            this.scope = scope;
+            this.key = key;
+        }
+    }
+
+    private final FeedbackAggregateRepository aggregateRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer rebuildTimer;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    @Value("${feedback.aggregates.rebuild.enabled:false}")
+    private boolean scheduledRebuildEnabled;
+
+    @Value("${feedback.aggregates.rebuild.on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    @Value("${feedback.aggregates.rebuild.timeout-seconds:300}")
+    private int rebuildTimeoutSeconds;
+
+    public FeedbackAnalyticsService(FeedbackAggregateRepository aggregateRepository, JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.aggregateRepository = aggregateRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildTimer = Timer.builder("feedback.aggregates.rebuild")
+                .description("Duration of a full feedback aggregates rebuild")
+                .register(meterRegistry);
+    }
+
+    // Add (delta = 1) or remove (delta = -1) one feedback from its teacher and course rows; overall stats follow
+    // because they are summed from the course rows when read
+    @Transactional
+    public void apply(Feedback feedback, int delta) {
+        applyAll(List.of(feedback), delta);
+    }
+
+    // Same for a batch: deltas are summed per teacher/course first, so each aggregate row gets one MERGE
+    @Transactional
+    public void applyAll(List<Feedback> feedbacks, int delta) {
+        // Sorted so concurrent batches lock aggregate rows in the same order
+        Map<String, Delta> deltas = new TreeMap<>();
+        for (Feedback feedback : feedbacks) {
+            add(deltas, FeedbackAggregate.SCOPE_COURSE, normalizeKey(feedback.getCourse()), stripSpaces(feedback.getCourse()), feedback, delta);
+            add(deltas, FeedbackAggregate.SCOPE_TEACHER, normalizeKey(feedback.getTeacher()), stripSpaces(feedback.getTeacher()), feedback, delta);
+        }
+        for (Delta d : deltas.values()) {
+            aggregateRepository.addCounts(d.scope, d.key, d.displayName, d.count, d.ratingSum,
+                    d.ratings[0], d.ratings[1], d.ratings[2], d.ratings[3], d.ratings[4], d.usefulYes, d.usefulNo,
+                    d.modes[0], d.modes[1], d.modes[2], d.modes[3]);
+        }
+    }
+
+    private void add(Map<String, Delta> deltas, String scope, String key, String displayName, Feedback feedback, int delta) {
+        Delta d = deltas.computeIfAbsent(scope + "|" + key, k -> new Delta(scope, key));
+        d.displayName = displayName;
+        d.count += delta;
+        int rating = feedback.getRating() != null ? feedback.getRating() : 0;
+        d.ratingSum += (long) delta * rating;
+        if (rating >= 1 && rating <= 5) {
+            d.ratings[rating - 1] += delta;
+        }
+        String useful = normalizeUseful(feedback.getUseful());
+        if (useful.equals("yes")) {
+            d.usefulYes += delta;
+        } else if (useful.equals("no")) {
+            d.usefulNo += delta;
+        }
+        switch (normalizeMode(feedback.getMode())) {
+            case "IN_PERSON" -> d.modes[0] += delta;
+            case "ONLINE" -> d.modes[1] += delta;
+            case "HYBRID" -> d.modes[2] += delta;
+            default -> d.modes[3] += delta;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getTeacherStats(String teacher) {
+        return toStats(FeedbackAggregate.SCOPE_TEACHER, teacher, normalizeKey(teacher));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getCourseStats(String course) {
+        return toStats(FeedbackAggregate.SCOPE_COURSE, course, normalizeKey(course));
+    }
+
+    // Sum of the course rows (one per course, so a small range scan)
+    @Transactional(readOnly = true)
+    public Map<String, Object> getOverallStats() {
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT COALESCE(SUM(total_count), 0) AS total_count, "
+                + "COALESCE(SUM(rating_sum), 0) AS rating_sum, COALESCE(SUM(rating_1), 0) AS rating_1, "
+                + "COALESCE(SUM(rating_2), 0) AS rating_2, COALESCE(SUM(rating_3), 0) AS rating_3, "
+                + "COALESCE(SUM(rating_4), 0) AS rating_4, COALESCE(SUM(rating_5), 0) AS rating_5, "
+                + "COALESCE(SUM(useful_yes), 0) AS useful_yes, COALESCE(SUM(useful_no), 0) AS useful_no, "
+                + "COALESCE(SUM(mode_in_person), 0) AS mode_in_person, COALESCE(SUM(mode_online), 0) AS mode_online, "
+                + "COALESCE(SUM(mode_hybrid), 0) AS mode_hybrid, COALESCE(SUM(mode_other), 0) AS mode_other, "
+                + "MAX(updated_at) AS updated_at FROM feedback_aggregates WHERE scope = ?", FeedbackAggregate.SCOPE_COURSE);
+        long count = number(row, "total_count");
+        if (count == 0) {
+            return emptyStats(null);
+        }
+        long[] ratings = {number(row, "rating_1"), number(row, "rating_2"), number(row, "rating_3"),
+                number(row, "rating_4"), number(row, "rating_5")};
+        Object updatedAt = row.get("updated_at");
+        return stats(null, count, number(row, "rating_sum"), ratings, number(row, "useful_yes"), number(row, "useful_no"),
+                modes(number(row, "mode_in_person"), number(row, "mode_online"), number(row, "mode_hybrid"), number(row, "mode_other")),
+                updatedAt instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : null);
+    }
+
+    // Teachers or courses with the most feedback
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getTop(String scope, int page, int size) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (FeedbackAggregate aggregate : aggregateRepository
+                .findByScopeOrderByTotalCountDesc(scope, PageRequest.of(page, size)).getContent()) {
+            result.add(toStats(aggregate, aggregate.getDisplayName()));
+        }
+        return result;
+    }
+
+    // Fill the table the first time the application starts against existing feedback
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        try {
+            if (aggregateRepository.count() == 0) {
+                Long rows = rebuild();
+                System.out.println("Feedback aggregates backfilled from " + rows + " feedbacks");
+            }
+        } catch (Exception e) {
+            System.err.println("Feedback aggregates backfill failed: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${feedback.aggregates.rebuild.cron:0 0 4 * * SUN}")
+    public void scheduledRebuild() {
+        if (!scheduledRebuildEnabled) {
+            return;
+        }
+        try {
+            Long rows = rebuild();
+            System.out.println("Feedback aggregates rebuilt from " + rows + " feedbacks");
+        } catch (Exception e) {
+            System.err.println("Feedback aggregates rebuild failed: " + e.getMessage());
+        }
+    }
+
+    // Recompute every aggregate from the feedbacks table; returns feedbacks counted, or null if a rebuild is running
+    public Long rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return null;
+        }
+        long started = System.nanoTime();
+        try {
+            TransactionTemplate template = new TransactionTemplate(transactionTemplate.getTransactionManager());
+            template.setTimeout(rebuildTimeoutSeconds);
+            return template.execute(status -> {
+                // Blocks new MERGEs until commit, and waits for in-flight submissions to finish
+                jdbcTemplate.execute("SELECT TOP (0) id FROM feedback_aggregates WITH (TABLOCKX, HOLDLOCK)");
+                jdbcTemplate.update("DELETE FROM feedback_aggregates");
+                jdbcTemplate.update(insertGrouped(FeedbackAggregate.SCOPE_COURSE, "LOWER(LTRIM(RTRIM(f.course)))", "MAX(LTRIM(RTRIM(f.course)))"));
+                jdbcTemplate.update(insertGrouped(FeedbackAggregate.SCOPE_TEACHER, "LOWER(LTRIM(RTRIM(f.teacher)))", "MAX(LTRIM(RTRIM(f.teacher)))"));
+                return jdbcTemplate.queryForObject(
+                        "SELECT COALESCE(SUM(total_count), 0) FROM feedback_aggregates WHERE scope = ?",
+                        Long.class, FeedbackAggregate.SCOPE_COURSE);
+            });
+        } finally {
+            rebuildTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            rebuilding.set(false);
+        }
+    }
+
+    private String insertGrouped(String scope, String keyExpr, String displayExpr) {
+        return "INSERT INTO feedback_aggregates (scope, scope_key, display_name, total_count, rating_sum, "
+                + "rating_1, rating_2, rating_3, rating_4, rating_5, useful_yes, useful_no, "
+                + "mode_in_person, mode_online, mode_hybrid, mode_other, updated_at) "
+                + "SELECT '" + scope + "', " + keyExpr + ", " + displayExpr + ", COUNT(*), SUM(CAST(f.rating AS BIGINT)), "
+                + "SUM(CASE WHEN f.rating = 1 THEN 1 ELSE 0 END), SUM(CASE WHEN f.rating = 2 THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN f.rating = 3 THEN 1 ELSE 0 END), SUM(CASE WHEN f.rating = 4 THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN f.rating = 5 THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN " + USEFUL_SQL + " = 'yes' THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN " + USEFUL_SQL + " = 'no' THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN " + MODE_SQL + " = 'IN_PERSON' THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN " + MODE_SQL + " = 'ONLINE' THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN " + MODE_SQL + " = 'HYBRID' THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN " + MODE_SQL + " = 'OTHER' THEN 1 ELSE 0 END), SYSDATETIME() "
+                + "FROM feedbacks f GROUP BY " + keyExpr;
+    }
+
+    private Map<String, Object> toStats(String scope, String name, String key) {
+        FeedbackAggregate aggregate = aggregateRepository.findByScopeAndScopeKey(scope, key).orElse(null);
+        if (aggregate == null) {
+            return emptyStats(name);
+        }
+        return toStats(aggregate, aggregate.getDisplayName());
+    }
+
+    private Map<String, Object> toStats(FeedbackAggregate aggregate, String name) {
+        return stats(name, aggregate.getTotalCount(), aggregate.getRatingSum(), aggregate.getRatingHistogram(),
+                aggregate.getUsefulYes(), aggregate.getUsefulNo(),
+                modes(aggregate.getModeInPerson(), aggregate.getModeOnline(), aggregate.getModeHybrid(), aggregate.getModeOther()),
+                aggregate.getUpdatedAt());
+    }
+
+    private Map<String, Object> stats(String name, long count, long ratingSum, long[] ratings, long usefulYes,
+                                      long usefulNo, Map<String, Long> modes, LocalDateTime updatedAt) {
+        long usefulAnswers = usefulYes + usefulNo;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("count", count);
+        stats.put("averageRating", count > 0 ? Math.round(ratingSum * 100.0 / count) / 100.0 : null);
+        stats.put("ratingHistogram", histogram(ratings));
+        stats.put("usefulRatio", usefulAnswers > 0 ? Math.round(usefulYes * 1000.0 / usefulAnswers) / 1000.0 : null);
+        stats.put("modes", modes);
+        stats.put("updatedAt", updatedAt);
+        return stats;
+    }
+
+    private Map<String, Object> emptyStats(String name) {
+        Map<String, Object> empty = new LinkedHashMap<>();
+        empty.put("name", name);
+        empty.put("count", 0L);
+        empty.put("averageRating", null);
+        empty.put("ratingHistogram", histogram(new long[5]));
+        empty.put("usefulRatio", null);
+        empty.put("modes", modes(0, 0, 0, 0));
+        return empty;
+    }
+
+    private static long number(Map<String, Object> row, String column) {
+        Object value = row.get(column);
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    private Map<String, Long> histogram(long[] buckets) {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            histogram.put(String.valueOf(i + 1), buckets[i]);
+        }
+        return histogram;
+    }
+
+    private Map<String, Long> modes(long inPerson, long online, long hybrid, long other) {
+        Map<String, Long> modes = new LinkedHashMap<>();
+        modes.put("IN_PERSON", inPerson);
+        modes.put("ONLINE", online);
+        modes.put("HYBRID", hybrid);
+        modes.put("OTHER", other);
+        return modes;
+    }
+
+    // Must match LOWER(LTRIM(RTRIM(x))) in the rebuild SQL, which strips spaces only (String.trim() would
+    // also strip tabs and line breaks); FeedbackService stores values trimmed, so both see the same text
+    static String normalizeKey(String value) {
+        return value == null ? "" : stripSpaces(value).toLowerCase(Locale.ROOT);
+    }
+
+    static String stripSpaces(String value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return value.substring(start, end);
+    }
+
+    static String normalizeMode(String mode) {
+        String value = normalizeKey(mode);
+        switch (value) {
+            case "trực tiếp":
+            case "offline":
+                return "IN_PERSON";
+            case "online":
+                return "ONLINE";
+            case "hybrid":
+                return "HYBRID";
+            default:
+                return "OTHER";
+        }
+    }
+
+    static String normalizeUseful(String useful) {
+        return normalizeKey(useful);
+    }
+}
@@ -1,13 +1,22 @@
 package com.mathbridge.be_project.feedback;
 
+import com.mathbridge.be_project.common.UserRole;
+import com.mathbridge.be_project.user.User;
+import com.mathbridge.be_project.user.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/feedback")
@@ -15,20 +24,48 @@ import java.util.Map;
 public class FeedbackController {
 
     private final FeedbackService feedbackService;
+    private final FeedbackAnalyticsService analyticsService;
+    private final FeedbackIngestionService ingestionService;
+    private final FeedbackTutorBackfillJob tutorBackfillJob;
+    private final UserService userService;
 
+    // Queued for the batch writer (202 + submissionId) when async ingestion is on, saved directly (201) otherwise
     @PostMapping
-    public ResponseEntity<?> createFeedback(@RequestBody FeedbackRequest request) {
+    public ResponseEntity<?> createFeedback(@RequestBody FeedbackRequest request, HttpServletRequest httpRequest) {
+        long retryAfter = ingestionService.acquire(ingestionService.clientKey(httpRequest));
+        if (retryAfter > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body(createErrorResponse("Bạn gửi đánh giá quá nhanh, vui lòng thử lại sau"));
+        }
         try {
+            if (ingestionService.isEnabled()) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(ingestionService.submit(request));
+            }
             Feedback feedback = feedbackService.createFeedback(request);
             return ResponseEntity.status(HttpStatus.CREATED).body(feedback);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(createErrorResponse("Hệ thống đang bận, vui lòng thử lại"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(createErrorResponse("Lỗi khi tạo feedback: " + e.getMessage()));
         }
     }
 
+    // Whether a queued submission has been saved yet
+    @GetMapping("/submissions/{submissionId}")
+    public ResponseEntity<?> getSubmissionStatus(@PathVariable String submissionId) {
+        Map<String, Object> status = ingestionService.getStatus(submissionId);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse("Không tìm thấy đánh giá"));
+        }
+        return ResponseEntity.status("SAVED".equals(status.get("status")) ? HttpStatus.OK : HttpStatus.ACCEPTED).body(status);
+    }
+
     @GetMapping
     public ResponseEntity<List<Feedback>> getAllFeedbacks() {
         return ResponseEntity.ok(feedbackService.getAllFeedbacks());
@@ -55,6 +92,87 @@ public class FeedbackController {
         return ResponseEntity.ok(feedbackService.getFeedbacksByTeacher(teacher));
     }
 
+    // A tutor's feedback, newest first, by keyset page
+    @GetMapping("/tutor/{tutorId}")
+    public ResponseEntity<?> getFeedbacksByTutor(@PathVariable Long tutorId,
+                                                 @RequestParam(value = "cursor", required = false) String cursor,
+                                                 @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(feedbackService.getTutorPage(tutorId, cursor, Math.min(Math.max(limit, 1), 100)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse("Cursor không hợp lệ"));
+        }
+    }
+
+    // Link old feedback to tutors by teacher name (admin); dryRun=true only reports what would be linked
+    @PostMapping("/tutor-links/backfill")
+    public ResponseEntity<?> backfillTutorLinks(@RequestParam(value = "dryRun", defaultValue = "true") boolean dryRun) {
+        User user = getCurrentUser();
+        if (user == null || user.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(createErrorResponse("Chỉ quản trị viên mới được thực hiện thao tác này"));
+        }
+        try {
+            Map<String, Object> report = tutorBackfillJob.run(dryRun);
+            if (report == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(createErrorResponse("Tác vụ liên kết giáo viên đang chạy"));
+            }
+            return ResponseEntity.ok(report);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(createErrorResponse("Tác vụ bị gián đoạn"));
+        }
+    }
+
+    // Overall feedback statistics (count, average, histogram, useful ratio, modes)
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getOverallStats() {
+        return ResponseEntity.ok(analyticsService.getOverallStats());
+    }
+
+    @GetMapping("/stats/teacher/{teacher}")
+    public ResponseEntity<Map<String, Object>> getTeacherStats(@PathVariable String teacher) {
+        return ResponseEntity.ok(analyticsService.getTeacherStats(teacher));
+    }
+
+    @GetMapping("/stats/course/{course}")
+    public ResponseEntity<Map<String, Object>> getCourseStats(@PathVariable String course) {
+        return ResponseEntity.ok(analyticsService.getCourseStats(course));
+    }
+
+    // Teachers with the most feedback
+    @GetMapping("/stats/teachers")
+    public ResponseEntity<List<Map<String, Object>>> getTopTeachers(@RequestParam(defaultValue = "0") int page,
+                                                                     @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(analyticsService.getTop(FeedbackAggregate.SCOPE_TEACHER,
+                Math.max(page, 0), Math.min(Math.max(size, 1), 100)));
+    }
+
+    // Courses with the most feedback
+    @GetMapping("/stats/courses")
+    public ResponseEntity<List<Map<String, Object>>> getTopCourses(@RequestParam(defaultValue = "0") int page,
+                                                                    @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(analyticsService.getTop(FeedbackAggregate.SCOPE_COURSE,
+                Math.max(page, 0), Math.min(Math.max(size, 1), 100)));
+    }
+
+    // Recompute all statistics from the feedbacks table (admin)
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<?> rebuildStats() {
+        User user = getCurrentUser();
+        if (user == null || user.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(createErrorResponse("Chỉ quản trị viên mới được thực hiện thao tác này"));
+        }
+        Long rows = analyticsService.rebuild();
+        if (rows == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(createErrorResponse("Tác vụ tính lại thống kê đang chạy"));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("feedbacks", rows);
+        return ResponseEntity.ok(response);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteFeedback(@PathVariable Long id) {
         try {
@@ -66,6 +184,14 @@ public class FeedbackController {
         }
     }
 
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return userService.getUserByEmail(authentication.getName()).orElse(null);
+    }
+
     private Map<String, String> createErrorResponse(String message) {
         Map<String, String> error = new HashMap<>();
         error.put("error", message);
@@ -0,0 +1,509 @@
+package com.mathbridge.be_project.feedback;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous write path for the public feedback form ({@code feedback.ingest.enabled}).
+ * <p>
+ * Submissions are validated, given a submission id and queued; the caller gets 202 straight away and a single
+ * writer thread inserts them with multi-row INSERTs (up to {@code batch-size} rows or {@code max-delay-ms} after
+ * the first one), updating the aggregates in the same transaction, so a survey spike uses one connection instead
+ * of one per request. A per-client token bucket limits how fast one address can submit and a full queue is pushed
+ * back as 503.
+ * <p>
+ * With {@code spool.enabled}, submissions that do not fit in the queue, or whose batch fails to commit, are
+ * appended to a local file instead; the writer replays that file batch by batch whenever the queue is idle.
+ * The submission id is stored with the row, so replaying a batch that did commit inserts nothing twice.
+ */
+@Component
+public class FeedbackIngestionService {
+
+    // SQL Server allows 2100 parameters per statement; 15 per row
+    private static final int MAX_BATCH_SIZE = 130;
+
+    // Clients beyond max-clients share this bucket instead of growing the map
+    private static final String OVERFLOW_CLIENT = "*";
+
+    // One accepted submission; also one line of the spool file
+    public record Submission(String submissionId, LocalDateTime submittedAt, FeedbackRequest request) {
+    }
+
+    // Token bucket for one client address
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+    }
+
+    private final FeedbackService feedbackService;
+    private final FeedbackAnalyticsService analyticsService;
+    private final FeedbackTutorMatcher tutorMatcher;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<Submission> queue;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Object spoolLock = new Object();
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+    private final Counter rateLimitedCounter;
+    private final Counter spooledCounter;
+    private final Counter replayedCounter;
+    private final DistributionSummary batchSizes;
+    private final Timer flushTimer;
+    private volatile boolean running;
+    private Thread writerThread;
+    private BufferedReader replayReader;
+    private long nextReplayAt;
+
+    @Value("${feedback.ingest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${feedback.ingest.batch-size:100}")
+    private int batchSize;
+
+    @Value("${feedback.ingest.max-delay-ms:200}")
+    private long maxDelayMs;
+
+    @Value("${feedback.ingest.retry-max-ms:30000}")
+    private long retryMaxMs;
+
+    @Value("${feedback.ingest.rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    @Value("${feedback.ingest.rate-limit.burst:10}")
+    private int burst;
+
+    @Value("${feedback.ingest.rate-limit.per-minute:20}")
+    private int perMinute;
+
+    @Value("${feedback.ingest.rate-limit.max-clients:100000}")
+    private int maxClients;
+
+    @Value("${feedback.ingest.rate-limit.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+
+    @Value("${feedback.ingest.spool.enabled:false}")
+    private boolean spoolEnabled;
+
+    @Value("${feedback.ingest.spool.path:./data/feedback-spool.ndjson}")
+    private String spoolFile;
+
+    // fsync every append: survives a machine crash, not just a process crash
+    @Value("${feedback.ingest.spool.sync:true}")
+    private boolean spoolSync;
+
+    @Value("${feedback.ingest.spool.replay-interval-ms:10000}")
+    private long replayIntervalMs;
+
+    public FeedbackIngestionService(FeedbackService feedbackService, FeedbackAnalyticsService analyticsService,
+                                    FeedbackTutorMatcher tutorMatcher, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                    @Value("${feedback.ingest.queue-capacity:5000}") int queueCapacity) {
+        this.feedbackService = feedbackService;
+        this.analyticsService = analyticsService;
+        this.tutorMatcher = tutorMatcher;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.acceptedCounter = counter("feedback.ingest.accepted", "Feedback submissions queued", meterRegistry);
+        this.rejectedCounter = counter("feedback.ingest.rejected", "Feedback submissions refused because the queue was full", meterRegistry);
+        this.rateLimitedCounter = counter("feedback.ingest.rate_limited", "Feedback submissions refused by the per-client rate limit", meterRegistry);
+        this.spooledCounter = counter("feedback.ingest.spooled", "Feedback submissions written to the spool file", meterRegistry);
+        this.replayedCounter = counter("feedback.ingest.replayed", "Spooled feedback submissions replayed into the database", meterRegistry);
+        this.batchSizes = DistributionSummary.builder("feedback.ingest.batch_size")
+                .description("Feedback rows inserted per batch")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("feedback.ingest.flush")
+                .description("Duration of one feedback batch transaction")
+                .register(meterRegistry);
+        Gauge.builder("feedback.ingest.queue", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    private static Counter counter(String name, String description, MeterRegistry meterRegistry) {
+        return Counter.builder(name).description(description).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        batchSize = Math.min(Math.max(batchSize, 1), MAX_BATCH_SIZE);
+        running = true;
+        writerThread = new Thread(this::runWriter, "feedback-ingest");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // Stop accepting work, let the writer drain what is already queued
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            writerThread.join(15000);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Address used for rate limiting; X-Forwarded-For only when running behind a trusted proxy
+    public String clientKey(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return (comma > 0 ? forwarded.substring(0, comma) : forwarded).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    // Take one token for the client; returns 0 if allowed, otherwise seconds until a token is available
+    public long acquire(String clientKey) {
+        if (!rateLimitEnabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        String key = buckets.size() >= maxClients && !buckets.containsKey(clientKey) ? OVERFLOW_CLIENT : clientKey;
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(burst, now));
+        double perNano = perMinute / 60_000_000_000.0;
+        synchronized (bucket) {
+            bucket.tokens = Math.min(burst, bucket.tokens + (now - bucket.refilledAt) * perNano);
+            bucket.refilledAt = now;
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            rateLimitedCounter.increment();
+            return Math.max(1, (long) Math.ceil((1 - bucket.tokens) / perNano / 1_000_000_000.0));
+        }
+    }
+
+    // Buckets that have refilled completely behave like new ones and can be dropped
+    @Scheduled(fixedDelayString = "${feedback.ingest.rate-limit.cleanup-ms:60000}")
+    public void evictIdleClients() {
+        long now = System.nanoTime();
+        double perNano = perMinute / 60_000_000_000.0;
+        buckets.entrySet().removeIf(entry -> {
+            Bucket bucket = entry.getValue();
+            synchronized (bucket) {
+                return bucket.tokens + (now - bucket.refilledAt) * perNano >= burst;
+            }
+        });
+    }
+
+    // Validate and queue (or spool) a submission; throws RejectedExecutionException when it cannot be accepted
+    public Map<String, Object> submit(FeedbackRequest request) {
+        feedbackService.validate(request);
+        Submission submission = new Submission(UUID.randomUUID().toString(), LocalDateTime.now(), request);
+
+        String status;
+        inFlight.add(submission.submissionId());
+        if (running && queue.offer(submission)) {
+            acceptedCounter.increment();
+            status = "QUEUED";
+        } else {
+            inFlight.remove(submission.submissionId());
+            if (!spoolEnabled || !trySpool(List.of(submission))) {
+                rejectedCounter.increment();
+                throw new RejectedExecutionException("Feedback queue is full");
+            }
+            status = "SPOOLED";
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("submissionId", submission.submissionId());
+        response.put("status", status);
+        return response;
+    }
+
+    // SAVED with the feedback id, PENDING while queued in this instance, or null if unknown
+    public Map<String, Object> getStatus(String submissionId) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("submissionId", submissionId);
+        Feedback feedback = feedbackService.findBySubmissionId(submissionId);
+        if (feedback != null) {
+            response.put("status", "SAVED");
+            response.put("feedbackId", feedback.getId());
+            return response;
+        }
+        if (inFlight.contains(submissionId)) {
+            response.put("status", "PENDING");
+            return response;
+        }
+        return null;
+    }
+
+    private void runWriter() {
+        List<Submission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (spoolEnabled && running) {
+                        replayIfDue();
+                    }
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Submission next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                running = false;
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                System.err.println("Feedback ingestion failed: " + e.getMessage());
+            } finally {
+                batch.forEach(submission -> inFlight.remove(submission.submissionId()));
+                batch.clear();
+            }
+        }
+        closeReplay();
+    }
+
+    // Write a batch, retrying with backoff; a failed batch goes to the spool if one is configured
+    private void flush(List<Submission> batch) throws InterruptedException {
+        long backoff = 500;
+        while (true) {
+            try {
+                flushTimer.record(() -> write(batch));
+                batchSizes.record(batch.size());
+                return;
+            } catch (Exception e) {
+                System.err.println("Feedback batch write failed: " + e.getMessage());
+                if (spoolEnabled && trySpool(batch)) {
+                    return;
+                }
+                if (!running) {
+                    System.err.println("Dropping " + batch.size() + " feedback submissions on shutdown");
+                    return;
+                }
+                // The queue fills up meanwhile, so new submissions get 503 instead of piling up in memory
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, retryMaxMs);
+            }
+        }
+    }
+
+    // Aggregates, then one multi-row INSERT, in one transaction; rows already saved (spool replays) are skipped
+    private int write(List<Submission> batch) {
+        Integer inserted = transactionTemplate.execute(status -> {
+            Map<String, Submission> fresh = new LinkedHashMap<>();
+            batch.forEach(submission -> fresh.put(submission.submissionId(), submission));
+            fresh.keySet().removeAll(existingSubmissionIds(fresh.keySet()));
+            if (fresh.isEmpty()) {
+                return 0;
+            }
+            List<Submission> submissions = new ArrayList<>(fresh.values());
+            List<Feedback> feedbacks = new ArrayList<>(submissions.size());
+            for (Submission submission : submissions) {
+                feedbacks.add(feedbackService.toEntity(submission.request()));
+            }
+            tutorMatcher.link(feedbacks);
+            analyticsService.applyAll(feedbacks, 1);
+            insert(submissions, feedbacks);
+            return feedbacks.size();
+        });
+        return inserted != null ? inserted : 0;
+    }
+
+    private Set<String> existingSubmissionIds(Set<String> ids) {
+        return new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT submission_id FROM feedbacks WHERE submission_id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), String.class));
+    }
+
+    private void insert(List<Submission> submissions, List<Feedback> feedbacks) {
+        StringBuilder sql = new StringBuilder("INSERT INTO feedbacks (submission_id, name, course, teacher, tutor_id, "
+                + "session_id, date, mode, rating, useful, comments, suggestions, anonymous, created_at, updated_at) VALUES ");
+        List<Object> params = new ArrayList<>(submissions.size() * 15);
+        for (int i = 0; i < submissions.size(); i++) {
+            Submission submission = submissions.get(i);
+            Feedback feedback = feedbacks.get(i);
+            Timestamp submittedAt = Timestamp.valueOf(submission.submittedAt());
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            params.add(submission.submissionId());
+            params.add(feedback.getName());
+            params.add(feedback.getCourse());
+            params.add(feedback.getTeacher());
+            params.add(feedback.getTutorId());
+            params.add(feedback.getSessionId());
+            params.add(Date.valueOf(feedback.getDate()));
+            params.add(feedback.getMode());
+            params.add(feedback.getRating());
+            params.add(feedback.getUseful());
+            params.add(feedback.getComments());
+            params.add(feedback.getSuggestions());
+            params.add(feedback.getAnonymous());
+            params.add(submittedAt);
+            params.add(submittedAt);
+        }
+        namedJdbcTemplate.getJdbcTemplate().update(sql.toString(), params.toArray());
+    }
+
+    // Append submissions to the spool file; false if that failed too
+    private boolean trySpool(List<Submission> submissions) {
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (Submission submission : submissions) {
+                lines.append(objectMapper.writeValueAsString(submission)).append('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            Path spoolPath = Paths.get(spoolFile);
+            synchronized (spoolLock) {
+                Path parent = spoolPath.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                try (FileChannel channel = FileChannel.open(spoolPath,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    if (spoolSync) {
+                        channel.force(false);
+                    }
+                }
+            }
+            spooledCounter.increment(submissions.size());
+            return true;
+        } catch (IOException e) {
+            System.err.println("Feedback spool write failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void replayIfDue() {
+        if (System.currentTimeMillis() < nextReplayAt) {
+            return;
+        }
+        try {
+            if (!replayBatch()) {
+                nextReplayAt = System.currentTimeMillis() + replayIntervalMs;
+            }
+        } catch (Exception e) {
+            // Start over from the top of the file next time; rows already saved are skipped
+            System.err.println("Feedback spool replay failed: " + e.getMessage());
+            closeReplay();
+            nextReplayAt = System.currentTimeMillis() + replayIntervalMs;
+        }
+    }
+
+    // Replay one batch from the spool; returns false when there is nothing (left) to replay
+    private boolean replayBatch() throws IOException {
+        Path replayPath = Paths.get(spoolFile + ".replaying");
+        if (replayReader == null) {
+            synchronized (spoolLock) {
+                if (!Files.exists(replayPath)) {
+                    Path spoolPath = Paths.get(spoolFile);
+                    if (!Files.exists(spoolPath) || Files.size(spoolPath) == 0) {
+                        return false;
+                    }
+                    // New submissions keep appending to a fresh spool file while this one is replayed
+                    Files.move(spoolPath, replayPath, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            replayReader = Files.newBufferedReader(replayPath, StandardCharsets.UTF_8);
+        }
+
+        List<Submission> batch = new ArrayList<>(batchSize);
+        String line;
+        while (batch.size() < batchSize && (line = replayReader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                batch.add(objectMapper.readValue(line, Submission.class));
+            } catch (IOException e) {
+                // Torn last line after a crash
+                System.err.println("Skipping unreadable spooled feedback: " + e.getMessage());
+            }
+        }
+        if (batch.isEmpty()) {
+            closeReplay();
+            Files.deleteIfExists(replayPath);
+            System.out.println("Feedback spool replay finished");
+            return false;
+        }
+        int inserted = flushTimer.record(() -> write(batch));
+        replayedCounter.increment(inserted);
+        return true;
+    }
+
+    private void closeReplay() {
+        if (replayReader == null) {
+            return;
+        }
+        try {
+            replayReader.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+        replayReader = null;
+    }
+}
@@ -1,14 +1,27 @@
 package com.mathbridge.be_project.feedback;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
     List<Feedback> findByCourseOrderByCreatedAtDesc(String course);
     List<Feedback> findByTeacherOrderByCreatedAtDesc(String teacher);
     List<Feedback> findAllByOrderByCreatedAtDesc();
+    Optional<Feedback> findBySubmissionId(String submissionId);
+
+    // Keyset page of a tutor's feedback, newest first: a seek on IX_feedbacks_tutor_created
+    @Query("SELECT f FROM Feedback f WHERE f.tutorId = :tutorId " +
+           "AND (f.createdAt < :beforeAt OR (f.createdAt = :beforeAt AND f.id < :beforeId)) " +
+           "ORDER BY f.createdAt DESC, f.id DESC")
+    List<Feedback> findTutorPage(@Param("tutorId") Long tutorId, @Param("beforeAt") LocalDateTime beforeAt,
+                                 @Param("beforeId") Long beforeId, Pageable pageable);
 }
 
@@ -20,5 +20,7 @@ public class FeedbackRequest {
     private String comments;
     private String suggestions;
     private Boolean anonymous = false;
+    private Long tutorId; // optional, otherwise matched from teacher
+    private Long sessionId; // optional, implies the tutor
 }
 
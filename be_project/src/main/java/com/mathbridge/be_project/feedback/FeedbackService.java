@@ -1,17 +1,37 @@
 package com.mathbridge.be_project.feedback;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class FeedbackService {
 
+    private static final LocalDateTime END_OF_TIME = LocalDateTime.of(9999, 12, 31, 23, 59);
+
     private final FeedbackRepository feedbackRepository;
+    private final FeedbackAnalyticsService analyticsService;
+    private final FeedbackTutorMatcher tutorMatcher;
 
+    @Transactional
     public Feedback createFeedback(FeedbackRequest request) {
+        validate(request);
+        Feedback feedback = toEntity(request);
+        tutorMatcher.link(List.of(feedback));
+
+        // Aggregates first, then the feedback row: same lock order as the rebuild job
+        analyticsService.apply(feedback, 1);
+        return feedbackRepository.save(feedback);
+    }
+
+    public void validate(FeedbackRequest request) {
         if (request == null) {
             throw new IllegalArgumentException("Feedback data is required");
         }
@@ -30,20 +50,38 @@ public class FeedbackService {
         if (request.getComments() == null || request.getComments().isBlank()) {
             throw new IllegalArgumentException("Comments are required");
         }
+        // Column limits: the async path acknowledges before inserting, so overflows must be caught here
+        if (tooLong(request.getName(), 255) || tooLong(request.getCourse(), 255) || tooLong(request.getTeacher(), 255)) {
+            throw new IllegalArgumentException("Name, course and teacher must be at most 255 characters");
+        }
+        if (tooLong(request.getComments(), 2000) || tooLong(request.getSuggestions(), 2000)) {
+            throw new IllegalArgumentException("Comments and suggestions must be at most 2000 characters");
+        }
+        if (tooLong(request.getMode(), 50) || tooLong(request.getUseful(), 10)) {
+            throw new IllegalArgumentException("Invalid mode or useful value");
+        }
+    }
 
+    private boolean tooLong(String value, int max) {
+        return value != null && value.length() > max;
+    }
+
+    public Feedback toEntity(FeedbackRequest request) {
         Feedback feedback = new Feedback();
         feedback.setName(request.getName());
-        feedback.setCourse(request.getCourse());
-        feedback.setTeacher(request.getTeacher());
+        // Stored trimmed, so the aggregate keys are the same whether computed here or by the rebuild SQL
+        feedback.setCourse(trim(request.getCourse()));
+        feedback.setTeacher(trim(request.getTeacher()));
         feedback.setDate(request.getDate());
-        feedback.setMode(request.getMode());
+        feedback.setMode(trim(request.getMode()));
         feedback.setRating(request.getRating());
-        feedback.setUseful(request.getUseful());
+        feedback.setUseful(trim(request.getUseful()));
         feedback.setComments(request.getComments());
         feedback.setSuggestions(request.getSuggestions());
         feedback.setAnonymous(request.getAnonymous() != null ? request.getAnonymous() : false);
-
-        return feedbackRepository.save(feedback);
+        feedback.setTutorId(request.getTutorId());
+        feedback.setSessionId(request.getSessionId());
+        return feedback;
     }
 
     public List<Feedback> getAllFeedbacks() {
@@ -55,6 +93,31 @@ public class FeedbackService {
                 .orElseThrow(() -> new RuntimeException("Feedback not found with id: " + id));
     }
 
+    public Feedback findBySubmissionId(String submissionId) {
+        return feedbackRepository.findBySubmissionId(submissionId).orElse(null);
+    }
+
+    // One keyset page of a tutor's feedback, newest first; cursor is the "nextCursor" of the previous page
+    public Map<String, Object> getTutorPage(Long tutorId, String cursor, int limit) {
+        LocalDateTime beforeAt = END_OF_TIME;
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            int separator = cursor.lastIndexOf('_');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Cursor không hợp lệ");
+            }
+            beforeAt = LocalDateTime.parse(cursor.substring(0, separator));
+            beforeId = Long.parseLong(cursor.substring(separator + 1));
+        }
+        List<Feedback> items = feedbackRepository.findTutorPage(tutorId, beforeAt, beforeId, PageRequest.of(0, limit));
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("items", items);
+        Feedback last = items.isEmpty() ? null : items.get(items.size() - 1);
+        result.put("nextCursor", items.size() == limit ? last.getCreatedAt() + "_" + last.getId() : null);
+        return result;
+    }
+
     public List<Feedback> getFeedbacksByCourse(String course) {
         return feedbackRepository.findByCourseOrderByCreatedAtDesc(course);
     }
@@ -63,11 +126,15 @@ public class FeedbackService {
         return feedbackRepository.findByTeacherOrderByCreatedAtDesc(teacher);
     }
 
+    @Transactional
     public void deleteFeedback(Long id) {
-        if (!feedbackRepository.existsById(id)) {
-            throw new RuntimeException("Feedback not found with id: " + id);
-        }
-        feedbackRepository.deleteById(id);
+        Feedback feedback = feedbackRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Feedback not found with id: " + id));
+        analyticsService.apply(feedback, -1);
+        feedbackRepository.delete(feedback);
     }
-}
 
+    private static String trim(String value) {
+        return value != null ? value.trim() : null;
+    }
+}
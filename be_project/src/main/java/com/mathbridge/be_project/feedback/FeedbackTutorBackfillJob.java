@@ -0,0 +1,140 @@
+package com.mathbridge.be_project.feedback;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Links existing feedback rows to tutors by fuzzy-matching their free-text teacher name.
+ * <p>
+ * Walks feedbacks with tutor_id IS NULL once in primary-key order, {@code batch-size} rows at a time. Each
+ * distinct teacher string is matched only once, and each chunk becomes one UPDATE per matched tutor in its own
+ * short transaction. Names that match nobody, or more than one tutor equally well, are left unlinked and
+ * listed in the report so an admin can fix them by hand.
+ */
+@Component
+public class FeedbackTutorBackfillJob {
+
+    // Longest list of unmatched/ambiguous names returned in the report
+    private static final int MAX_REPORTED_NAMES = 100;
+
+    private record Row(long id, String teacher) {
+    }
+
+    private final FeedbackTutorMatcher matcher;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${feedback.tutor-match.backfill.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${feedback.tutor-match.backfill.pause-ms:100}")
+    private long pauseMs;
+
+    public FeedbackTutorBackfillJob(FeedbackTutorMatcher matcher, JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager) {
+        this.matcher = matcher;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Returns a report of what was (or, in dry-run, would be) linked, or null if a run is in progress
+    public Map<String, Object> run(boolean dryRun) throws InterruptedException {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            return backfill(dryRun);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> backfill(boolean dryRun) throws InterruptedException {
+        Map<String, FeedbackTutorMatcher.Match> matches = new HashMap<>();
+        Map<String, Long> unmatched = new LinkedHashMap<>();
+        Map<String, Long> ambiguous = new LinkedHashMap<>();
+        long scanned = 0;
+        long linked = 0;
+        long afterId = 0;
+
+        while (true) {
+            List<Row> rows = namedJdbcTemplate.query(
+                    "SELECT TOP (:batchSize) id, teacher FROM feedbacks WHERE id > :afterId AND tutor_id IS NULL ORDER BY id",
+                    new MapSqlParameterSource("batchSize", batchSize).addValue("afterId", afterId),
+                    (rs, rowNum) -> new Row(rs.getLong(1), rs.getString(2)));
+            if (rows.isEmpty()) {
+                break;
+            }
+            Map<Long, List<Long>> idsByTutor = new HashMap<>();
+            for (Row row : rows) {
+                String teacher = row.teacher() != null ? row.teacher().trim() : "";
+                FeedbackTutorMatcher.Match match = matches.computeIfAbsent(teacher, matcher::matchFuzzy);
+                if (match.tutorId() != null) {
+                    idsByTutor.computeIfAbsent(match.tutorId(), k -> new ArrayList<>()).add(row.id());
+                } else {
+                    count(match.ambiguous() ? ambiguous : unmatched, teacher);
+                }
+            }
+            if (!dryRun && !idsByTutor.isEmpty()) {
+                // tutor_id IS NULL again: rows linked by a concurrent write keep their tutor
+                Integer updated = transactionTemplate.execute(status -> {
+                    int total = 0;
+                    for (Map.Entry<Long, List<Long>> entry : idsByTutor.entrySet()) {
+                        total += namedJdbcTemplate.update(
+                                "UPDATE feedbacks SET tutor_id = :tutorId WHERE id IN (:ids) AND tutor_id IS NULL",
+                                new MapSqlParameterSource("tutorId", entry.getKey()).addValue("ids", entry.getValue()));
+                    }
+                    return total;
+                });
+                linked += updated != null ? updated : 0;
+            } else {
+                linked += idsByTutor.values().stream().mapToLong(List::size).sum();
+            }
+            scanned += rows.size();
+            afterId = rows.get(rows.size() - 1).id();
+            if (rows.size() < batchSize) {
+                break;
+            }
+            Thread.sleep(pauseMs);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("dryRun", dryRun);
+        report.put("scanned", scanned);
+        report.put("linked", linked);
+        report.put("matchedNames", matches.values().stream().filter(match -> match.tutorId() != null).count());
+        report.put("unmatchedNames", top(unmatched));
+        report.put("ambiguousNames", top(ambiguous));
+        System.out.println("Feedback tutor backfill" + (dryRun ? " (dry run)" : "") + ": scanned " + scanned
+                + ", linked " + linked + ", unmatched names " + unmatched.size() + ", ambiguous names " + ambiguous.size());
+        return report;
+    }
+
+    private void count(Map<String, Long> counts, String teacher) {
+        if (counts.containsKey(teacher) || counts.size() < MAX_REPORTED_NAMES) {
+            counts.merge(teacher, 1L, Long::sum);
+        }
+    }
+
+    // Name -> number of rows, most frequent first
+    private Map<String, Long> top(Map<String, Long> counts) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+}
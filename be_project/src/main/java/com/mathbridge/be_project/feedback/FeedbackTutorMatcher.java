@@ -0,0 +1,228 @@
+package com.mathbridge.be_project.feedback;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves the tutor (and session) a feedback belongs to.
+ * <p>
+ * {@link #link(List)} runs on every write: a session id decides the tutor, an explicit tutor id is checked,
+ * and otherwise the free-text teacher name is looked up exactly after normalization (case, Vietnamese
+ * diacritics, honorifics such as "thầy"/"cô"/"ThS."). {@link #matchFuzzy(String)} is for the backfill job and
+ * also accepts small spelling differences, reordered names and a given name alone when only one tutor has it.
+ * Tutor names are kept in a small in-memory snapshot refreshed every {@code cache-ttl-seconds}.
+ */
+@Component
+public class FeedbackTutorMatcher {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^a-z0-9]+");
+    private static final Set<String> HONORIFICS = Set.of(
+            "thay", "co", "gv", "ths", "ts", "pgs", "gs", "dr", "mr", "mrs", "ms", "teacher");
+
+    // Outcome of a fuzzy match; tutorId is null when nothing (or more than one tutor) fits
+    public record Match(Long tutorId, double score, boolean ambiguous) {
+    }
+
+    private record Candidate(Long id, String normalized, String[] tokens) {
+    }
+
+    private record Snapshot(List<Candidate> candidates, Map<String, List<Long>> byName,
+                            Map<String, List<Long>> byGivenName, long loadedAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private volatile Snapshot snapshot;
+
+    @Value("${feedback.tutor-match.cache-ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    @Value("${feedback.tutor-match.min-score:0.85}")
+    private double minScore;
+
+    // Best candidate must beat the runner-up by this much
+    @Value("${feedback.tutor-match.min-margin:0.05}")
+    private double minMargin;
+
+    public FeedbackTutorMatcher(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    // Fill tutorId/sessionId for a batch with at most two queries; unknown ids are dropped rather than failing the insert
+    public void link(List<Feedback> feedbacks) {
+        Set<Long> sessionIds = new HashSet<>();
+        Set<Long> tutorIds = new HashSet<>();
+        for (Feedback feedback : feedbacks) {
+            if (feedback.getSessionId() != null) {
+                sessionIds.add(feedback.getSessionId());
+            }
+            if (feedback.getTutorId() != null) {
+                tutorIds.add(feedback.getTutorId());
+            }
+        }
+        Map<Long, Long> tutorBySession = new HashMap<>();
+        if (!sessionIds.isEmpty()) {
+            namedJdbcTemplate.query("SELECT id, tutor_id FROM sessions WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", sessionIds),
+                    rs -> {
+                        tutorBySession.put(rs.getLong(1), rs.getLong(2));
+                    });
+        }
+        Set<Long> knownTutors = tutorIds.isEmpty() ? Set.of() : new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT id FROM tutors WHERE id IN (:ids)", new MapSqlParameterSource("ids", tutorIds), Long.class));
+
+        for (Feedback feedback : feedbacks) {
+            Long sessionTutor = feedback.getSessionId() != null ? tutorBySession.get(feedback.getSessionId()) : null;
+            if (sessionTutor != null) {
+                feedback.setTutorId(sessionTutor);
+                continue;
+            }
+            feedback.setSessionId(null);
+            if (feedback.getTutorId() != null && !knownTutors.contains(feedback.getTutorId())) {
+                feedback.setTutorId(null);
+            }
+            if (feedback.getTutorId() == null) {
+                feedback.setTutorId(matchExact(feedback.getTeacher()));
+            }
+        }
+    }
+
+    // Tutor whose normalized name equals the teacher string, if exactly one does
+    public Long matchExact(String teacher) {
+        List<Long> ids = snapshot().byName.get(normalize(teacher));
+        return ids != null && ids.size() == 1 ? ids.get(0) : null;
+    }
+
+    public Match matchFuzzy(String teacher) {
+        String normalized = normalize(teacher);
+        if (normalized.isEmpty()) {
+            return new Match(null, 0, false);
+        }
+        Snapshot current = snapshot();
+        List<Long> exact = current.byName.get(normalized);
+        if (exact != null) {
+            return exact.size() == 1 ? new Match(exact.get(0), 1.0, false) : new Match(null, 1.0, true);
+        }
+        String[] tokens = normalized.split(" ");
+        // "Thầy Hùng": a given name alone is enough when only one tutor has it
+        if (tokens.length == 1) {
+            List<Long> ids = current.byGivenName.get(tokens[0]);
+            if (ids != null) {
+                return ids.size() == 1 ? new Match(ids.get(0), 0.9, false) : new Match(null, 0.9, true);
+            }
+        }
+
+        String sorted = sortedTokens(tokens);
+        Long bestId = null;
+        double best = 0;
+        double second = 0;
+        for (Candidate candidate : current.candidates) {
+            double score = Math.max(similarity(normalized, candidate.normalized),
+                    similarity(sorted, sortedTokens(candidate.tokens)));
+            if (score > best) {
+                second = best;
+                best = score;
+                bestId = candidate.id;
+            } else if (score > second) {
+                second = score;
+            }
+        }
+        if (best < minScore) {
+            return new Match(null, best, false);
+        }
+        if (best - second < minMargin) {
+            return new Match(null, best, true);
+        }
+        return new Match(bestId, best, false);
+    }
+
+    // Lower-case, no diacritics (đ -> d), no punctuation or honorifics, single spaces
+    static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(name.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)).replaceAll("")
+                .replace('đ', 'd');
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(folded)) {
+            if (!token.isEmpty() && !HONORIFICS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return String.join(" ", tokens);
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null || System.currentTimeMillis() - current.loadedAt > cacheTtlSeconds * 1000) {
+            current = load();
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        List<Candidate> candidates = new ArrayList<>();
+        Map<String, List<Long>> byName = new HashMap<>();
+        Map<String, List<Long>> byGivenName = new HashMap<>();
+        jdbcTemplate.query("SELECT t.id, u.full_name FROM tutors t JOIN users u ON u.id = t.user_id", rs -> {
+            long id = rs.getLong(1);
+            String normalized = normalize(rs.getString(2));
+            if (normalized.isEmpty()) {
+                return;
+            }
+            String[] tokens = normalized.split(" ");
+            candidates.add(new Candidate(id, normalized, tokens));
+            byName.computeIfAbsent(normalized, k -> new ArrayList<>()).add(id);
+            // Vietnamese names put the given name last
+            byGivenName.computeIfAbsent(tokens[tokens.length - 1], k -> new ArrayList<>()).add(id);
+        });
+        return new Snapshot(candidates, byName, byGivenName, System.currentTimeMillis());
+    }
+
+    private static String sortedTokens(String[] tokens) {
+        String[] copy = tokens.clone();
+        Arrays.sort(copy);
+        return String.join(" ", copy);
+    }
+
+    // 1 - Levenshtein distance / longer length
+    private static double similarity(String a, String b) {
+        int longer = Math.max(a.length(), b.length());
+        if (longer == 0) {
+            return 1.0;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return 1.0 - (double) previous[b.length()] / longer;
+    }
+}
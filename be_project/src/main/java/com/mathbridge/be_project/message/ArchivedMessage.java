@@ -0,0 +1,65 @@
+package com.mathbridge.be_project.message;
+
+import java.time.LocalDateTime;
+
+/**
+ * One message as stored inside an archive segment (names are resolved at read time).
+ */
+public class ArchivedMessage {
+
+    private Long id;
+    private Long senderId;
+    private Long receiverId;
+    private String content;
+    private LocalDateTime createdAt;
+
+    public ArchivedMessage() {}
+
+    public ArchivedMessage(Long id, Long senderId, Long receiverId, String content, LocalDateTime createdAt) {
+        this.id = id;
+        this.senderId = senderId;
+        this.receiverId = receiverId;
+        this.content = content;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSenderId() {
+        return senderId;
+    }
+
+    public void setSenderId(Long senderId) {
+        this.senderId = senderId;
+    }
+
+    public Long getReceiverId() {
+        return receiverId;
+    }
+
+    public void setReceiverId(Long receiverId) {
+        this.receiverId = receiverId;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
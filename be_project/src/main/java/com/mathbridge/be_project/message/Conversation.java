@@ -0,0 +1,112 @@
+package com.mathbridge.be_project.message;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One row per pair of users who have exchanged messages, kept up to date in the same transaction
+ * as the message writes so the inbox never has to scan message history.
+ */
+@Entity
+@Table(name = "conversations",
+        uniqueConstraints = @UniqueConstraint(name = "UQ_conversations_pair", columnNames = {"user_low_id", "user_high_id"}),
+        indexes = {
+                @Index(name = "IX_conversations_low_last", columnList = "user_low_id, last_message_at"),
+                @Index(name = "IX_conversations_high_last", columnList = "user_high_id, last_message_at")
+        })
+public class Conversation {
+
+    public static final int SNIPPET_LENGTH = 200;
+
+    public static String snippetOf(String content) {
+        return content.length() > SNIPPET_LENGTH ? content.substring(0, SNIPPET_LENGTH) : content;
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_low_id", nullable = false)
+    private Long userLowId;
+
+    @Column(name = "user_high_id", nullable = false)
+    private Long userHighId;
+
+    @Column(name = "last_message_id", nullable = false)
+    private Long lastMessageId;
+
+    @Column(name = "last_sender_id", nullable = false)
+    private Long lastSenderId;
+
+    @Column(name = "last_snippet", length = SNIPPET_LENGTH)
+    private String lastSnippet;
+
+    @Column(name = "last_message_at", nullable = false)
+    private LocalDateTime lastMessageAt;
+
+    // Read watermarks: highest message id each participant has read (everything at or below is read)
+    @Column(name = "last_read_low_id", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long lastReadLowId = 0L;
+
+    @Column(name = "last_read_high_id", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long lastReadHighId = 0L;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public Conversation() {}
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserLowId() {
+        return userLowId;
+    }
+
+    public Long getUserHighId() {
+        return userHighId;
+    }
+
+    public Long getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public Long getLastSenderId() {
+        return lastSenderId;
+    }
+
+    public String getLastSnippet() {
+        return lastSnippet;
+    }
+
+    public LocalDateTime getLastMessageAt() {
+        return lastMessageAt;
+    }
+
+    public Long getLastReadLowId() {
+        return lastReadLowId;
+    }
+
+    public Long getLastReadHighId() {
+        return lastReadHighId;
+    }
+
+    // Watermark of the given participant
+    public Long getLastReadIdFor(Long userId) {
+        return userId.equals(userLowId) ? lastReadLowId : lastReadHighId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,70 @@
+package com.mathbridge.be_project.message;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ConversationRepository extends JpaRepository<Conversation, Long> {
+
+    // Insert or update the pair's summary for a new message; HOLDLOCK makes the upsert race-free
+    @Modifying
+    @Query(value = "MERGE conversations WITH (HOLDLOCK) AS t " +
+                   "USING (SELECT :lowId AS user_low_id, :highId AS user_high_id) AS s " +
+                   "ON t.user_low_id = s.user_low_id AND t.user_high_id = s.user_high_id " +
+                   "WHEN MATCHED THEN UPDATE SET " +
+                   "  last_snippet = CASE WHEN t.last_message_id < :messageId THEN :snippet ELSE t.last_snippet END, " +
+                   "  last_sender_id = CASE WHEN t.last_message_id < :messageId THEN :senderId ELSE t.last_sender_id END, " +
+                   "  last_message_at = CASE WHEN t.last_message_id < :messageId THEN :sentAt ELSE t.last_message_at END, " +
+                   "  last_message_id = CASE WHEN t.last_message_id < :messageId THEN :messageId ELSE t.last_message_id END, " +
+                   "  updated_at = SYSDATETIME() " +
+                   "WHEN NOT MATCHED THEN INSERT (user_low_id, user_high_id, last_message_id, last_sender_id, last_snippet, " +
+                   "  last_message_at, last_read_low_id, last_read_high_id, created_at, updated_at) " +
+                   "VALUES (:lowId, :highId, :messageId, :senderId, :snippet, :sentAt, 0, 0, SYSDATETIME(), SYSDATETIME());",
+           nativeQuery = true)
+    int upsertOnMessage(@Param("lowId") Long lowId, @Param("highId") Long highId, @Param("messageId") Long messageId,
+                        @Param("senderId") Long senderId, @Param("snippet") String snippet,
+                        @Param("sentAt") LocalDateTime sentAt);
+
+    // Move the reader's watermark to the conversation's last message: one single-row UPDATE
+    @Modifying
+    @Query("UPDATE Conversation c SET " +
+           "c.lastReadLowId = CASE WHEN c.userLowId = :readerId THEN c.lastMessageId ELSE c.lastReadLowId END, " +
+           "c.lastReadHighId = CASE WHEN c.userHighId = :readerId THEN c.lastMessageId ELSE c.lastReadHighId END " +
+           "WHERE c.userLowId = :lowId AND c.userHighId = :highId")
+    int markAllRead(@Param("lowId") Long lowId, @Param("highId") Long highId, @Param("readerId") Long readerId);
+
+    // Move the reader's watermark forward to upToId (never backwards)
+    @Modifying
+    @Query("UPDATE Conversation c SET " +
+           "c.lastReadLowId = CASE WHEN c.userLowId = :readerId AND c.lastReadLowId < :upToId THEN :upToId ELSE c.lastReadLowId END, " +
+           "c.lastReadHighId = CASE WHEN c.userHighId = :readerId AND c.lastReadHighId < :upToId THEN :upToId ELSE c.lastReadHighId END " +
+           "WHERE c.userLowId = :lowId AND c.userHighId = :highId")
+    int advanceReadWatermark(@Param("lowId") Long lowId, @Param("highId") Long highId,
+                             @Param("readerId") Long readerId, @Param("upToId") Long upToId);
+
+    Optional<Conversation> findByUserLowIdAndUserHighId(Long userLowId, Long userHighId);
+
+    @Query("SELECT c FROM Conversation c WHERE c.userLowId = :userId OR c.userHighId = :userId")
+    List<Conversation> findAllByParticipant(@Param("userId") Long userId);
+
+    @Query(value = "SELECT new com.mathbridge.be_project.message.InboxEntry(" +
+                   "c.id, u.id, u.fullName, u.email, c.lastMessageId, c.lastSenderId, c.lastSnippet, c.lastMessageAt, " +
+                   // Unread = messages from the other user above this user's watermark (IX_messages_pair_id range seek)
+                   "(SELECT COUNT(m) FROM Message m WHERE m.userLowId = c.userLowId AND m.userHighId = c.userHighId " +
+                   " AND m.id > CASE WHEN c.userLowId = :userId THEN c.lastReadLowId ELSE c.lastReadHighId END " +
+                   " AND m.sender.id <> :userId)) " +
+                   "FROM Conversation c, User u " +
+                   "WHERE (c.userLowId = :userId AND u.id = c.userHighId) OR (c.userHighId = :userId AND u.id = c.userLowId) " +
+                   "ORDER BY c.lastMessageAt DESC, c.id DESC",
+           countQuery = "SELECT COUNT(c) FROM Conversation c WHERE c.userLowId = :userId OR c.userHighId = :userId")
+    Page<InboxEntry> findInbox(@Param("userId") Long userId, Pageable pageable);
+}
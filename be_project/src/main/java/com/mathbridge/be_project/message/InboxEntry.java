@@ -0,0 +1,70 @@
+package com.mathbridge.be_project.message;
+
+import java.time.LocalDateTime;
+
+/**
+ * One inbox line as seen by a given user: the other participant, the last message and the user's unread count.
+ * Built by a JPQL constructor expression in {@link ConversationRepository}.
+ */
+public class InboxEntry {
+
+    private final Long conversationId;
+    private final Long otherUserId;
+    private final String otherUserName;
+    private final String otherUserEmail;
+    private final Long lastMessageId;
+    private final Long lastSenderId;
+    private final String lastMessage;
+    private final LocalDateTime lastMessageAt;
+    private final long unreadCount;
+
+    public InboxEntry(Long conversationId, Long otherUserId, String otherUserName, String otherUserEmail,
+                      Long lastMessageId, Long lastSenderId, String lastMessage, LocalDateTime lastMessageAt,
+                      Number unreadCount) {
+        this.conversationId = conversationId;
+        this.otherUserId = otherUserId;
+        this.otherUserName = otherUserName;
+        this.otherUserEmail = otherUserEmail;
+        this.lastMessageId = lastMessageId;
+        this.lastSenderId = lastSenderId;
+        this.lastMessage = lastMessage;
+        this.lastMessageAt = lastMessageAt;
+        this.unreadCount = unreadCount != null ? unreadCount.longValue() : 0;
+    }
+
+    public Long getConversationId() {
+        return conversationId;
+    }
+
+    public Long getOtherUserId() {
+        return otherUserId;
+    }
+
+    public String getOtherUserName() {
+        return otherUserName;
+    }
+
+    public String getOtherUserEmail() {
+        return otherUserEmail;
+    }
+
+    public Long getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public Long getLastSenderId() {
+        return lastSenderId;
+    }
+
+    public String getLastMessage() {
+        return lastMessage;
+    }
+
+    public LocalDateTime getLastMessageAt() {
+        return lastMessageAt;
+    }
+
+    public long getUnreadCount() {
+        return unreadCount;
+    }
+}
@@ -5,7 +5,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        // Keyset paging of one conversation: (lower user id, higher user id, id)
+        @Index(name = "IX_messages_pair_id", columnList = "user_low_id, user_high_id, id")
+})
 public class Message {
 
     @Id
@@ -23,15 +26,25 @@ public class Message {
     @Column(name = "content", nullable = false, length = 2000)
     private String content;
 
+    // Legacy flag, no longer maintained: read state lives in the conversation's read watermarks
     @Column(name = "is_read", nullable = false)
     private Boolean isRead = false;
 
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    // Normalized conversation key, so both directions of a chat share one index range
+    @Column(name = "user_low_id", updatable = false)
+    private Long userLowId;
+
+    @Column(name = "user_high_id", updatable = false)
+    private Long userHighId;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        userLowId = Math.min(sender.getId(), receiver.getId());
+        userHighId = Math.max(sender.getId(), receiver.getId());
     }
 
     // Constructors
@@ -92,5 +105,12 @@ public class Message {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
-}
 
+    public Long getUserLowId() {
+        return userLowId;
+    }
+
+    public Long getUserHighId() {
+        return userHighId;
+    }
+}
@@ -0,0 +1,64 @@
+package com.mathbridge.be_project.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archive segment payload format: gzipped NDJSON, one {@link ArchivedMessage} per line, ordered by id.
+ */
+@Component
+public class MessageArchiveCodec {
+
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+
+    public MessageArchiveCodec(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writerFor(ArchivedMessage.class);
+        this.reader = objectMapper.readerFor(ArchivedMessage.class);
+    }
+
+    public byte[] encode(List<ArchivedMessage> messages) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (Writer out = new OutputStreamWriter(new GZIPOutputStream(buffer), StandardCharsets.UTF_8)) {
+            for (ArchivedMessage message : messages) {
+                out.write(writer.writeValueAsString(message));
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    public List<ArchivedMessage> decode(byte[] payload) {
+        List<ArchivedMessage> messages = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(payload)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    messages.add(reader.readValue(line));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return messages;
+    }
+}
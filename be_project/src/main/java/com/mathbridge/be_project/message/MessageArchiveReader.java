@@ -0,0 +1,84 @@
+package com.mathbridge.be_project.message;
+
+import com.mathbridge.be_project.user.UserDirectory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pages archived history of a conversation using the segment id ranges, decoding only the segments
+ * that overlap the requested page. Returns the same DTOs as the hot path.
+ */
+@Component
+public class MessageArchiveReader {
+
+    // Segments hold hundreds of messages, so a page never needs more than a few of them
+    private static final int MAX_SEGMENTS_PER_READ = 16;
+
+    private final MessageArchiveRepository archiveRepository;
+    private final MessageArchiveCodec codec;
+    private final UserDirectory userDirectory;
+
+    public MessageArchiveReader(MessageArchiveRepository archiveRepository, MessageArchiveCodec codec,
+                                UserDirectory userDirectory) {
+        this.archiveRepository = archiveRepository;
+        this.codec = codec;
+        this.userDirectory = userDirectory;
+    }
+
+    // Up to limit archived messages older than beforeId, oldest first
+    public List<Map<String, Object>> readBefore(Long lowId, Long highId, long beforeId, int limit, Conversation conversation) {
+        List<Map<String, Object>> newestFirst = new ArrayList<>();
+        for (MessageArchiveRepository.SegmentRange range : archiveRepository.findRangesBefore(lowId, highId, beforeId,
+                PageRequest.of(0, MAX_SEGMENTS_PER_READ))) {
+            List<ArchivedMessage> messages = load(range.getId());
+            for (int i = messages.size() - 1; i >= 0 && newestFirst.size() < limit; i--) {
+                if (messages.get(i).getId() < beforeId) {
+                    newestFirst.add(toDTO(messages.get(i), conversation));
+                }
+            }
+            if (newestFirst.size() >= limit) {
+                break;
+            }
+        }
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    // Up to limit archived messages newer than afterId, oldest first
+    public List<Map<String, Object>> readAfter(Long lowId, Long highId, long afterId, int limit, Conversation conversation) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (MessageArchiveRepository.SegmentRange range : archiveRepository.findRangesAfter(lowId, highId, afterId,
+                PageRequest.of(0, MAX_SEGMENTS_PER_READ))) {
+            for (ArchivedMessage message : load(range.getId())) {
+                if (message.getId() > afterId && result.size() < limit) {
+                    result.add(toDTO(message, conversation));
+                }
+            }
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private List<ArchivedMessage> load(Long segmentId) {
+        return archiveRepository.findById(segmentId)
+                .map(segment -> codec.decode(segment.getPayload()))
+                .orElse(List.of());
+    }
+
+    private Map<String, Object> toDTO(ArchivedMessage message, Conversation conversation) {
+        UserDirectory.Entry sender = userDirectory.find(message.getSenderId()).orElse(null);
+        UserDirectory.Entry receiver = userDirectory.find(message.getReceiverId()).orElse(null);
+        boolean isRead = conversation != null && message.getId() <= conversation.getLastReadIdFor(message.getReceiverId());
+        return MessageMapper.toDTO(message.getId(),
+                message.getSenderId(), sender != null ? sender.getFullName() : null, sender != null ? sender.getEmail() : null,
+                message.getReceiverId(), receiver != null ? receiver.getFullName() : null, receiver != null ? receiver.getEmail() : null,
+                message.getContent(), isRead, message.getCreatedAt());
+    }
+}
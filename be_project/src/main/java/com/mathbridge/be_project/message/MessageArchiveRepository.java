@@ -0,0 +1,32 @@
+package com.mathbridge.be_project.message;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MessageArchiveRepository extends JpaRepository<MessageArchiveSegment, Long> {
+
+    // Id range of a segment, without the payload
+    interface SegmentRange {
+        Long getId();
+        Long getFirstId();
+        Long getLastId();
+    }
+
+    // Segments holding messages older than beforeId, newest first
+    @Query("SELECT s.id AS id, s.firstId AS firstId, s.lastId AS lastId FROM MessageArchiveSegment s " +
+           "WHERE s.userLowId = :lowId AND s.userHighId = :highId AND s.firstId < :beforeId ORDER BY s.lastId DESC")
+    List<SegmentRange> findRangesBefore(@Param("lowId") Long lowId, @Param("highId") Long highId,
+                                        @Param("beforeId") Long beforeId, Pageable pageable);
+
+    // Segments holding messages newer than afterId, oldest first
+    @Query("SELECT s.id AS id, s.firstId AS firstId, s.lastId AS lastId FROM MessageArchiveSegment s " +
+           "WHERE s.userLowId = :lowId AND s.userHighId = :highId AND s.lastId > :afterId ORDER BY s.lastId ASC")
+    List<SegmentRange> findRangesAfter(@Param("lowId") Long lowId, @Param("highId") Long highId,
+                                       @Param("afterId") Long afterId, Pageable pageable);
+}
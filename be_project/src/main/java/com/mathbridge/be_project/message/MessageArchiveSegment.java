@@ -0,0 +1,110 @@
+package com.mathbridge.be_project.message;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Append-only, gzip-compressed block of archived messages of one conversation.
+ * (user_low_id, user_high_id, first_id, last_id) doubles as the conversation's sparse index:
+ * paging into old history touches only the segments whose id range overlaps the requested page.
+ */
+@Entity
+@Table(name = "message_archive_segments", indexes = {
+        @Index(name = "IX_archive_segments_pair_last", columnList = "user_low_id, user_high_id, last_id")
+})
+public class MessageArchiveSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_low_id", nullable = false, updatable = false)
+    private Long userLowId;
+
+    @Column(name = "user_high_id", nullable = false, updatable = false)
+    private Long userHighId;
+
+    @Column(name = "first_id", nullable = false, updatable = false)
+    private Long firstId;
+
+    @Column(name = "last_id", nullable = false, updatable = false)
+    private Long lastId;
+
+    @Column(name = "message_count", nullable = false, updatable = false)
+    private Integer messageCount;
+
+    @Column(name = "first_created_at", nullable = false, updatable = false)
+    private LocalDateTime firstCreatedAt;
+
+    @Column(name = "last_created_at", nullable = false, updatable = false)
+    private LocalDateTime lastCreatedAt;
+
+    // Gzipped NDJSON of ArchivedMessage rows, ordered by id
+    @Lob
+    @Column(name = "payload", nullable = false, updatable = false)
+    private byte[] payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public MessageArchiveSegment() {}
+
+    public MessageArchiveSegment(Long userLowId, Long userHighId, Long firstId, Long lastId, Integer messageCount,
+                                 LocalDateTime firstCreatedAt, LocalDateTime lastCreatedAt, byte[] payload) {
+        this.userLowId = userLowId;
+        this.userHighId = userHighId;
+        this.firstId = firstId;
+        this.lastId = lastId;
+        this.messageCount = messageCount;
+        this.firstCreatedAt = firstCreatedAt;
+        this.lastCreatedAt = lastCreatedAt;
+        this.payload = payload;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserLowId() {
+        return userLowId;
+    }
+
+    public Long getUserHighId() {
+        return userHighId;
+    }
+
+    public Long getFirstId() {
+        return firstId;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public Integer getMessageCount() {
+        return messageCount;
+    }
+
+    public LocalDateTime getFirstCreatedAt() {
+        return firstCreatedAt;
+    }
+
+    public LocalDateTime getLastCreatedAt() {
+        return lastCreatedAt;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
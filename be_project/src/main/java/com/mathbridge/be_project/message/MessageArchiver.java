@@ -0,0 +1,150 @@
+package com.mathbridge.be_project.message;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves messages older than {@code messages.archive.older-than-days} out of the hot {@code messages}
+ * table into compressed per-conversation segments ({@link MessageArchiveSegment}).
+ * <p>
+ * Works one segment at a time (oldest conversation first), each in its own short transaction that
+ * writes the segment and deletes exactly the rows it contains. Archived history stays readable
+ * through the conversation API via {@link MessageArchiveReader}.
+ */
+@Component
+public class MessageArchiver {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MessageArchiveRepository archiveRepository;
+    private final MessageArchiveCodec codec;
+    private final Counter archivedMessages;
+    private final Counter archivedSegments;
+    private final Timer segmentTimer;
+    private final AtomicLong lastRunMessages = new AtomicLong();
+
+    @Value("${messages.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${messages.archive.older-than-days:180}")
+    private long olderThanDays;
+
+    @Value("${messages.archive.segment-size:500}")
+    private int segmentSize;
+
+    @Value("${messages.archive.max-segments-per-run:200}")
+    private int maxSegmentsPerRun;
+
+    @Value("${messages.archive.pause-ms:200}")
+    private long pauseMs;
+
+    public MessageArchiver(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           MessageArchiveRepository archiveRepository, MessageArchiveCodec codec,
+                           MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archiveRepository = archiveRepository;
+        this.codec = codec;
+        this.archivedMessages = Counter.builder("messages.archive.messages")
+                .description("Messages moved to archive segments")
+                .register(meterRegistry);
+        this.archivedSegments = Counter.builder("messages.archive.segments")
+                .description("Archive segments written")
+                .register(meterRegistry);
+        this.segmentTimer = Timer.builder("messages.archive.segment")
+                .description("Duration of one archive transaction (write segment + delete rows)")
+                .register(meterRegistry);
+        Gauge.builder("messages.archive.last_run_messages", lastRunMessages, AtomicLong::get)
+                .description("Messages archived by the most recent run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${messages.archive.interval-ms:3600000}", initialDelayString = "${messages.archive.initial-delay-ms:300000}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long total = archiveOnce(LocalDateTime.now().minusDays(olderThanDays));
+            lastRunMessages.set(total);
+            if (total > 0) {
+                System.out.println("Message archiver moved " + total + " messages to archive segments");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Message archiver failed: " + e.getMessage());
+        }
+    }
+
+    // Archive messages created before the cutoff, segment by segment; returns number of messages archived
+    public long archiveOnce(LocalDateTime cutoff) throws InterruptedException {
+        // Ids grow with time, so everything below the first recent id is old enough
+        List<Long> firstRecent = jdbcTemplate.queryForList(
+                "SELECT TOP 1 id FROM messages WHERE created_at >= ? ORDER BY id", Long.class, cutoff);
+        long boundaryId = !firstRecent.isEmpty() ? firstRecent.get(0)
+                : jdbcTemplate.queryForObject("SELECT ISNULL(MAX(id), 0) + 1 FROM messages", Long.class);
+
+        long total = 0;
+        for (int segments = 0; segments < maxSegmentsPerRun; segments++) {
+            List<Map<String, Object>> oldest = jdbcTemplate.queryForList(
+                    "SELECT TOP 1 user_low_id, user_high_id FROM messages WHERE id < ? AND user_low_id IS NOT NULL ORDER BY id",
+                    boundaryId);
+            if (oldest.isEmpty()) {
+                break;
+            }
+            Long lowId = ((Number) oldest.get(0).get("user_low_id")).longValue();
+            Long highId = ((Number) oldest.get(0).get("user_high_id")).longValue();
+
+            Integer archived = segmentTimer.record(() ->
+                    transactionTemplate.execute(status -> archiveSegment(lowId, highId, boundaryId)));
+            int count = archived != null ? archived : 0;
+            if (count == 0) {
+                break;
+            }
+            total += count;
+            archivedMessages.increment(count);
+            archivedSegments.increment();
+            Thread.sleep(pauseMs);
+        }
+        return total;
+    }
+
+    private int archiveSegment(Long lowId, Long highId, long boundaryId) {
+        List<ArchivedMessage> messages = jdbcTemplate.query(
+                "SELECT TOP (?) id, sender_id, receiver_id, content, created_at FROM messages WITH (UPDLOCK, ROWLOCK) " +
+                "WHERE user_low_id = ? AND user_high_id = ? AND id < ? ORDER BY id",
+                (rs, rowNum) -> new ArchivedMessage(rs.getLong("id"), rs.getLong("sender_id"), rs.getLong("receiver_id"),
+                        rs.getString("content"), rs.getTimestamp("created_at").toLocalDateTime()),
+                segmentSize, lowId, highId, boundaryId);
+        if (messages.isEmpty()) {
+            return 0;
+        }
+
+        ArchivedMessage first = messages.get(0);
+        ArchivedMessage last = messages.get(messages.size() - 1);
+        archiveRepository.save(new MessageArchiveSegment(lowId, highId, first.getId(), last.getId(), messages.size(),
+                first.getCreatedAt(), last.getCreatedAt(), codec.encode(messages)));
+        int deleted = jdbcTemplate.update(
+                "DELETE FROM messages WHERE user_low_id = ? AND user_high_id = ? AND id BETWEEN ? AND ?",
+                lowId, highId, first.getId(), last.getId());
+        if (deleted != messages.size()) {
+            // Something changed underneath us: roll back rather than lose or duplicate rows
+            throw new IllegalStateException("Archive segment mismatch: read " + messages.size() + ", deleted " + deleted);
+        }
+        return messages.size();
+    }
+}
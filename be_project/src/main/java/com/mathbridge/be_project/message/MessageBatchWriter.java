@@ -0,0 +1,267 @@
+package com.mathbridge.be_project.message;
+
+import com.mathbridge.be_project.user.UserDirectory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional group-commit write path for chat messages ({@code messages.group-commit.enabled}).
+ * <p>
+ * Sends are queued and a single writer thread flushes them in micro-batches (up to {@code batch-size}
+ * messages or {@code max-delay-ms} after the first one), inserting the whole batch with one
+ * {@code MERGE ... OUTPUT} statement and updating the conversation summaries in the same transaction.
+ * Callers block until their batch has committed, so the acknowledgement and message id they get back
+ * are durable. Participants are validated against the cached {@link UserDirectory}.
+ */
+@Component
+public class MessageBatchWriter {
+
+    // SQL Server allows 2100 parameters per statement; 8 per row
+    private static final int MAX_BATCH_SIZE = 250;
+
+    private static final class PendingMessage {
+        private final long seq;
+        private final UserDirectory.Entry sender;
+        private final UserDirectory.Entry receiver;
+        private final String content;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+
+        private PendingMessage(long seq, UserDirectory.Entry sender, UserDirectory.Entry receiver, String content) {
+            this.seq = seq;
+            this.sender = sender;
+            this.receiver = receiver;
+            this.content = content;
+        }
+
+        private long lowId() {
+            return Math.min(sender.getId(), receiver.getId());
+        }
+
+        private long highId() {
+            return Math.max(sender.getId(), receiver.getId());
+        }
+    }
+
+    private final UserDirectory userDirectory;
+    private final ConversationRepository conversationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockingQueue<PendingMessage> queue;
+    private final AtomicLong sequence = new AtomicLong();
+    private final DistributionSummary batchSizes;
+    private final Timer flushTimer;
+    private volatile boolean running;
+    private Thread writerThread;
+
+    @Value("${messages.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${messages.group-commit.batch-size:100}")
+    private int batchSize;
+
+    @Value("${messages.group-commit.max-delay-ms:5}")
+    private long maxDelayMs;
+
+    @Value("${messages.group-commit.ack-timeout-ms:5000}")
+    private long ackTimeoutMs;
+
+    public MessageBatchWriter(UserDirectory userDirectory, ConversationRepository conversationRepository,
+                              JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                              @Value("${messages.group-commit.queue-capacity:10000}") int queueCapacity) {
+        this.userDirectory = userDirectory;
+        this.conversationRepository = conversationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSizes = DistributionSummary.builder("messages.group_commit.batch_size")
+                .description("Messages inserted per group commit")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("messages.group_commit.flush")
+                .description("Duration of one group commit transaction")
+                .register(meterRegistry);
+        Gauge.builder("messages.group_commit.queue", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        batchSize = Math.min(Math.max(batchSize, 1), MAX_BATCH_SIZE);
+        running = true;
+        writerThread = new Thread(this::runWriter, "message-group-commit");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // Stop accepting work, let the writer drain what is already queued
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            writerThread.join(10000);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Queue a message and wait for its batch to commit; returns the message DTO with its id
+    public Map<String, Object> send(Long senderId, Long receiverId, String content) {
+        UserDirectory.Entry sender = userDirectory.find(senderId)
+                .orElseThrow(() -> new RuntimeException("Sender not found with id: " + senderId));
+        UserDirectory.Entry receiver = userDirectory.find(receiverId)
+                .orElseThrow(() -> new RuntimeException("Receiver not found with id: " + receiverId));
+
+        PendingMessage pending = new PendingMessage(sequence.incrementAndGet(), sender, receiver, content);
+        if (!running || !queue.offer(pending)) {
+            throw new RejectedExecutionException("Message queue is full");
+        }
+        try {
+            return pending.result.get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while sending message");
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            // The batch may still commit; the WebSocket push will deliver it
+            throw new RuntimeException("Timed out waiting for message to be saved");
+        }
+    }
+
+    private void runWriter() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                running = false;
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                System.err.println("Message group commit failed: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        Map<Long, Long> idsBySeq;
+        try {
+            idsBySeq = flushTimer.record(() -> transactionTemplate.execute(status -> insert(batch)));
+            batchSizes.record(batch.size());
+        } catch (Exception e) {
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+            return;
+        }
+
+        for (PendingMessage pending : batch) {
+            Long id = idsBySeq != null ? idsBySeq.get(pending.seq) : null;
+            if (id == null) {
+                pending.result.completeExceptionally(new IllegalStateException("No id returned for message"));
+                continue;
+            }
+            Map<String, Object> dto = MessageMapper.toDTO(id,
+                    pending.sender.getId(), pending.sender.getFullName(), pending.sender.getEmail(),
+                    pending.receiver.getId(), pending.receiver.getFullName(), pending.receiver.getEmail(),
+                    pending.content, false, pending.createdAt);
+            // Already committed: listeners run immediately (push, recent-message cache)
+            eventPublisher.publishEvent(new MessageSentEvent(pending.sender.getEmail(), pending.receiver.getEmail(), dto));
+            pending.result.complete(dto);
+        }
+    }
+
+    // One MERGE for all rows (OUTPUT maps each caller's seq to its identity), then one summary upsert per conversation
+    private Map<Long, Long> insert(List<PendingMessage> batch) {
+        StringBuilder sql = new StringBuilder("MERGE INTO messages AS t USING (VALUES ");
+        List<Object> params = new ArrayList<>(batch.size() * 8);
+        for (int i = 0; i < batch.size(); i++) {
+            PendingMessage pending = batch.get(i);
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?)");
+            params.add(pending.seq);
+            params.add(pending.sender.getId());
+            params.add(pending.receiver.getId());
+            params.add(pending.content);
+            params.add(false);
+            params.add(Timestamp.valueOf(pending.createdAt));
+            params.add(pending.lowId());
+            params.add(pending.highId());
+        }
+        sql.append(") AS src (seq, sender_id, receiver_id, content, is_read, created_at, user_low_id, user_high_id) ")
+                .append("ON 1 = 0 WHEN NOT MATCHED THEN ")
+                .append("INSERT (sender_id, receiver_id, content, is_read, created_at, user_low_id, user_high_id) ")
+                .append("VALUES (src.sender_id, src.receiver_id, src.content, src.is_read, src.created_at, src.user_low_id, src.user_high_id) ")
+                .append("OUTPUT src.seq, INSERTED.id;");
+
+        Map<Long, Long> idsBySeq = new HashMap<>();
+        jdbcTemplate.query(sql.toString(), rs -> {
+            idsBySeq.put(rs.getLong(1), rs.getLong(2));
+        }, params.toArray());
+
+        Map<String, PendingMessage> lastByPair = new LinkedHashMap<>();
+        for (PendingMessage pending : batch) {
+            String key = pending.lowId() + ":" + pending.highId();
+            PendingMessage current = lastByPair.get(key);
+            if (current == null || idsBySeq.getOrDefault(pending.seq, 0L) > idsBySeq.getOrDefault(current.seq, 0L)) {
+                lastByPair.put(key, pending);
+            }
+        }
+        for (PendingMessage last : lastByPair.values()) {
+            conversationRepository.upsertOnMessage(last.lowId(), last.highId(), idsBySeq.get(last.seq),
+                    last.sender.getId(), Conversation.snippetOf(last.content), last.createdAt);
+        }
+        return idsBySeq;
+    }
+}
@@ -1,10 +1,12 @@
 package com.mathbridge.be_project.message;
 
+import com.mathbridge.be_project.common.UserRole;
 import com.mathbridge.be_project.user.User;
 import com.mathbridge.be_project.user.UserRepository;
 import com.mathbridge.be_project.user.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -12,9 +14,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/messages")
@@ -22,6 +23,8 @@ import java.util.stream.Collectors;
 public class MessageController {
 
     private final MessageService messageService;
+    private final MessageBatchWriter messageBatchWriter;
+    private final MessageSearchIndex messageSearchIndex;
     private final UserRepository userRepository;
     private final UserService userService;
 
@@ -54,8 +57,15 @@ public class MessageController {
     public ResponseEntity<?> sendMessage(@RequestBody MessageRequest request, HttpServletRequest httpRequest) {
         try {
             Long senderId = getCurrentUserId(httpRequest);
+            if (messageBatchWriter.isEnabled()) {
+                return ResponseEntity.status(HttpStatus.CREATED)
+                        .body(messageBatchWriter.send(senderId, request.getReceiverId(), request.getContent()));
+            }
             Message message = messageService.sendMessage(senderId, request.getReceiverId(), request.getContent());
-            return ResponseEntity.status(HttpStatus.CREATED).body(convertToDTO(message));
+            return ResponseEntity.status(HttpStatus.CREATED).body(MessageMapper.toDTO(message, false));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(createErrorResponse("Hệ thống đang bận, vui lòng thử lại"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(createErrorResponse("Failed to send message: " + e.getMessage()));
@@ -63,29 +73,83 @@ public class MessageController {
     }
 
     @GetMapping("/conversation/{otherUserId}")
-    public ResponseEntity<?> getConversation(@PathVariable Long otherUserId, HttpServletRequest request) {
+    public ResponseEntity<?> getConversation(@PathVariable Long otherUserId,
+                                             @RequestParam(required = false) Long before,
+                                             @RequestParam(required = false) Long after,
+                                             @RequestParam(defaultValue = "50") int limit,
+                                             HttpServletRequest request) {
         try {
             Long currentUserId = getCurrentUserId(request);
-            List<Message> messages = messageService.getConversation(currentUserId, otherUserId);
-            List<Map<String, Object>> messageDTOs = messages.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(messageDTOs);
+            return ResponseEntity.ok(messageService.getConversationView(currentUserId, otherUserId, before, after,
+                    Math.min(Math.max(limit, 1), 200)));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(createErrorResponse("Failed to get conversation: " + e.getMessage()));
         }
     }
 
+    @GetMapping("/inbox")
+    public ResponseEntity<?> getInbox(@RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(defaultValue = "20") int size,
+                                      HttpServletRequest request) {
+        try {
+            Long userId = getCurrentUserId(request);
+            Page<InboxEntry> inbox = messageService.getInbox(userId, Math.max(page, 0), Math.min(Math.max(size, 1), 100));
+            Map<String, Object> response = new HashMap<>();
+            response.put("items", inbox.getContent());
+            response.put("page", inbox.getNumber());
+            response.put("size", inbox.getSize());
+            response.put("totalElements", inbox.getTotalElements());
+            response.put("totalPages", inbox.getTotalPages());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Failed to get inbox: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchMessages(@RequestParam String q,
+                                            @RequestParam(required = false) Long before,
+                                            @RequestParam(defaultValue = "20") int limit,
+                                            HttpServletRequest request) {
+        try {
+            Long userId = getCurrentUserId(request);
+            return ResponseEntity.ok(messageService.searchMessages(userId, q, before, Math.min(Math.max(limit, 1), 50)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Failed to search messages: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<?> rebuildSearchIndex() {
+        User currentUser = getCurrentUser();
+        if (currentUser == null || currentUser.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(createErrorResponse("Chỉ quản trị viên mới được thực hiện thao tác này"));
+        }
+        if (!messageSearchIndex.startRebuild()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(messageSearchIndex.getRebuildStatus());
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(messageSearchIndex.getRebuildStatus());
+    }
+
+    @GetMapping("/search/rebuild")
+    public ResponseEntity<?> getSearchRebuildStatus() {
+        User currentUser = getCurrentUser();
+        if (currentUser == null || currentUser.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(createErrorResponse("Chỉ quản trị viên mới được thực hiện thao tác này"));
+        }
+        return ResponseEntity.ok(messageSearchIndex.getRebuildStatus());
+    }
+
     @GetMapping("/unread")
     public ResponseEntity<?> getUnreadMessages(HttpServletRequest request) {
         try {
             Long userId = getCurrentUserId(request);
-            List<Message> messages = messageService.getUnreadMessages(userId);
-            List<Map<String, Object>> messageDTOs = messages.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(messageDTOs);
+            return ResponseEntity.ok(messageService.getUnreadMessages(userId));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(createErrorResponse("Failed to get unread messages: " + e.getMessage()));
@@ -96,11 +160,20 @@ public class MessageController {
     public ResponseEntity<?> getAllMessages(HttpServletRequest request) {
         try {
             Long userId = getCurrentUserId(request);
-            List<Message> messages = messageService.getAllMessages(userId);
-            List<Map<String, Object>> messageDTOs = messages.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(messageDTOs);
+            return ResponseEntity.ok(messageService.getAllMessages(userId));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Failed to get messages: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/since")
+    public ResponseEntity<?> getMessagesSince(@RequestParam(defaultValue = "0") Long afterId,
+                                              @RequestParam(defaultValue = "200") int limit,
+                                              HttpServletRequest request) {
+        try {
+            Long userId = getCurrentUserId(request);
+            return ResponseEntity.ok(messageService.getMessagesSince(userId, afterId, Math.min(Math.max(limit, 1), 500)));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(createErrorResponse("Failed to get messages: " + e.getMessage()));
@@ -119,24 +192,6 @@ public class MessageController {
         }
     }
 
-    private Map<String, Object> convertToDTO(Message message) {
-        Map<String, Object> dto = new HashMap<>();
-        dto.put("id", message.getId());
-        // Trigger lazy loading within transaction context
-        User sender = message.getSender();
-        User receiver = message.getReceiver();
-        dto.put("senderId", sender.getId());
-        dto.put("senderName", sender.getFullName());
-        dto.put("senderEmail", sender.getEmail());
-        dto.put("receiverId", receiver.getId());
-        dto.put("receiverName", receiver.getFullName());
-        dto.put("receiverEmail", receiver.getEmail());
-        dto.put("content", message.getContent());
-        dto.put("isRead", message.getIsRead());
-        dto.put("createdAt", message.getCreatedAt());
-        return dto;
-    }
-
     private Map<String, String> createErrorResponse(String message) {
         Map<String, String> response = new HashMap<>();
         response.put("error", message);
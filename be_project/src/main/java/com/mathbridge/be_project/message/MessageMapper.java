@@ -0,0 +1,42 @@
+package com.mathbridge.be_project.message;
+
+import com.mathbridge.be_project.user.User;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Message -> JSON map used by both the REST endpoints and the WebSocket push.
+ */
+public final class MessageMapper {
+
+    private MessageMapper() {}
+
+    // isRead comes from the receiver's read watermark on the conversation, not from the message row
+    public static Map<String, Object> toDTO(Message message, boolean isRead) {
+        // Trigger lazy loading within transaction context
+        User sender = message.getSender();
+        User receiver = message.getReceiver();
+        return toDTO(message.getId(), sender.getId(), sender.getFullName(), sender.getEmail(),
+                receiver.getId(), receiver.getFullName(), receiver.getEmail(),
+                message.getContent(), isRead, message.getCreatedAt());
+    }
+
+    public static Map<String, Object> toDTO(Long id, Long senderId, String senderName, String senderEmail,
+                                            Long receiverId, String receiverName, String receiverEmail,
+                                            String content, boolean isRead, LocalDateTime createdAt) {
+        Map<String, Object> dto = new HashMap<>();
+        dto.put("id", id);
+        dto.put("senderId", senderId);
+        dto.put("senderName", senderName);
+        dto.put("senderEmail", senderEmail);
+        dto.put("receiverId", receiverId);
+        dto.put("receiverName", receiverName);
+        dto.put("receiverEmail", receiverEmail);
+        dto.put("content", content);
+        dto.put("isRead", isRead);
+        dto.put("createdAt", createdAt);
+        return dto;
+    }
+}
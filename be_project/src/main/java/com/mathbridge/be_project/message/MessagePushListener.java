@@ -0,0 +1,34 @@
+package com.mathbridge.be_project.message;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Pushes committed messages to both participants' /user/queue/messages destination
+ * (the sender too, so their other tabs stay in sync).
+ */
+@Component
+public class MessagePushListener {
+
+    public static final String DESTINATION = "/queue/messages";
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public MessagePushListener(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        try {
+            messagingTemplate.convertAndSendToUser(event.getReceiverEmail(), DESTINATION, event.getPayload());
+            if (!event.getSenderEmail().equals(event.getReceiverEmail())) {
+                messagingTemplate.convertAndSendToUser(event.getSenderEmail(), DESTINATION, event.getPayload());
+            }
+        } catch (Exception e) {
+            // Clients catch up through /api/messages/since on reconnect
+            System.err.println("Failed to push message " + event.getPayload().get("id") + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.mathbridge.be_project.message;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,10 +15,35 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     @Query("SELECT DISTINCT m FROM Message m LEFT JOIN FETCH m.sender LEFT JOIN FETCH m.receiver WHERE (m.sender.id = :userId1 AND m.receiver.id = :userId2) OR (m.sender.id = :userId2 AND m.receiver.id = :userId1) ORDER BY m.createdAt ASC")
     List<Message> findConversationBetweenUsers(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
     
-    @Query("SELECT DISTINCT m FROM Message m LEFT JOIN FETCH m.sender LEFT JOIN FETCH m.receiver WHERE m.receiver.id = :userId AND m.isRead = false ORDER BY m.createdAt DESC")
+    // Messages above the receiver's read watermark in each of their conversations
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender JOIN FETCH m.receiver " +
+           "JOIN Conversation c ON c.userLowId = m.userLowId AND c.userHighId = m.userHighId " +
+           "WHERE m.receiver.id = :userId AND m.sender.id <> :userId " +
+           "AND m.id > CASE WHEN c.userLowId = :userId THEN c.lastReadLowId ELSE c.lastReadHighId END " +
+           "ORDER BY m.id DESC")
     List<Message> findUnreadMessagesByReceiver(@Param("userId") Long userId);
+
+    // Messages from the other participant in (afterId, upToId]: what a watermark move clears
+    @Query("SELECT COUNT(m) FROM Message m WHERE m.userLowId = :lowId AND m.userHighId = :highId " +
+           "AND m.sender.id <> :readerId AND m.id > :afterId AND m.id <= :upToId")
+    long countFromOtherInRange(@Param("lowId") Long lowId, @Param("highId") Long highId,
+                               @Param("readerId") Long readerId, @Param("afterId") Long afterId,
+                               @Param("upToId") Long upToId);
     
     @Query("SELECT DISTINCT m FROM Message m LEFT JOIN FETCH m.sender LEFT JOIN FETCH m.receiver WHERE m.sender.id = :userId OR m.receiver.id = :userId ORDER BY m.createdAt DESC")
     List<Message> findAllMessagesByUser(@Param("userId") Long userId);
-}
 
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender JOIN FETCH m.receiver WHERE (m.sender.id = :userId OR m.receiver.id = :userId) AND m.id > :afterId ORDER BY m.id ASC")
+    List<Message> findMessagesForUserAfterId(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
+
+    // Page of a conversation older than beforeId, newest first
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender JOIN FETCH m.receiver WHERE m.userLowId = :lowId AND m.userHighId = :highId AND m.id < :beforeId ORDER BY m.id DESC")
+    List<Message> findConversationBefore(@Param("lowId") Long lowId, @Param("highId") Long highId, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    // Messages of a conversation newer than afterId, oldest first
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender JOIN FETCH m.receiver WHERE m.userLowId = :lowId AND m.userHighId = :highId AND m.id > :afterId ORDER BY m.id ASC")
+    List<Message> findConversationAfter(@Param("lowId") Long lowId, @Param("highId") Long highId, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender JOIN FETCH m.receiver WHERE m.id IN :ids")
+    List<Message> findAllWithParticipantsByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,235 @@
+package com.mathbridge.be_project.message;
+
+import com.mathbridge.be_project.common.TextTokenizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user inverted index of message terms ({@code message_search_terms}).
+ * <p>
+ * New messages are indexed asynchronously after commit on a single background thread (bounded queue;
+ * when it is full the committing thread indexes the message itself). Both participants get postings,
+ * so each user searches exactly the messages they sent or received. The whole index can be rebuilt
+ * from the messages table by id slices in parallel; inserts are idempotent so a rebuild can run
+ * alongside live indexing.
+ */
+@Component
+public class MessageSearchIndex {
+
+    private static final String INSERT_POSTING =
+            "INSERT INTO message_search_terms (user_id, term, message_id) SELECT ?, ?, ? " +
+            "WHERE NOT EXISTS (SELECT 1 FROM message_search_terms WITH (UPDLOCK, HOLDLOCK) " +
+            "WHERE user_id = ? AND term = ? AND message_id = ?)";
+    private static final int REBUILD_CHUNK = 1000;
+    private static final int RARITY_PROBE_LIMIT = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadPoolExecutor indexExecutor;
+    private final Counter indexedMessages;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicLong rebuildProgress = new AtomicLong();
+    private volatile LocalDateTime rebuildStartedAt;
+    private volatile LocalDateTime rebuildFinishedAt;
+
+    @Value("${messages.search.rebuild-parallelism:4}")
+    private int rebuildParallelism;
+
+    public MessageSearchIndex(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                              @Value("${messages.search.queue-capacity:10000}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.indexExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "message-search-indexer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.indexedMessages = Counter.builder("messages.search.indexed")
+                .description("Messages added to the search index")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        indexExecutor.shutdown();
+        indexExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        Map<String, Object> dto = event.getPayload();
+        Long id = (Long) dto.get("id");
+        Long senderId = (Long) dto.get("senderId");
+        Long receiverId = (Long) dto.get("receiverId");
+        String content = (String) dto.get("content");
+        indexExecutor.execute(() -> {
+            try {
+                index(List.<Object[]>of(new Object[]{id, senderId, receiverId, content}));
+            } catch (Exception e) {
+                System.err.println("Failed to index message " + id + ": " + e.getMessage());
+            }
+        });
+    }
+
+    // Ids of the user's messages containing all terms, newest first, below beforeId
+    public List<Long> search(Long userId, Collection<String> terms, long beforeId, int limit) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(terms));
+        if (distinct.isEmpty()) {
+            return List.of();
+        }
+        if (distinct.size() > 1) {
+            // Rarest term first: its posting range drives the scan and the others are point lookups
+            Map<String, Long> hits = countPostings(userId, distinct, beforeId);
+            distinct.sort(Comparator.comparing(hits::get));
+            if (hits.get(distinct.get(0)) == 0) {
+                return List.of();
+            }
+        }
+        // Walks the driving term's range backwards from beforeId, so TOP stops after `limit` matches
+        StringBuilder sql = new StringBuilder("SELECT TOP (?) p.message_id FROM message_search_terms p " +
+                "WHERE p.user_id = ? AND p.term = ? AND p.message_id < ?");
+        List<Object> params = new ArrayList<>(List.of(limit, userId, distinct.get(0), beforeId));
+        for (String term : distinct.subList(1, distinct.size())) {
+            sql.append(" AND EXISTS (SELECT 1 FROM message_search_terms o " +
+                    "WHERE o.user_id = p.user_id AND o.term = ? AND o.message_id = p.message_id)");
+            params.add(term);
+        }
+        sql.append(" ORDER BY p.message_id DESC");
+        return jdbcTemplate.queryForList(sql.toString(), Long.class, params.toArray());
+    }
+
+    // Postings per term below beforeId, each counted only up to RARITY_PROBE_LIMIT so common terms stay cheap
+    private Map<String, Long> countPostings(Long userId, List<String> terms, long beforeId) {
+        StringBuilder sql = new StringBuilder("SELECT v.term, (SELECT COUNT(*) FROM (SELECT TOP (?) 1 AS hit " +
+                "FROM message_search_terms p WHERE p.user_id = ? AND p.term = v.term AND p.message_id < ?) t) " +
+                "FROM (VALUES ");
+        List<Object> params = new ArrayList<>(List.of(RARITY_PROBE_LIMIT, userId, beforeId));
+        for (int i = 0; i < terms.size(); i++) {
+            sql.append(i == 0 ? "(?)" : ", (?)");
+            params.add(terms.get(i));
+        }
+        sql.append(") AS v(term)");
+        Map<String, Long> hits = new HashMap<>();
+        jdbcTemplate.query(sql.toString(), rs -> {
+            hits.put(rs.getString(1), rs.getLong(2));
+        }, params.toArray());
+        return hits;
+    }
+
+    // Start a background rebuild from the messages table; false if one is already running
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuildProgress.set(0);
+        rebuildStartedAt = LocalDateTime.now();
+        rebuildFinishedAt = null;
+        Thread thread = new Thread(this::rebuild, "message-search-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public Map<String, Object> getRebuildStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", rebuilding.get());
+        status.put("indexedMessages", rebuildProgress.get());
+        status.put("startedAt", rebuildStartedAt);
+        status.put("finishedAt", rebuildFinishedAt);
+        return status;
+    }
+
+    private void rebuild() {
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(rebuildParallelism, 1));
+        try {
+            Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM messages");
+            if (bounds.get("min_id") == null) {
+                return;
+            }
+            long minId = ((Number) bounds.get("min_id")).longValue();
+            long maxId = ((Number) bounds.get("max_id")).longValue();
+            int slices = Math.max(rebuildParallelism, 1);
+            long sliceSize = (maxId - minId) / slices + 1;
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int slice = 0; slice < slices; slice++) {
+                long from = minId + slice * sliceSize;
+                long to = Math.min(from + sliceSize - 1, maxId);
+                futures.add(workers.submit(() -> rebuildSlice(from, to)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            System.out.println("Message search index rebuilt: " + rebuildProgress.get() + " messages");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Message search rebuild failed: " + e.getMessage());
+        } finally {
+            workers.shutdownNow();
+            rebuildFinishedAt = LocalDateTime.now();
+            rebuilding.set(false);
+        }
+    }
+
+    // Index messages with from <= id <= to, keyset-paged by id
+    private void rebuildSlice(long from, long to) {
+        long lastId = from - 1;
+        while (lastId < to) {
+            List<Object[]> rows = jdbcTemplate.query(
+                    "SELECT TOP (?) id, sender_id, receiver_id, content FROM messages WHERE id > ? AND id <= ? ORDER BY id",
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getString(4)},
+                    REBUILD_CHUNK, lastId, to);
+            if (rows.isEmpty()) {
+                return;
+            }
+            index(rows);
+            rebuildProgress.addAndGet(rows.size());
+            lastId = (Long) rows.get(rows.size() - 1)[0];
+        }
+    }
+
+    // rows: {messageId, senderId, receiverId, content}
+    private void index(List<Object[]> rows) {
+        List<Object[]> postings = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long messageId = (Long) row[0];
+            Long senderId = (Long) row[1];
+            Long receiverId = (Long) row[2];
+            for (String term : TextTokenizer.terms((String) row[3])) {
+                postings.add(new Object[]{senderId, term, messageId, senderId, term, messageId});
+                if (!receiverId.equals(senderId)) {
+                    postings.add(new Object[]{receiverId, term, messageId, receiverId, term, messageId});
+                }
+            }
+        }
+        if (!postings.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_POSTING, postings);
+        }
+        indexedMessages.increment(rows.size());
+    }
+}
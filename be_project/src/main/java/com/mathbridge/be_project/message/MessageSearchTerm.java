@@ -0,0 +1,72 @@
+package com.mathbridge.be_project.message;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Posting of the inverted message index: user {@code inboxUserId} can find message {@code messageId} by {@code keyword}.
+ * The clustered (user_id, term, message_id) primary key is the whole search structure: one range seek per query term.
+ */
+@Entity
+@Table(name = "message_search_terms")
+@IdClass(MessageSearchTerm.Key.class)
+public class MessageSearchTerm {
+
+    // Hibernate orders composite id columns by attribute name; these names sort as user_id, term, message_id
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long inboxUserId;
+        private String keyword;
+        private Long messageId;
+
+        public Key() {}
+
+        public Key(Long inboxUserId, String keyword, Long messageId) {
+            this.inboxUserId = inboxUserId;
+            this.keyword = keyword;
+            this.messageId = messageId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(inboxUserId, key.inboxUserId) && Objects.equals(keyword, key.keyword) && Objects.equals(messageId, key.messageId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(inboxUserId, keyword, messageId);
+        }
+    }
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long inboxUserId;
+
+    @Id
+    @Column(name = "term", nullable = false, length = 64)
+    private String keyword;
+
+    @Id
+    @Column(name = "message_id", nullable = false)
+    private Long messageId;
+
+    // Constructors
+    public MessageSearchTerm() {}
+
+    // Getters
+    public Long getInboxUserId() {
+        return inboxUserId;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public Long getMessageId() {
+        return messageId;
+    }
+}
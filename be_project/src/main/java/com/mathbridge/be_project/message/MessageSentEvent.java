@@ -0,0 +1,32 @@
+package com.mathbridge.be_project.message;
+
+import java.util.Map;
+
+/**
+ * Published by {@link MessageService#sendMessage} and delivered to the WebSocket clients after commit.
+ * Carries the already-rendered payload so listeners never touch lazy entities outside the transaction.
+ */
+public class MessageSentEvent {
+
+    private final String senderEmail;
+    private final String receiverEmail;
+    private final Map<String, Object> payload;
+
+    public MessageSentEvent(String senderEmail, String receiverEmail, Map<String, Object> payload) {
+        this.senderEmail = senderEmail;
+        this.receiverEmail = receiverEmail;
+        this.payload = payload;
+    }
+
+    public String getSenderEmail() {
+        return senderEmail;
+    }
+
+    public String getReceiverEmail() {
+        return receiverEmail;
+    }
+
+    public Map<String, Object> getPayload() {
+        return payload;
+    }
+}
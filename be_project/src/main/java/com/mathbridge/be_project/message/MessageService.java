@@ -1,22 +1,54 @@
 package com.mathbridge.be_project.message;
 
+import com.mathbridge.be_project.badge.UnreadCounters;
+import com.mathbridge.be_project.common.TextTokenizer;
 import com.mathbridge.be_project.user.User;
 import com.mathbridge.be_project.user.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class MessageService {
 
+    private static final int MAX_SEARCH_TERMS = 8;
+
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RecentMessageCache recentMessageCache;
+    private final ConversationRepository conversationRepository;
+    private final MessageArchiveReader archiveReader;
+    private final MessageSearchIndex searchIndex;
+    private final UnreadCounters unreadCounters;
 
-    public MessageService(MessageRepository messageRepository, UserRepository userRepository) {
+    public MessageService(MessageRepository messageRepository, UserRepository userRepository,
+                          ApplicationEventPublisher eventPublisher, RecentMessageCache recentMessageCache,
+                          ConversationRepository conversationRepository, MessageArchiveReader archiveReader,
+                          MessageSearchIndex searchIndex, UnreadCounters unreadCounters) {
         this.messageRepository = messageRepository;
+        this.unreadCounters = unreadCounters;
+        this.searchIndex = searchIndex;
+        this.conversationRepository = conversationRepository;
+        this.archiveReader = archiveReader;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.recentMessageCache = recentMessageCache;
     }
 
     public Message sendMessage(Long senderId, Long receiverId, String content) {
@@ -25,37 +57,222 @@ public class MessageService {
         User receiver = userRepository.findById(receiverId)
                 .orElseThrow(() -> new RuntimeException("Receiver not found with id: " + receiverId));
 
-        Message message = new Message(sender, receiver, content);
-        return messageRepository.save(message);
+        Message message = messageRepository.save(new Message(sender, receiver, content));
+        conversationRepository.upsertOnMessage(message.getUserLowId(), message.getUserHighId(), message.getId(),
+                senderId, Conversation.snippetOf(content), message.getCreatedAt());
+        // Pushed over WebSocket once the transaction commits
+        eventPublisher.publishEvent(new MessageSentEvent(sender.getEmail(), receiver.getEmail(), MessageMapper.toDTO(message, false)));
+        return message;
+    }
+
+    // Messages sent or received after the given id, oldest first (reconnect catch-up)
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getMessagesSince(Long userId, Long afterId, int limit) {
+        return toDTOs(messageRepository.findMessagesForUserAfterId(userId, afterId, PageRequest.of(0, limit)), userId);
     }
 
     public List<Message> getConversation(Long userId1, Long userId2) {
         return messageRepository.findConversationBetweenUsers(userId1, userId2);
     }
 
-    public List<Message> getUnreadMessages(Long userId) {
-        return messageRepository.findUnreadMessagesByReceiver(userId);
+    // One page of a conversation in chronological order: newer than afterId if given, otherwise older than beforeId (or latest)
+    public List<Message> getConversationPage(Long userId1, Long userId2, Long beforeId, Long afterId, int limit) {
+        Long lowId = Math.min(userId1, userId2);
+        Long highId = Math.max(userId1, userId2);
+        PageRequest page = PageRequest.of(0, limit);
+        if (afterId != null) {
+            return messageRepository.findConversationAfter(lowId, highId, afterId, page);
+        }
+        List<Message> messages = messageRepository.findConversationBefore(lowId, highId,
+                beforeId != null ? beforeId : Long.MAX_VALUE, page);
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    // Conversation page as DTOs; latest pages and "after" refreshes of hot conversations come from memory
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getConversationView(Long userId1, Long userId2, Long beforeId, Long afterId, int limit) {
+        Conversation conversation = conversationRepository
+                .findByUserLowIdAndUserHighId(Math.min(userId1, userId2), Math.max(userId1, userId2)).orElse(null);
+        if (beforeId != null) {
+            return withArchivedBefore(toDTOs(getConversationPage(userId1, userId2, beforeId, null, limit), conversation),
+                    userId1, userId2, beforeId, limit, conversation);
+        }
+
+        String key = RecentMessageCache.pairKey(userId1, userId2);
+        List<Map<String, Object>> cached = afterId != null
+                ? recentMessageCache.after(key, afterId, limit)
+                : recentMessageCache.latest(key, limit);
+        if (cached != null) {
+            return cached;
+        }
+
+        long version = recentMessageCache.version(key);
+        int loadSize = Math.max(limit, recentMessageCache.getCapacity());
+        List<Map<String, Object>> latest = withArchivedBefore(
+                toDTOs(getConversationPage(userId1, userId2, null, null, loadSize), conversation),
+                userId1, userId2, Long.MAX_VALUE, loadSize, conversation);
+        recentMessageCache.prime(key, version, latest.size() > recentMessageCache.getCapacity()
+                ? latest.subList(latest.size() - recentMessageCache.getCapacity(), latest.size())
+                : latest);
+
+        if (afterId != null) {
+            boolean covered = latest.size() < loadSize || (!latest.isEmpty() && (Long) latest.get(0).get("id") <= afterId);
+            if (!covered) {
+                // afterId may point into archived history: archived part first, then the hot table
+                List<Map<String, Object>> result = new ArrayList<>(archiveReader.readAfter(
+                        Math.min(userId1, userId2), Math.max(userId1, userId2), afterId, limit, conversation));
+                if (result.size() < limit) {
+                    long hotAfter = result.isEmpty() ? afterId : (Long) result.get(result.size() - 1).get("id");
+                    result.addAll(toDTOs(getConversationPage(userId1, userId2, null, hotAfter, limit - result.size()), conversation));
+                }
+                return result;
+            }
+            return latest.stream().filter(dto -> (Long) dto.get("id") > afterId).limit(limit).collect(Collectors.toList());
+        }
+        return latest.size() > limit ? latest.subList(latest.size() - limit, latest.size()) : latest;
+    }
+
+    // Inbox page: one line per conversation, most recent first
+    @Transactional(readOnly = true)
+    public Page<InboxEntry> getInbox(Long userId, int page, int size) {
+        return conversationRepository.findInbox(userId, PageRequest.of(page, size));
+    }
+
+    // Search the user's messages (all terms must match, accents ignored), newest first, with highlight offsets
+    @Transactional(readOnly = true)
+    public Map<String, Object> searchMessages(Long userId, String query, Long beforeId, int limit) {
+        Set<String> terms = TextTokenizer.terms(query).stream().limit(MAX_SEARCH_TERMS)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        List<Long> ids = searchIndex.search(userId, terms, beforeId != null ? beforeId : Long.MAX_VALUE, limit);
+
+        List<Message> messages = ids.isEmpty() ? List.of() : messageRepository.findAllWithParticipantsByIdIn(ids);
+        messages = messages.stream()
+                .sorted(Comparator.comparing(Message::getId).reversed())
+                .collect(Collectors.toList());
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (Map<String, Object> dto : toDTOs(messages, userId)) {
+            Map<String, Object> item = new HashMap<>(dto);
+            item.put("highlights", highlights((String) dto.get("content"), terms));
+            items.add(item);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("items", items);
+        // Cursor from the index page, so archived or deleted hits do not stop paging early
+        result.put("nextBefore", ids.size() == limit ? ids.get(ids.size() - 1) : null);
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getUnreadMessages(Long userId) {
+        return messageRepository.findUnreadMessagesByReceiver(userId).stream()
+                .map(message -> MessageMapper.toDTO(message, false))
+                .collect(Collectors.toList());
     }
 
-    public List<Message> getAllMessages(Long userId) {
-        return messageRepository.findAllMessagesByUser(userId);
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllMessages(Long userId) {
+        return toDTOs(messageRepository.findAllMessagesByUser(userId), userId);
     }
 
+    // Mark a message and everything before it in its conversation as read by the receiver
     public void markAsRead(Long messageId) {
         Message message = messageRepository.findById(messageId)
                 .orElseThrow(() -> new RuntimeException("Message not found with id: " + messageId));
-        message.setIsRead(true);
-        messageRepository.save(message);
+        Long readerId = message.getReceiver().getId();
+        long cleared = conversationRepository.findByUserLowIdAndUserHighId(message.getUserLowId(), message.getUserHighId())
+                .map(c -> countCleared(c, readerId, message.getId()))
+                .orElse(0L);
+        conversationRepository.advanceReadWatermark(message.getUserLowId(), message.getUserHighId(),
+                readerId, message.getId());
+        afterCommit(() -> unreadCounters.addMessages(readerId, -cleared));
+        afterCommit(() -> recentMessageCache.invalidate(RecentMessageCache.pairKey(message.getUserLowId(), message.getUserHighId())));
     }
 
+    // userId1 has read the whole conversation with userId2: a single-row watermark UPDATE
     public void markConversationAsRead(Long userId1, Long userId2) {
-        List<Message> messages = messageRepository.findConversationBetweenUsers(userId1, userId2);
-        for (Message message : messages) {
-            if (message.getReceiver().getId().equals(userId1) && !message.getIsRead()) {
-                message.setIsRead(true);
+        long cleared = conversationRepository.findByUserLowIdAndUserHighId(Math.min(userId1, userId2), Math.max(userId1, userId2))
+                .map(c -> countCleared(c, userId1, c.getLastMessageId()))
+                .orElse(0L);
+        conversationRepository.markAllRead(Math.min(userId1, userId2), Math.max(userId1, userId2), userId1);
+        afterCommit(() -> unreadCounters.addMessages(userId1, -cleared));
+        // Cached DTOs carry isRead; drop them once the change is durable
+        afterCommit(() -> recentMessageCache.invalidate(RecentMessageCache.pairKey(userId1, userId2)));
+    }
+
+    // [start, end) offsets of query terms in the original content
+    private List<int[]> highlights(String content, Set<String> terms) {
+        List<int[]> ranges = new ArrayList<>();
+        for (TextTokenizer.Token token : TextTokenizer.tokenize(content)) {
+            if (terms.contains(token.getTerm())) {
+                ranges.add(new int[]{token.getStart(), token.getEnd()});
             }
         }
-        messageRepository.saveAll(messages);
+        return ranges;
+    }
+
+    // Fill a short page (oldest first) with archived history older than its first message
+    private List<Map<String, Object>> withArchivedBefore(List<Map<String, Object>> page, Long userId1, Long userId2,
+                                                         long beforeId, int limit, Conversation conversation) {
+        if (page.size() >= limit) {
+            return page;
+        }
+        long boundary = page.isEmpty() ? beforeId : (Long) page.get(0).get("id");
+        List<Map<String, Object>> older = archiveReader.readBefore(Math.min(userId1, userId2), Math.max(userId1, userId2),
+                boundary, limit - page.size(), conversation);
+        if (older.isEmpty()) {
+            return page;
+        }
+        List<Map<String, Object>> combined = new ArrayList<>(older.size() + page.size());
+        combined.addAll(older);
+        combined.addAll(page);
+        return combined;
+    }
+
+    // DTOs for messages of a single conversation
+    private List<Map<String, Object>> toDTOs(List<Message> messages, Conversation conversation) {
+        return messages.stream()
+                .map(message -> MessageMapper.toDTO(message, isRead(message, conversation)))
+                .collect(Collectors.toList());
+    }
+
+    // DTOs for messages across all of a user's conversations
+    private List<Map<String, Object>> toDTOs(List<Message> messages, Long userId) {
+        Map<String, Conversation> conversations = conversationRepository.findAllByParticipant(userId).stream()
+                .collect(Collectors.toMap(c -> RecentMessageCache.pairKey(c.getUserLowId(), c.getUserHighId()), c -> c));
+        return messages.stream()
+                .map(message -> MessageMapper.toDTO(message, isRead(message,
+                        conversations.get(RecentMessageCache.pairKey(message.getSender().getId(), message.getReceiver().getId())))))
+                .collect(Collectors.toList());
+    }
+
+    // Unread messages a watermark move to upToId clears for the reader (a range seek within one pair)
+    private long countCleared(Conversation conversation, Long readerId, Long upToId) {
+        long watermark = conversation.getLastReadIdFor(readerId);
+        if (upToId == null || upToId <= watermark) {
+            return 0;
+        }
+        return messageRepository.countFromOtherInRange(conversation.getUserLowId(), conversation.getUserHighId(),
+                readerId, watermark, upToId);
+    }
+
+    private boolean isRead(Message message, Conversation conversation) {
+        return conversation != null && message.getId() <= conversation.getLastReadIdFor(message.getReceiver().getId());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
 
@@ -0,0 +1,254 @@
+package com.mathbridge.be_project.message;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the last N messages (as rendered DTOs) of recently used conversations in memory.
+ * <p>
+ * Each conversation is a fixed-size ring ordered by message id. Rings are primed on the first read
+ * and extended by committed sends; idle conversations are evicted LRU once the estimated size of
+ * all rings exceeds {@code messages.cache.max-bytes}.
+ * <p>
+ * Freshness: every committed write to a conversation bumps a striped version counter. A reader
+ * records the version before going to the database and may only prime the cache if it is unchanged
+ * afterwards, so a snapshot taken before a concurrent write can never overwrite newer state.
+ */
+@Component
+public class RecentMessageCache {
+
+    private static final int VERSION_STRIPES = 1024;
+    // Rough per-entry overhead of the DTO map (keys, boxed values, timestamps)
+    private static final long ENTRY_OVERHEAD_BYTES = 400;
+
+    private final Map<String, Ring> rings = new LinkedHashMap<>(256, 0.75f, true);
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final MeterRegistry meterRegistry;
+    private long totalBytes;
+
+    @Value("${messages.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${messages.cache.per-conversation:50}")
+    private int capacity;
+
+    @Value("${messages.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    public RecentMessageCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.hits = Counter.builder("messages.cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("messages.cache.misses").register(meterRegistry);
+        this.evictions = Counter.builder("messages.cache.evictions").register(meterRegistry);
+    }
+
+    // Registered after construction so the gauges never see a half-built instance
+    @PostConstruct
+    public void registerGauges() {
+        Gauge.builder("messages.cache.bytes", this, RecentMessageCache::getTotalBytes)
+                .description("Estimated memory held by cached conversations")
+                .register(meterRegistry);
+        Gauge.builder("messages.cache.conversations", this, RecentMessageCache::getConversationCount)
+                .register(meterRegistry);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public static String pairKey(Long userId1, Long userId2) {
+        return Math.min(userId1, userId2) + ":" + Math.max(userId1, userId2);
+    }
+
+    // Version to pass to prime(); read it before querying the database
+    public long version(String pairKey) {
+        return versions.get(stripe(pairKey));
+    }
+
+    // Latest messages (oldest first), or null on a miss
+    public synchronized List<Map<String, Object>> latest(String pairKey, int limit) {
+        Ring ring = enabled && limit <= capacity ? rings.get(pairKey) : null;
+        if (ring == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return ring.latest(limit);
+    }
+
+    // Messages newer than afterId (oldest first), or null if the ring cannot prove it has all of them
+    public synchronized List<Map<String, Object>> after(String pairKey, long afterId, int limit) {
+        Ring ring = enabled ? rings.get(pairKey) : null;
+        if (ring == null || !ring.covers(afterId)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return ring.after(afterId, limit);
+    }
+
+    // Install the latest page loaded from the database unless the conversation changed meanwhile
+    public synchronized void prime(String pairKey, long versionBeforeRead, List<Map<String, Object>> latest) {
+        if (!enabled || versions.get(stripe(pairKey)) != versionBeforeRead) {
+            return;
+        }
+        Ring ring = new Ring(capacity, latest.size() < capacity);
+        for (Map<String, Object> dto : latest) {
+            ring.add(dto);
+        }
+        Ring previous = rings.put(pairKey, ring);
+        totalBytes += ring.bytes - (previous != null ? previous.bytes : 0);
+        evictIfNeeded();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        Map<String, Object> dto = event.getPayload();
+        String key = pairKey((Long) dto.get("senderId"), (Long) dto.get("receiverId"));
+        synchronized (this) {
+            versions.incrementAndGet(stripe(key));
+            // Only extend rings that already hold the latest page; a lone message is not a valid page
+            Ring ring = rings.get(key);
+            if (ring != null) {
+                long before = ring.bytes;
+                ring.add(dto);
+                totalBytes += ring.bytes - before;
+                evictIfNeeded();
+            }
+        }
+    }
+
+    // Drop a conversation after a committed change other than an append (e.g. read state)
+    public synchronized void invalidate(String pairKey) {
+        versions.incrementAndGet(stripe(pairKey));
+        Ring ring = rings.remove(pairKey);
+        if (ring != null) {
+            totalBytes -= ring.bytes;
+        }
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int getConversationCount() {
+        return rings.size();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Ring>> iterator = rings.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            totalBytes -= iterator.next().getValue().bytes;
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private int stripe(String pairKey) {
+        return Math.floorMod(pairKey.hashCode(), VERSION_STRIPES);
+    }
+
+    private static long estimateBytes(Map<String, Object> dto) {
+        long chars = 0;
+        for (Object value : dto.values()) {
+            if (value instanceof String text) {
+                chars += text.length();
+            }
+        }
+        return ENTRY_OVERHEAD_BYTES + chars * 2;
+    }
+
+    /**
+     * Circular buffer of message DTOs sorted by id; the oldest entry is overwritten when full.
+     * Not thread-safe, guarded by the cache monitor.
+     */
+    private static final class Ring {
+        private final List<Map<String, Object>> slots;
+        private final long[] ids;
+        private int head;
+        private int size;
+        private long bytes;
+        // True while the ring holds the conversation from its very first message
+        private boolean fromStart;
+
+        private Ring(int capacity, boolean fromStart) {
+            this.slots = new ArrayList<>(Collections.nCopies(capacity, null));
+            this.ids = new long[capacity];
+            this.fromStart = fromStart;
+        }
+
+        private void add(Map<String, Object> dto) {
+            long id = (Long) dto.get("id");
+            // Sends can commit slightly out of id order: find the insert position from the newest end
+            int pos = size;
+            while (pos > 0 && ids[index(pos - 1)] >= id) {
+                if (ids[index(pos - 1)] == id) {
+                    return;
+                }
+                pos--;
+            }
+            if (size == ids.length) {
+                if (pos == 0) {
+                    return;
+                }
+                bytes -= estimateBytes(slots.get(head));
+                head = index(1);
+                size--;
+                pos--;
+                fromStart = false;
+            }
+            for (int i = size; i > pos; i--) {
+                slots.set(index(i), slots.get(index(i - 1)));
+                ids[index(i)] = ids[index(i - 1)];
+            }
+            Map<String, Object> entry = Collections.unmodifiableMap(dto);
+            slots.set(index(pos), entry);
+            ids[index(pos)] = id;
+            size++;
+            bytes += estimateBytes(entry);
+        }
+
+        private boolean covers(long afterId) {
+            return fromStart || (size > 0 && afterId >= ids[head]);
+        }
+
+        private List<Map<String, Object>> latest(int limit) {
+            int count = Math.min(limit, size);
+            List<Map<String, Object>> result = new ArrayList<>(count);
+            for (int i = size - count; i < size; i++) {
+                result.add(slots.get(index(i)));
+            }
+            return result;
+        }
+
+        private List<Map<String, Object>> after(long afterId, int limit) {
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (int i = 0; i < size && result.size() < limit; i++) {
+                if (ids[index(i)] > afterId) {
+                    result.add(slots.get(index(i)));
+                }
+            }
+            return result;
+        }
+
+        private int index(int offset) {
+            return (head + offset) % ids.length;
+        }
+    }
+}
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        // Keyset paging newest first; the unread-only filtered index is created by V11
+        @Index(name = "IX_notifications_user_created", columnList = "user_id, created_at DESC, id DESC")
+})
 public class Notification {
 
     @Id
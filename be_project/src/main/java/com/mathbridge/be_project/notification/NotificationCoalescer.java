@@ -0,0 +1,132 @@
+package com.mathbridge.be_project.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges bursts of same-type notifications for one user into a single digest row.
+ * <p>
+ * Only types with a window in {@code notifications.coalesce.windows} are coalesced; the first notification of
+ * a (user, type) opens a window, later ones only bump a counter and remember the latest text, and when the
+ * window closes one notification is written ("Bạn có 5 lượt đặt lịch mới..."), or the original text if
+ * nothing else arrived.
+ * <p>
+ * The digest is a row in notification_digests written in the caller's transaction, so a crash inside the
+ * window cannot lose it; due digests are claimed with READPAST and deleted in the transaction that writes
+ * their notification.
+ */
+@Component
+public class NotificationCoalescer {
+
+    private static final long FLUSH_MILLIS = 1000;
+    private static final int DIGEST_BATCH_SIZE = 100;
+
+    private static final String UPSERT_DIGEST_SQL =
+            "MERGE notification_digests WITH (HOLDLOCK) AS d " +
+            "USING (SELECT ? AS user_id, ? AS type) AS s ON d.user_id = s.user_id AND d.type = s.type " +
+            "WHEN MATCHED THEN UPDATE SET pending_count = d.pending_count + 1, last_message = ? " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, type, pending_count, last_message, due_at, created_at) " +
+            "VALUES (s.user_id, s.type, 1, ?, ?, ?);";
+
+    private static final String CLAIM_DIGESTS_SQL =
+            "DELETE TOP (?) FROM notification_digests WITH (READPAST, ROWLOCK) " +
+            "OUTPUT deleted.user_id, deleted.type, deleted.pending_count, deleted.last_message " +
+            "WHERE due_at <= ?";
+
+    private static final Map<String, String> DIGEST_LABELS = Map.of(
+            "NEW_BOOKING", "lượt đặt lịch mới",
+            "SESSION_CANCELLED", "buổi học bị hủy",
+            "SESSION_CONFIRMED", "buổi học được xác nhận");
+
+    private record Ready(Long userId, String type, int count, String lastMessage) {
+    }
+
+    private final NotificationService notificationService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Long> windows = new HashMap<>();
+    private final Counter merged;
+
+    @Value("${notifications.coalesce.enabled:true}")
+    private boolean enabled;
+
+    public NotificationCoalescer(NotificationService notificationService, JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                 @Value("${notifications.coalesce.windows:}") String windowConfig) {
+        this.notificationService = notificationService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // "TYPE=millis,TYPE=millis"
+        for (String entry : windowConfig.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator > 0) {
+                windows.put(entry.substring(0, separator).trim(), Long.parseLong(entry.substring(separator + 1).trim()));
+            }
+        }
+        this.merged = Counter.builder("notifications.coalesce.merged")
+                .description("Notifications folded into a digest instead of written as their own row")
+                .register(meterRegistry);
+    }
+
+    // Notify a user, possibly as part of a digest written in the caller's transaction (outbox handlers)
+    public void submit(Long userId, String message, String type) {
+        Long window = type != null ? windows.get(type) : null;
+        if (!enabled || window == null || window <= 0) {
+            notificationService.createNotification(userId, message, type);
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(UPSERT_DIGEST_SQL, userId, type, message, message,
+                Timestamp.valueOf(now.plus(window, ChronoUnit.MILLIS)), Timestamp.valueOf(now));
+    }
+
+    @Scheduled(fixedDelay = FLUSH_MILLIS)
+    public void flushDue() {
+        try {
+            flushDigests();
+        } catch (Exception e) {
+            System.err.println("Failed to flush notification digests: " + e.getMessage());
+        }
+    }
+
+    // Claim due digest rows and write their notifications; both happen in one transaction per batch
+    private void flushDigests() {
+        int claimed;
+        do {
+            Integer count = transactionTemplate.execute(status -> {
+                List<Ready> ready = jdbcTemplate.query(CLAIM_DIGESTS_SQL, (rs, rowNum) -> new Ready(
+                                rs.getLong("user_id"), rs.getString("type"),
+                                rs.getInt("pending_count"), rs.getString("last_message")),
+                        DIGEST_BATCH_SIZE, Timestamp.valueOf(LocalDateTime.now()));
+                for (Ready entry : ready) {
+                    if (entry.count() > 1) {
+                        merged.increment(entry.count() - 1);
+                    }
+                    notificationService.createNotification(entry.userId(), digestMessage(entry), entry.type());
+                }
+                return ready.size();
+            });
+            claimed = count != null ? count : 0;
+        } while (claimed == DIGEST_BATCH_SIZE);
+    }
+
+    private String digestMessage(Ready ready) {
+        return ready.count() == 1
+                ? ready.lastMessage()
+                : "Bạn có " + ready.count() + " " + DIGEST_LABELS.getOrDefault(ready.type(), "thông báo mới")
+                  + ". Gần nhất: " + ready.lastMessage();
+    }
+}
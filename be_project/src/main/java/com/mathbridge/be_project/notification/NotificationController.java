@@ -1,17 +1,91 @@
 package com.mathbridge.be_project.notification;
 
+import com.mathbridge.be_project.common.UserRole;
+import com.mathbridge.be_project.security.JwtUtils;
+import com.mathbridge.be_project.tutor.TutorRepository;
+import com.mathbridge.be_project.user.User;
+import com.mathbridge.be_project.user.UserService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/notifications")
 @CrossOrigin(origins = "*") // Cho phép frontend Next.js gọi API
 public class NotificationController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_MARK_IDS = 500;
+
     private final NotificationService service;
+    private final NotificationFanoutService fanoutService;
+    private final UserService userService;
+    private final TutorRepository tutorRepository;
+    private final NotificationStreamHub streamHub;
+    private final NotificationRetentionJob retentionJob;
+    private final JwtUtils jwtUtils;
 
-    public NotificationController(NotificationService service) {
+    public NotificationController(NotificationService service, NotificationFanoutService fanoutService,
+                                  UserService userService, TutorRepository tutorRepository,
+                                  NotificationStreamHub streamHub, NotificationRetentionJob retentionJob,
+                                  JwtUtils jwtUtils) {
         this.service = service;
+        this.retentionJob = retentionJob;
+        this.jwtUtils = jwtUtils;
+        this.streamHub = streamHub;
+        this.fanoutService = fanoutService;
+        this.userService = userService;
+        this.tutorRepository = tutorRepository;
+    }
+
+    // Short-lived ticket for opening the stream, so the login JWT never appears in a URL
+    @PostMapping("/stream-ticket")
+    public ResponseEntity<?> createStreamTicket() {
+        User user = getCurrentUser();
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("ticket", jwtUtils.generateStreamTicket(user.getEmail()));
+        result.put("expiresInSeconds", jwtUtils.getStreamTicketMs() / 1000);
+        return ResponseEntity.ok(result);
+    }
+
+    // Live notifications over Server-Sent Events (?ticket= from /stream-ticket); EventSource sends Last-Event-ID on reconnect
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                                    @RequestParam(value = "lastEventId", required = false) Long lastEventIdParam) {
+        User user = getCurrentUser();
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Long lastEventId = lastEventIdParam;
+        if (lastEventIdHeader != null && !lastEventIdHeader.isBlank()) {
+            try {
+                lastEventId = Long.parseLong(lastEventIdHeader.trim());
+            } catch (NumberFormatException ignored) {
+                // Not one of our ids: start from now
+            }
+        }
+        try {
+            SseEmitter emitter = streamHub.connect(user.getId(), lastEventId);
+            return ResponseEntity.ok()
+                    .header("X-Accel-Buffering", "no")
+                    .body(emitter);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
     }
 
     @GetMapping("/{userId}")
@@ -24,8 +98,131 @@ public class NotificationController {
         return service.createNotification(request.getUserId(), request.getMessage(), request.getType());
     }
 
+    // Current user's notifications, newest first: GET /api/notifications?cursor=&limit=&unreadOnly=
+    @GetMapping
+    public ResponseEntity<?> getNotificationPage(@RequestParam(value = "cursor", required = false) String cursor,
+                                                 @RequestParam(value = "limit", defaultValue = "20") int limit,
+                                                 @RequestParam(value = "unreadOnly", defaultValue = "false") boolean unreadOnly) {
+        User user = getCurrentUser();
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(createErrorResponse("User not authenticated"));
+        }
+        try {
+            int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            return ResponseEntity.ok(service.getPage(user.getId(), cursor, pageSize, unreadOnly));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse("Cursor không hợp lệ"));
+        }
+    }
+
     @PutMapping("/{id}/read")
-    public void markNotificationAsRead(@PathVariable Long id) {
-        service.markAsRead(id);
+    public ResponseEntity<?> markNotificationAsRead(@PathVariable Long id) {
+        User user = getCurrentUser();
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(createErrorResponse("User not authenticated"));
+        }
+        service.markAsRead(user.getId(), List.of(id));
+        return ResponseEntity.noContent().build();
+    }
+
+    // Mark several notifications read in one UPDATE: {"ids": [1, 2, 3]}
+    @PostMapping("/read")
+    public ResponseEntity<?> markNotificationsAsRead(@RequestBody Map<String, List<Long>> request) {
+        User user = getCurrentUser();
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(createErrorResponse("User not authenticated"));
+        }
+        List<Long> ids = request.get("ids");
+        if (ids == null || ids.size() > MAX_MARK_IDS) {
+            return ResponseEntity.badRequest()
+                    .body(createErrorResponse("Danh sách ids trống hoặc vượt quá " + MAX_MARK_IDS));
+        }
+        int updated = service.markAsRead(user.getId(), ids.stream().filter(Objects::nonNull).distinct().toList());
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
+    @PostMapping("/read-all")
+    public ResponseEntity<?> markAllNotificationsAsRead() {
+        User user = getCurrentUser();
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(createErrorResponse("User not authenticated"));
+        }
+        return ResponseEntity.ok(Map.of("updated", service.markAllAsRead(user.getId())));
+    }
+
+    // Send one notification to a role, a tutor's students or a list of users; runs in the background
+    @PostMapping("/fanout")
+    public ResponseEntity<?> fanout(@RequestBody NotificationFanoutRequest request) {
+        User user = getCurrentUser();
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(createErrorResponse("User not authenticated"));
+        }
+        if (user.getRole() == UserRole.TUTOR) {
+            // Tutors may only announce to their own students
+            var tutor = tutorRepository.findByUserId(user.getId()).orElse(null);
+            if (tutor == null || request.getTarget() != NotificationFanoutRequest.Target.TUTOR_STUDENTS) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(createErrorResponse("Gia sư chỉ được gửi thông báo cho học sinh của mình"));
+            }
+            request.setTutorId(tutor.getId());
+        } else if (user.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(createErrorResponse("Chỉ quản trị viên mới được thực hiện thao tác này"));
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(fanoutService.submit(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(createErrorResponse("Hệ thống đang bận, vui lòng thử lại"));
+        }
+    }
+
+    // Run the retention purge now (admin); dryRun=true only counts what would be deleted
+    @PostMapping("/retention/run")
+    public ResponseEntity<?> runRetention(@RequestParam(value = "dryRun", defaultValue = "true") boolean dryRun) {
+        User user = getCurrentUser();
+        if (user == null || user.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(createErrorResponse("Chỉ quản trị viên mới được thực hiện thao tác này"));
+        }
+        try {
+            Map<String, Long> purged = retentionJob.run(dryRun);
+            if (purged == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(createErrorResponse("Tác vụ dọn dẹp đang chạy"));
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("dryRun", dryRun);
+            response.put("purged", purged);
+            return ResponseEntity.ok(response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(createErrorResponse("Tác vụ bị gián đoạn"));
+        }
+    }
+
+    // Progress of a fan-out job
+    @GetMapping("/fanout/{jobId}")
+    public ResponseEntity<?> getFanoutJob(@PathVariable String jobId) {
+        Map<String, Object> job = fanoutService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse("Không tìm thấy tác vụ"));
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return userService.getUserByEmail(authentication.getName()).orElse(null);
+    }
+
+    private Map<String, String> createErrorResponse(String message) {
+        Map<String, String> response = new HashMap<>();
+        response.put("error", message);
+        return response;
     }
 }
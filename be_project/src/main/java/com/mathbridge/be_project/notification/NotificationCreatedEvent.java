@@ -0,0 +1,18 @@
+package com.mathbridge.be_project.notification;
+
+/**
+ * Published by {@link NotificationService#createNotification}; listeners (badge counters, the SSE stream)
+ * react once the notification has committed.
+ */
+public class NotificationCreatedEvent {
+
+    private final Notification notification;
+
+    public NotificationCreatedEvent(Notification notification) {
+        this.notification = notification;
+    }
+
+    public Notification getNotification() {
+        return notification;
+    }
+}
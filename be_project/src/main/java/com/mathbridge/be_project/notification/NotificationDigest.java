@@ -0,0 +1,70 @@
+package com.mathbridge.be_project.notification;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A digest that is still collecting notifications for one (user, type). Written by
+ * {@link NotificationCoalescer#submit} in the caller's transaction and turned into a notification,
+ * in the same transaction that deletes it, once due_at has passed.
+ */
+@Entity
+@Table(name = "notification_digests", uniqueConstraints = {
+        @UniqueConstraint(name = "UX_notification_digests_user_type", columnNames = {"user_id", "type"})
+}, indexes = {
+        @Index(name = "IX_notification_digests_due", columnList = "due_at")
+})
+public class NotificationDigest {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "type", nullable = false, length = 50)
+    private String type;
+
+    @Column(name = "pending_count", nullable = false)
+    private int pendingCount;
+
+    @Column(name = "last_message", nullable = false, length = 1000)
+    private String lastMessage;
+
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public NotificationDigest() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    public String getLastMessage() {
+        return lastMessage;
+    }
+
+    public LocalDateTime getDueAt() {
+        return dueAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,27 @@
+package com.mathbridge.be_project.notification;
+
+import com.mathbridge.be_project.common.UserRole;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationFanoutRequest {
+
+    public enum Target {
+        ROLE,
+        TUTOR_STUDENTS,
+        USERS
+    }
+
+    private Target target;
+    private UserRole role;
+    private Long tutorId;
+    private List<Long> userIds;
+    private String message;
+    private String type;
+}
@@ -0,0 +1,244 @@
+package com.mathbridge.be_project.notification;
+
+import com.mathbridge.be_project.badge.UnreadCounters;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends one notification to many users (a role, a tutor's students or an explicit id list) in the background.
+ * <p>
+ * Recipient ids are streamed from the database with a forward-only cursor and inserted in JDBC batches,
+ * each batch in its own short transaction, so a large fan-out never holds locks for long and progress
+ * is visible while it runs. Jobs run one at a time; a few more can wait in a small queue.
+ */
+@Service
+public class NotificationFanoutService {
+
+    private static final int MAX_TRACKED_JOBS = 50;
+    // Ids per existence lookup; SQL Server allows at most 2100 parameters per statement
+    private static final int ID_LOOKUP_CHUNK = 1000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (user_id, message, type, is_read, created_at) VALUES (?, ?, ?, 0, ?)";
+
+    public static final class Job {
+        private final String id;
+        private final NotificationFanoutRequest.Target target;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicLong delivered = new AtomicLong();
+        private volatile String status = "QUEUED";
+        private volatile long totalRecipients = -1;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        private Job(String id, NotificationFanoutRequest.Target target) {
+            this.id = id;
+            this.target = target;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("jobId", id);
+            map.put("target", target);
+            map.put("status", status);
+            map.put("totalRecipients", totalRecipients >= 0 ? totalRecipients : null);
+            map.put("delivered", delivered.get());
+            map.put("createdAt", createdAt);
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+            map.put("error", error);
+            return map;
+        }
+    }
+
+    // Either a recipient query ("SELECT <user id> ...") with its parameters, or an explicit id list
+    private record Recipients(String sql, Object[] params, List<Long> userIds) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UnreadCounters unreadCounters;
+    private final NotificationStreamHub streamHub;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+            return size() > MAX_TRACKED_JOBS;
+        }
+    };
+
+    @Value("${notifications.fanout.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${notifications.fanout.max-user-ids:10000}")
+    private int maxUserIds;
+
+    public NotificationFanoutService(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                                     PlatformTransactionManager transactionManager, UnreadCounters unreadCounters,
+                                     NotificationStreamHub streamHub,
+                                     @Value("${notifications.fanout.queue-capacity:8}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate.setFetchSize(1000);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.unreadCounters = unreadCounters;
+        this.streamHub = streamHub;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-fanout");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Validate and queue a fan-out; throws RejectedExecutionException when too many jobs are waiting
+    public Map<String, Object> submit(NotificationFanoutRequest request) {
+        if (request.getMessage() == null || request.getMessage().isBlank()) {
+            throw new IllegalArgumentException("Nội dung thông báo không được để trống");
+        }
+        Recipients recipients = recipientsFor(request);
+        Job job = new Job(UUID.randomUUID().toString(), request.getTarget());
+        String type = request.getType() != null ? request.getType() : "SYSTEM";
+        executor.execute(() -> run(job, recipients, request.getMessage(), type));
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+        return job.toMap();
+    }
+
+    public Map<String, Object> getJob(String jobId) {
+        synchronized (jobs) {
+            Job job = jobs.get(jobId);
+            return job != null ? job.toMap() : null;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private Recipients recipientsFor(NotificationFanoutRequest request) {
+        if (request.getTarget() == null) {
+            throw new IllegalArgumentException("Thiếu đối tượng nhận thông báo");
+        }
+        switch (request.getTarget()) {
+            case ROLE -> {
+                if (request.getRole() == null) {
+                    throw new IllegalArgumentException("Thiếu vai trò người nhận");
+                }
+                return new Recipients("SELECT id FROM users WHERE role = ? AND status = 'ACTIVE'",
+                        new Object[]{request.getRole().name()}, null);
+            }
+            case TUTOR_STUDENTS -> {
+                if (request.getTutorId() == null) {
+                    throw new IllegalArgumentException("Thiếu mã gia sư");
+                }
+                return new Recipients("SELECT DISTINCT st.user_id FROM sessions s JOIN students st ON st.id = s.student_id " +
+                        "WHERE s.tutor_id = ? AND st.user_id IS NOT NULL", new Object[]{request.getTutorId()}, null);
+            }
+            case USERS -> {
+                if (request.getUserIds() == null || request.getUserIds().isEmpty()) {
+                    throw new IllegalArgumentException("Danh sách người nhận trống");
+                }
+                if (request.getUserIds().size() > maxUserIds) {
+                    throw new IllegalArgumentException("Tối đa " + maxUserIds + " người nhận mỗi lần gửi");
+                }
+                return new Recipients(null, null, request.getUserIds().stream().filter(Objects::nonNull).toList());
+            }
+            default -> throw new IllegalArgumentException("Unknown target: " + request.getTarget());
+        }
+    }
+
+    private void run(Job job, Recipients recipients, String message, String type) {
+        job.status = "RUNNING";
+        job.startedAt = LocalDateTime.now();
+        Timestamp createdAt = Timestamp.valueOf(job.startedAt);
+        List<Long> batch = new ArrayList<>(batchSize);
+        try {
+            if (recipients.userIds() != null) {
+                // Explicit id list: de-duplicated, and only ids of existing users are kept
+                // (notifications.user_id has no foreign key, so unknown ids would become orphan rows)
+                List<Long> ids = existingUserIds(new ArrayList<>(new LinkedHashSet<>(recipients.userIds())));
+                job.totalRecipients = ids.size();
+                for (Long id : ids) {
+                    batch.add(id);
+                    if (batch.size() >= batchSize) {
+                        flush(job, batch, message, type, createdAt);
+                    }
+                }
+            } else {
+                job.totalRecipients = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM (" + recipients.sql() + ") r", Long.class, recipients.params());
+                streamingTemplate.query(recipients.sql(), rs -> {
+                    batch.add(rs.getLong(1));
+                    if (batch.size() >= batchSize) {
+                        flush(job, batch, message, type, createdAt);
+                    }
+                }, recipients.params());
+            }
+            flush(job, batch, message, type, createdAt);
+            job.status = "COMPLETED";
+            System.out.println("Notification fan-out " + job.id + " delivered " + job.delivered.get() + " notifications");
+        } catch (Exception e) {
+            job.status = "FAILED";
+            job.error = e.getMessage();
+            System.err.println("Notification fan-out " + job.id + " failed: " + e.getMessage());
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private List<Long> existingUserIds(List<Long> ids) {
+        List<Long> existing = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += ID_LOOKUP_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ID_LOOKUP_CHUNK, ids.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            existing.addAll(jdbcTemplate.queryForList(
+                    "SELECT id FROM users WHERE id IN (" + placeholders + ")", Long.class, chunk.toArray()));
+        }
+        return existing;
+    }
+
+    // Insert one batch in its own transaction, then update the badge counters and open streams
+    private void flush(Job job, List<Long> batch, String message, String type, Timestamp createdAt) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, userId) -> {
+                    ps.setLong(1, userId);
+                    ps.setString(2, message);
+                    ps.setString(3, type);
+                    ps.setTimestamp(4, createdAt);
+                }));
+        for (Long userId : batch) {
+            unreadCounters.addNotifications(userId, 1);
+        }
+        streamHub.poke(batch);
+        job.delivered.addAndGet(batch.size());
+        batch.clear();
+    }
+}
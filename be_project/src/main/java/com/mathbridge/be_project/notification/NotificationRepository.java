@@ -1,10 +1,49 @@
 package com.mathbridge.be_project.notification;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     List<Notification> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    // Newest first, strictly after the (createdAt, id) cursor: a range seek on IX_notifications_user_created
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId " +
+           "AND (n.createdAt < :beforeAt OR (n.createdAt = :beforeAt AND n.id < :beforeId)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPage(@Param("userId") Long userId, @Param("beforeAt") LocalDateTime beforeAt,
+                                @Param("beforeId") Long beforeId, Pageable pageable);
+
+    // Same, unread only; the literal is_read = 0 lets SQL Server use the filtered IX_notifications_user_unread
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.isRead = false " +
+           "AND (n.createdAt < :beforeAt OR (n.createdAt = :beforeAt AND n.id < :beforeId)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findUnreadPage(@Param("userId") Long userId, @Param("beforeAt") LocalDateTime beforeAt,
+                                      @Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.userId = :userId AND n.isRead = false")
+    int markAllRead(@Param("userId") Long userId);
+
+    // Only the caller's own notifications; returns how many actually changed
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.userId = :userId AND n.id IN :ids AND n.isRead = false")
+    int markRead(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    // Stream resume: notifications newer than the client's Last-Event-ID
+    List<Notification> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId, Pageable pageable);
+
+    // Stream catch-up overlap: recent rows at or below the watermark (ids are not assigned in commit order)
+    List<Notification> findByUserIdAndCreatedAtGreaterThanEqualAndIdLessThanEqualOrderByIdAsc(
+            Long userId, LocalDateTime since, Long maxId, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(n.id), 0) FROM Notification n WHERE n.userId = :userId")
+    Long findMaxIdByUserId(@Param("userId") Long userId);
 }
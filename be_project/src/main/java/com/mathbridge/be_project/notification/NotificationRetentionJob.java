@@ -0,0 +1,205 @@
+package com.mathbridge.be_project.notification;
+
+import com.mathbridge.be_project.badge.UnreadCounters;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes old notifications according to per-type retention rules.
+ * <p>
+ * Read notifications of a type listed in {@code type-ttl-days} are kept that many days, other read ones
+ * {@code read-ttl-days}; unread ones are kept {@code unread-ttl-days} whatever their type. Each rule walks
+ * the clustered primary key in id order (ids grow with created_at, so the oldest rows come first) and
+ * deletes chunks of at most {@code batch-size} ids, each in its own short transaction and well below
+ * SQL Server's lock escalation threshold, pausing between chunks. A run is capped at
+ * {@code max-chunks-per-run} per rule; what is left is reported as lag and picked up by the next run.
+ */
+@Component
+public class NotificationRetentionJob {
+
+    // One retention rule: which rows, and how old they must be
+    private record Rule(String name, String predicate, Map<String, Object> params, int ttlDays) {
+    }
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UnreadCounters unreadCounters;
+    private final MeterRegistry meterRegistry;
+    private final Timer runTimer;
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${notifications.retention.enabled:false}")
+    private boolean enabled;
+
+    @Value("${notifications.retention.dry-run:false}")
+    private boolean dryRun;
+
+    @Value("${notifications.retention.read-ttl-days:30}")
+    private int readTtlDays;
+
+    @Value("${notifications.retention.unread-ttl-days:180}")
+    private int unreadTtlDays;
+
+    // "TYPE=days,TYPE=days"
+    @Value("${notifications.retention.type-ttl-days:}")
+    private String typeTtlDays;
+
+    @Value("${notifications.retention.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${notifications.retention.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${notifications.retention.max-chunks-per-run:500}")
+    private int maxChunksPerRun;
+
+    public NotificationRetentionJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    UnreadCounters unreadCounters, MeterRegistry meterRegistry) {
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.unreadCounters = unreadCounters;
+        this.meterRegistry = meterRegistry;
+        this.runTimer = Timer.builder("notifications.retention.run")
+                .description("Duration of one notification retention run")
+                .register(meterRegistry);
+        Gauge.builder("notifications.retention.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("How far past its TTL the oldest notification left by the last run is")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${notifications.retention.cron:0 30 3 * * *}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Map<String, Long> purged = run(dryRun);
+            System.out.println("Notification retention" + (dryRun ? " (dry run)" : "") + ": " + purged);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Notification retention failed: " + e.getMessage());
+        }
+    }
+
+    // Apply every rule once; returns rows purged (or that would be purged) per rule, or null if a run is in progress
+    public Map<String, Long> run(boolean dryRun) throws InterruptedException {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            return runRules(dryRun);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Map<String, Long> runRules(boolean dryRun) throws InterruptedException {
+        long started = System.nanoTime();
+        Map<String, Long> purged = new LinkedHashMap<>();
+        long maxLag = 0;
+        boolean unreadDeleted = false;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (Rule rule : rules()) {
+                LocalDateTime cutoff = now.minusDays(rule.ttlDays());
+                long[] result = purgeRule(rule, cutoff, dryRun);
+                purged.put(rule.name(), result[0]);
+                maxLag = Math.max(maxLag, result[1]);
+                Counter.builder("notifications.retention.purged")
+                        .description("Notifications deleted (or matched, in dry-run) by the retention job")
+                        .tag("rule", rule.name())
+                        .tag("dryRun", String.valueOf(dryRun))
+                        .register(meterRegistry)
+                        .increment(result[0]);
+                unreadDeleted |= !dryRun && result[0] > 0 && rule.name().equals("unread");
+            }
+            lagSeconds.set(maxLag);
+        } finally {
+            runTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        if (unreadDeleted) {
+            // Deleted unread rows were still counted in the badges
+            unreadCounters.reconcile(false);
+        }
+        return purged;
+    }
+
+    // Returns {rows purged, lag in seconds of the first row left behind (0 if caught up)}
+    private long[] purgeRule(Rule rule, LocalDateTime cutoff, boolean dryRun) throws InterruptedException {
+        MapSqlParameterSource params = new MapSqlParameterSource(rule.params())
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("batchSize", batchSize);
+        String select = "SELECT TOP (:batchSize) id FROM notifications WHERE id > :afterId AND created_at < :cutoff AND "
+                + rule.predicate() + " ORDER BY id";
+        long afterId = 0;
+        long total = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            List<Long> ids = namedJdbcTemplate.queryForList(select, params.addValue("afterId", afterId), Long.class);
+            if (ids.isEmpty()) {
+                return new long[]{total, 0};
+            }
+            if (!dryRun) {
+                transactionTemplate.executeWithoutResult(status -> namedJdbcTemplate.update(
+                        "DELETE FROM notifications WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids)));
+            }
+            total += ids.size();
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < batchSize) {
+                return new long[]{total, 0};
+            }
+            Thread.sleep(pauseMs);
+        }
+        // Chunk budget used up: measure how far behind this rule is
+        List<Timestamp> next = namedJdbcTemplate.queryForList(
+                "SELECT TOP (1) created_at FROM notifications WHERE id > :afterId AND created_at < :cutoff AND "
+                        + rule.predicate() + " ORDER BY id",
+                params.addValue("afterId", afterId), Timestamp.class);
+        long lag = next.isEmpty() ? 0 : Duration.between(next.get(0).toLocalDateTime(), cutoff).getSeconds();
+        return new long[]{total, Math.max(lag, 0)};
+    }
+
+    private List<Rule> rules() {
+        List<Rule> rules = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        for (String entry : typeTtlDays.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+            String type = entry.substring(0, separator).trim();
+            int days = Integer.parseInt(entry.substring(separator + 1).trim());
+            types.add(type);
+            rules.add(new Rule("type:" + type, "is_read = 1 AND type = :type", Map.of("type", type), days));
+        }
+        if (types.isEmpty()) {
+            rules.add(new Rule("read", "is_read = 1", Map.of(), readTtlDays));
+        } else {
+            rules.add(new Rule("read", "is_read = 1 AND (type IS NULL OR type NOT IN (:types))", Map.of("types", types), readTtlDays));
+        }
+        rules.add(new Rule("unread", "is_read = 0", Map.of(), unreadTtlDays));
+        return rules;
+    }
+}
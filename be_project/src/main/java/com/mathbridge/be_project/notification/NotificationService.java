@@ -1,29 +1,103 @@
 package com.mathbridge.be_project.notification;
 
+import com.mathbridge.be_project.badge.UnreadCounters;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class NotificationService {
 
+    // Upper bound for the legacy, non-paginated list
+    private static final int LEGACY_LIST_LIMIT = 100;
+    private static final LocalDateTime END_OF_TIME = LocalDateTime.of(9999, 12, 31, 23, 59);
+
     private final NotificationRepository repository;
+    private final UnreadCounters unreadCounters;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public NotificationService(NotificationRepository repository) {
+    public NotificationService(NotificationRepository repository, UnreadCounters unreadCounters,
+                               ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
+        this.unreadCounters = unreadCounters;
+        this.eventPublisher = eventPublisher;
     }
 
+    // Newest notifications only; use getPage to go further back
     public List<Notification> getNotificationsByUser(Long userId) {
-        return repository.findByUserIdOrderByCreatedAtDesc(userId);
+        return repository.findPage(userId, END_OF_TIME, Long.MAX_VALUE, PageRequest.of(0, LEGACY_LIST_LIMIT));
+    }
+
+    // One keyset page, newest first; cursor is the "nextCursor" of the previous page
+    public Map<String, Object> getPage(Long userId, String cursor, int limit, boolean unreadOnly) {
+        LocalDateTime beforeAt = END_OF_TIME;
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            int separator = cursor.lastIndexOf('_');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Cursor không hợp lệ");
+            }
+            beforeAt = LocalDateTime.parse(cursor.substring(0, separator));
+            beforeId = Long.parseLong(cursor.substring(separator + 1));
+        }
+        PageRequest page = PageRequest.of(0, limit);
+        List<Notification> items = unreadOnly
+                ? repository.findUnreadPage(userId, beforeAt, beforeId, page)
+                : repository.findPage(userId, beforeAt, beforeId, page);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("items", items);
+        Notification last = items.isEmpty() ? null : items.get(items.size() - 1);
+        result.put("nextCursor", items.size() == limit ? last.getCreatedAt() + "_" + last.getId() : null);
+        return result;
     }
 
     public Notification createNotification(Long userId, String message, String type) {
         Notification notification = new Notification(userId, message, type);
-        return repository.save(notification);
+        Notification saved = repository.save(notification);
+        // Counted and pushed to connected clients once the caller's transaction commits
+        eventPublisher.publishEvent(new NotificationCreatedEvent(saved));
+        return saved;
+    }
+
+    // Single UPDATE; returns how many notifications changed
+    @Transactional
+    public int markAllAsRead(Long userId) {
+        int updated = repository.markAllRead(userId);
+        afterCommit(() -> unreadCounters.addNotifications(userId, -updated));
+        return updated;
+    }
+
+    // Single UPDATE over the given ids; ids of other users are ignored
+    @Transactional
+    public int markAsRead(Long userId, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int updated = repository.markRead(userId, ids);
+        afterCommit(() -> unreadCounters.addNotifications(userId, -updated));
+        return updated;
     }
 
-    public void markAsRead(Long id) {
-        Notification notification = repository.findById(id).orElseThrow();
-        notification.setRead(true);
-        repository.save(notification);
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
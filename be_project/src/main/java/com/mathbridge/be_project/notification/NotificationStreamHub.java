@@ -0,0 +1,270 @@
+package com.mathbridge.be_project.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events connections for /api/notifications/stream.
+ * <p>
+ * Connections are async servlet requests, so an idle one holds no thread: only an emitter, a small
+ * bounded queue and a few fields. Work for a connection (a notification, a "catch up" poke, a heartbeat)
+ * is queued and drained by a small sender pool, one drain at a time per connection. A client that cannot
+ * keep up fills its queue and is disconnected; the browser reconnects with Last-Event-ID (the notification
+ * id) and the gap is re-read from the database.
+ * <p>
+ * IDENTITY ids are not assigned in commit order, so a notification can commit after a higher id was already
+ * sent. The id is therefore only a watermark: live notifications below it are still sent, and every catch-up
+ * also re-reads rows created in the last {@code overlap-seconds}. Duplicates are filtered against the ids
+ * recently sent on the connection; after a reconnect the client may see an id twice and should skip it.
+ */
+@Component
+public class NotificationStreamHub {
+
+    private static final Object POKE = new Object();
+    private static final Object HEARTBEAT = new Object();
+    private static final int CATCH_UP_PAGE = 100;
+    private static final int RECENT_IDS = 256;
+
+    private final class Connection {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Object> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Only touched by the single drain running for this connection
+        private final LinkedHashSet<Long> recentIds = new LinkedHashSet<>();
+        private volatile long lastSentId;
+        private volatile boolean closed;
+
+        private Connection(Long userId, SseEmitter emitter, long lastSentId) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.lastSentId = lastSentId;
+        }
+    }
+
+    private final NotificationRepository repository;
+    private final Map<Long, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final ExecutorService senders;
+    private final Counter evictions;
+
+    @Value("${notifications.stream.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${notifications.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${notifications.stream.max-connections:50000}")
+    private int maxConnections;
+
+    // How late a notification may commit after a higher id and still be picked up by a catch-up
+    @Value("${notifications.stream.overlap-seconds:10}")
+    private long overlapSeconds;
+
+    public NotificationStreamHub(NotificationRepository repository, MeterRegistry meterRegistry,
+                                 @Value("${notifications.stream.sender-threads:4}") int senderThreads) {
+        this.repository = repository;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(Math.max(senderThreads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "notification-sse-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.evictions = Counter.builder("notifications.stream.evictions")
+                .description("SSE connections dropped because their send queue was full")
+                .register(meterRegistry);
+        Gauge.builder("notifications.stream.connections", connectionCount, AtomicInteger::get)
+                .description("Open notification SSE connections")
+                .register(meterRegistry);
+    }
+
+    // Open a stream; lastEventId (if any) replays what the client missed
+    public SseEmitter connect(Long userId, Long lastEventId) {
+        if (connectionCount.get() >= maxConnections) {
+            throw new RejectedExecutionException("Too many notification streams");
+        }
+        long start = lastEventId != null ? lastEventId : repository.findMaxIdByUserId(userId);
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Connection connection = new Connection(userId, emitter, start);
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        emitter.onError(error -> remove(connection));
+
+        connections.compute(userId, (id, userConnections) -> {
+            Set<Connection> set = userConnections != null ? userConnections : ConcurrentHashMap.newKeySet();
+            set.add(connection);
+            return set;
+        });
+        connectionCount.incrementAndGet();
+        // First write commits the response headers right away
+        offer(connection, HEARTBEAT);
+        if (lastEventId != null) {
+            offer(connection, POKE);
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        Notification notification = event.getNotification();
+        Set<Connection> userConnections = connections.get(notification.getUserId());
+        if (userConnections != null) {
+            userConnections.forEach(connection -> offer(connection, notification));
+        }
+    }
+
+    // Rows were inserted for these users without entities (bulk fan-out): connected ones re-read from the database
+    public void poke(Collection<Long> userIds) {
+        for (Long userId : userIds) {
+            Set<Connection> userConnections = connections.get(userId);
+            if (userConnections != null) {
+                userConnections.forEach(connection -> offer(connection, POKE));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        connections.values().forEach(userConnections -> userConnections.forEach(connection -> offer(connection, HEARTBEAT)));
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    @PreDestroy
+    public void stop() {
+        senders.shutdownNow();
+        connections.values().forEach(userConnections -> userConnections.forEach(connection -> close(connection)));
+    }
+
+    private void offer(Connection connection, Object item) {
+        if (connection.closed) {
+            return;
+        }
+        if (!connection.queue.offer(item)) {
+            // Slow consumer: drop it rather than buffer without bound
+            evictions.increment();
+            close(connection);
+            return;
+        }
+        schedule(connection);
+    }
+
+    private void schedule(Connection connection) {
+        if (connection.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(connection));
+            } catch (RejectedExecutionException e) {
+                connection.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Connection connection) {
+        try {
+            Object item;
+            while (!connection.closed && (item = connection.queue.poll()) != null) {
+                if (item == HEARTBEAT) {
+                    connection.emitter.send(SseEmitter.event().comment("ping"));
+                } else if (item == POKE) {
+                    catchUp(connection);
+                } else {
+                    send(connection, (Notification) item);
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away
+            close(connection);
+        } catch (Exception e) {
+            System.err.println("Notification stream send failed: " + e.getMessage());
+            close(connection);
+        } finally {
+            connection.draining.set(false);
+            if (!connection.closed && !connection.queue.isEmpty()) {
+                schedule(connection);
+            }
+        }
+    }
+
+    private void catchUp(Connection connection) throws IOException {
+        List<Notification> late = repository.findByUserIdAndCreatedAtGreaterThanEqualAndIdLessThanEqualOrderByIdAsc(
+                connection.userId, LocalDateTime.now().minusSeconds(overlapSeconds), connection.lastSentId,
+                PageRequest.of(0, CATCH_UP_PAGE));
+        for (Notification notification : late) {
+            send(connection, notification);
+        }
+        while (true) {
+            List<Notification> missed = repository.findByUserIdAndIdGreaterThanOrderByIdAsc(
+                    connection.userId, connection.lastSentId, PageRequest.of(0, CATCH_UP_PAGE));
+            for (Notification notification : missed) {
+                send(connection, notification);
+            }
+            if (missed.size() < CATCH_UP_PAGE) {
+                return;
+            }
+        }
+    }
+
+    private void send(Connection connection, Notification notification) throws IOException {
+        Long id = notification.getId();
+        if (!connection.recentIds.add(id)) {
+            return;
+        }
+        if (connection.recentIds.size() > RECENT_IDS) {
+            connection.recentIds.remove(connection.recentIds.iterator().next());
+        }
+        connection.emitter.send(SseEmitter.event()
+                .id(String.valueOf(id))
+                .name("notification")
+                .data(notification));
+        connection.lastSentId = Math.max(connection.lastSentId, id);
+    }
+
+    private void close(Connection connection) {
+        if (connection.closed) {
+            return;
+        }
+        remove(connection);
+        try {
+            connection.emitter.complete();
+        } catch (Exception ignored) {
+            // Already completed by the container
+        }
+    }
+
+    private void remove(Connection connection) {
+        connection.closed = true;
+        connection.queue.clear();
+        connections.computeIfPresent(connection.userId, (id, userConnections) -> {
+            if (userConnections.remove(connection)) {
+                connectionCount.decrementAndGet();
+            }
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+}
@@ -0,0 +1,256 @@
+package com.mathbridge.be_project.outbox;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers outbox events to the registered {@link OutboxHandler}s.
+ * <p>
+ * Each poll claims a batch with UPDLOCK/READPAST (so several nodes never claim the same rows) and moves
+ * the claimed rows' available_at to a lease deadline. An event is not claimable while an earlier event of
+ * the same aggregate is still pending with a future available_at (leased or waiting for a retry), which
+ * keeps delivery ordered per aggregate across nodes. Within a batch the events of one aggregate run in
+ * order on one thread; different aggregates run in parallel. An event's handlers and its DONE mark commit in
+ * one transaction. A failed event is retried with exponential
+ * backoff and, after {@code max-attempts}, marked DEAD so it stops blocking its aggregate.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    private static final String CLAIM_SQL =
+            "WITH batch AS (" +
+            "  SELECT TOP (?) * FROM outbox_events e WITH (UPDLOCK, READPAST, ROWLOCK) " +
+            "  WHERE e.status = 'PENDING' AND e.available_at <= ? " +
+            "    AND NOT EXISTS (SELECT 1 FROM outbox_events p WHERE p.aggregate_type = e.aggregate_type " +
+            "      AND p.aggregate_id = e.aggregate_id AND p.status = 'PENDING' AND p.id < e.id AND p.available_at > ?) " +
+            "  ORDER BY e.id) " +
+            "UPDATE batch SET available_at = ?, locked_by = ? " +
+            "OUTPUT inserted.id, inserted.aggregate_type, inserted.aggregate_id, inserted.event_type, inserted.payload, inserted.attempts";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final List<OutboxHandler> handlers;
+    private final ExecutorService workers;
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter dead;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @Value("${outbox.dispatcher.enabled:true}")
+    private boolean enabled;
+
+    @Value("${outbox.dispatcher.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.dispatcher.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${outbox.dispatcher.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.dispatcher.backoff-base-ms:1000}")
+    private long backoffBaseMs;
+
+    @Value("${outbox.dispatcher.backoff-max-ms:600000}")
+    private long backoffMaxMs;
+
+    @Value("${outbox.retention-days:7}")
+    private int retentionDays;
+
+    public OutboxDispatcher(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            ObjectMapper objectMapper, List<OutboxHandler> handlers, MeterRegistry meterRegistry,
+                            @Value("${outbox.dispatcher.parallelism:4}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.handlers = handlers;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(parallelism, 1), runnable -> {
+            Thread thread = new Thread(runnable, "outbox-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.delivered = Counter.builder("outbox.delivered")
+                .description("Outbox events delivered to all their handlers")
+                .register(meterRegistry);
+        this.retried = Counter.builder("outbox.retried")
+                .description("Outbox deliveries that failed and were rescheduled")
+                .register(meterRegistry);
+        this.dead = Counter.builder("outbox.dead")
+                .description("Outbox events given up on after max-attempts")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest pending outbox event")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.dispatcher.poll-ms:1000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Keep draining while batches come back full
+            int claimed;
+            do {
+                claimed = dispatchBatch();
+            } while (claimed == batchSize);
+            updateLag();
+        } catch (Exception e) {
+            System.err.println("Outbox dispatch failed: " + e.getMessage());
+        }
+    }
+
+    // Claim and deliver one batch; returns the number of events claimed
+    public int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp nowTs = Timestamp.valueOf(now);
+        List<OutboxMessage> claimed = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new OutboxMessage(
+                        rs.getLong("id"), rs.getString("aggregate_type"), rs.getString("aggregate_id"),
+                        rs.getString("event_type"), parse(rs.getString("payload")), rs.getInt("attempts")),
+                batchSize, nowTs, nowTs, Timestamp.valueOf(now.plusSeconds(leaseSeconds)), nodeId);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        // OUTPUT order is not guaranteed: group by aggregate, then id order inside each group
+        Map<String, List<OutboxMessage>> byAggregate = new LinkedHashMap<>();
+        claimed.stream()
+                .sorted((a, b) -> Long.compare(a.id(), b.id()))
+                .forEach(m -> byAggregate.computeIfAbsent(m.aggregateType() + ":" + m.aggregateId(), k -> new ArrayList<>()).add(m));
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(byAggregate.size());
+        for (List<OutboxMessage> events : byAggregate.values()) {
+            futures.add(CompletableFuture.runAsync(() -> deliverInOrder(events), workers));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+        return claimed.size();
+    }
+
+    @Scheduled(cron = "${outbox.cleanup-cron:0 15 * * * *}")
+    public void purgeDelivered() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays));
+            int deleted;
+            long total = 0;
+            do {
+                deleted = jdbcTemplate.update(
+                        "DELETE TOP (1000) FROM outbox_events WHERE status = 'DONE' AND processed_at < ?", cutoff);
+                total += deleted;
+            } while (deleted == 1000);
+            if (total > 0) {
+                System.out.println("Outbox cleanup removed " + total + " delivered events");
+            }
+        } catch (Exception e) {
+            System.err.println("Outbox cleanup failed: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdown();
+    }
+
+    private void deliverInOrder(List<OutboxMessage> events) {
+        for (int i = 0; i < events.size(); i++) {
+            OutboxMessage message = events.get(i);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    handleAll(message);
+                    jdbcTemplate.update("UPDATE outbox_events SET status = 'DONE', processed_at = ?, locked_by = NULL, " +
+                            "attempts = attempts + 1 WHERE id = ?", Timestamp.valueOf(LocalDateTime.now()), message.id());
+                });
+                delivered.increment();
+            } catch (Exception e) {
+                fail(message, e);
+                // Later events of this aggregate wait behind the failed one: release their lease
+                List<Long> rest = events.subList(i + 1, events.size()).stream().map(OutboxMessage::id).toList();
+                for (Long id : rest) {
+                    jdbcTemplate.update("UPDATE outbox_events SET available_at = ?, locked_by = NULL WHERE id = ?",
+                            Timestamp.valueOf(LocalDateTime.now()), id);
+                }
+                return;
+            }
+        }
+    }
+
+    private void handleAll(OutboxMessage message) {
+        for (OutboxHandler handler : handlers) {
+            if (handler.supports(message.eventType())) {
+                try {
+                    handler.handle(message);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private void fail(OutboxMessage message, Exception error) {
+        int attempts = message.attempts() + 1;
+        String reason = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        if (reason.length() > 1000) {
+            reason = reason.substring(0, 1000);
+        }
+        if (attempts >= maxAttempts) {
+            jdbcTemplate.update("UPDATE outbox_events SET status = 'DEAD', attempts = ?, last_error = ?, processed_at = ?, " +
+                    "locked_by = NULL WHERE id = ?", attempts, reason, Timestamp.valueOf(LocalDateTime.now()), message.id());
+            dead.increment();
+            System.err.println("Outbox event " + message.id() + " (" + message.eventType() + ") gave up after "
+                    + attempts + " attempts: " + reason);
+            return;
+        }
+        long delay = Math.min(backoffMaxMs, backoffBaseMs * (1L << Math.min(attempts - 1, 20)));
+        jdbcTemplate.update("UPDATE outbox_events SET attempts = ?, last_error = ?, available_at = ?, locked_by = NULL " +
+                "WHERE id = ?", attempts, reason, Timestamp.valueOf(LocalDateTime.now().plus(Duration.ofMillis(delay))), message.id());
+        retried.increment();
+    }
+
+    private void updateLag() {
+        Timestamp oldest = jdbcTemplate.queryForObject(
+                "SELECT MIN(created_at) FROM outbox_events WHERE status = 'PENDING'", Timestamp.class);
+        lagSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest.toLocalDateTime(), LocalDateTime.now()).getSeconds()));
+    }
+
+    private Map<String, Object> parse(String payload) {
+        try {
+            return objectMapper.readValue(payload, PAYLOAD_TYPE);
+        } catch (Exception e) {
+            // Unparseable payloads still reach handlers (and fail there) rather than blocking the claim
+            return Map.of();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.mathbridge.be_project.outbox;
+
+import com.mathbridge.be_project.common.OutboxStatus;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A domain event written in the same transaction as the change that caused it and delivered later by
+ * {@link OutboxDispatcher}. Events of one aggregate (aggregate_type, aggregate_id) are delivered in id order.
+ */
+@Entity
+// The claim scan uses the filtered index IX_outbox_events_pending from V12, which JPA cannot declare
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "IX_outbox_events_aggregate", columnList = "aggregate_type, aggregate_id, id")
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "aggregate_type", nullable = false, length = 50, updatable = false)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false, length = 64, updatable = false)
+    private String aggregateId;
+
+    @Column(name = "event_type", nullable = false, length = 100, updatable = false)
+    private String eventType;
+
+    // JSON object
+    @Column(name = "payload", nullable = false, columnDefinition = "NVARCHAR(MAX)", updatable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    // Not delivered before this time (retry backoff, or a dispatcher's lease while it is being delivered)
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "locked_by", length = 100)
+    private String lockedBy;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (availableAt == null) {
+            availableAt = createdAt;
+        }
+    }
+
+    public OutboxEvent() {}
+
+    public OutboxEvent(String aggregateType, String aggregateId, String eventType, String payload) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public String getAggregateId() {
+        return aggregateId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public OutboxStatus getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getAvailableAt() {
+        return availableAt;
+    }
+
+    public String getLockedBy() {
+        return lockedBy;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+}
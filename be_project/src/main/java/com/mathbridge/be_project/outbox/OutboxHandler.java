@@ -0,0 +1,14 @@
+package com.mathbridge.be_project.outbox;
+
+/**
+ * In-process consumer of outbox events; every Spring bean implementing it is registered with the dispatcher.
+ * Delivery is at-least-once (an event is retried if any of its handlers throws), so handlers must be idempotent.
+ * All handlers of an event run in one transaction together with marking the event DONE, so database writes
+ * made here either commit with the delivery or are rolled back and retried.
+ */
+public interface OutboxHandler {
+
+    boolean supports(String eventType);
+
+    void handle(OutboxMessage message) throws Exception;
+}
@@ -0,0 +1,20 @@
+package com.mathbridge.be_project.outbox;
+
+import java.util.Map;
+
+/**
+ * An outbox event as handed to {@link OutboxHandler}s, with the JSON payload already parsed.
+ */
+public record OutboxMessage(Long id, String aggregateType, String aggregateId, String eventType,
+                            Map<String, Object> payload, int attempts) {
+
+    public Long getLong(String key) {
+        Object value = payload.get(key);
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    public String getString(String key) {
+        Object value = payload.get(key);
+        return value != null ? value.toString() : null;
+    }
+}
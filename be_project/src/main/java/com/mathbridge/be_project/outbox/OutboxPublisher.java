@@ -0,0 +1,32 @@
+package com.mathbridge.be_project.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+@Component
+public class OutboxPublisher {
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxPublisher(OutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // Record an event as part of the caller's transaction: it is delivered only if that transaction commits
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String aggregateType, Object aggregateId, String eventType, Map<String, Object> payload) {
+        try {
+            outboxRepository.save(new OutboxEvent(aggregateType, String.valueOf(aggregateId), eventType,
+                    objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable: " + e.getMessage(), e);
+        }
+    }
+}
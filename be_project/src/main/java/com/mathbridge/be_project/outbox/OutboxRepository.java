@@ -0,0 +1,8 @@
+package com.mathbridge.be_project.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+}
@@ -0,0 +1,119 @@
+package com.mathbridge.be_project.presence;
+
+import com.mathbridge.be_project.security.StompAuthChannelInterceptor;
+import com.mathbridge.be_project.user.User;
+import com.mathbridge.be_project.user.UserDirectory;
+import com.mathbridge.be_project.user.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/presence")
+@RequiredArgsConstructor
+public class PresenceController {
+
+    private static final int MAX_IDS = 200;
+
+    private final PresenceService presenceService;
+    private final UserDirectory userDirectory;
+    private final UserService userService;
+
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        String email = authentication.getName();
+        if (email == null || email.isEmpty()) {
+            return null;
+        }
+        return userService.getUserByEmail(email).orElse(null);
+    }
+
+    // Presence of up to 200 users in one call: GET /api/presence?ids=1,2,3
+    @GetMapping
+    public ResponseEntity<?> getPresence(@RequestParam("ids") String ids) {
+        try {
+            User user = getCurrentUser();
+            if (user == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(createErrorResponse("User not authenticated"));
+            }
+            Set<Long> userIds = new LinkedHashSet<>();
+            for (String part : ids.split(",")) {
+                if (!part.isBlank()) {
+                    userIds.add(Long.parseLong(part.trim()));
+                }
+            }
+            if (userIds.size() > MAX_IDS) {
+                return ResponseEntity.badRequest()
+                        .body(createErrorResponse("Tối đa " + MAX_IDS + " người dùng mỗi lần truy vấn"));
+            }
+            return ResponseEntity.ok(presenceService.getPresence(userIds, user.getId()));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse("Danh sách ids không hợp lệ"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Failed to get presence: " + e.getMessage()));
+        }
+    }
+
+    // Heartbeat for clients without a WebSocket connection
+    @PostMapping("/heartbeat")
+    public ResponseEntity<?> heartbeat() {
+        User user = getCurrentUser();
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(createErrorResponse("User not authenticated"));
+        }
+        presenceService.heartbeat(user.getId());
+        return ResponseEntity.noContent().build();
+    }
+
+    // STOMP: SEND /app/presence.heartbeat
+    @MessageMapping("/presence.heartbeat")
+    public void stompHeartbeat(SimpMessageHeaderAccessor accessor) {
+        Long userId = sessionUserId(accessor);
+        if (userId != null) {
+            presenceService.heartbeat(userId);
+        }
+    }
+
+    // STOMP: SEND /app/presence.typing {"toUserId": 5, "typing": true}
+    @MessageMapping("/presence.typing")
+    public void stompTyping(@Payload Map<String, Object> payload, SimpMessageHeaderAccessor accessor) {
+        Long userId = sessionUserId(accessor);
+        Object to = payload.get("toUserId");
+        if (userId == null || !(to instanceof Number)) {
+            return;
+        }
+        Long toUserId = ((Number) to).longValue();
+        boolean typing = !Boolean.FALSE.equals(payload.get("typing"));
+        userDirectory.find(toUserId).ifPresent(target ->
+                presenceService.typing(userId, toUserId, target.getEmail(), typing));
+    }
+
+    private Long sessionUserId(SimpMessageHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        Object value = attributes != null ? attributes.get(StompAuthChannelInterceptor.USER_ID_ATTRIBUTE) : null;
+        return value instanceof Long id ? id : null;
+    }
+
+    private Map<String, String> createErrorResponse(String message) {
+        Map<String, String> response = new HashMap<>();
+        response.put("error", message);
+        return response;
+    }
+}
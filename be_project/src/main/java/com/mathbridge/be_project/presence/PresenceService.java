@@ -0,0 +1,189 @@
+package com.mathbridge.be_project.presence;
+
+import com.mathbridge.be_project.common.TimingWheel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Online/typing state held only in memory.
+ * <p>
+ * Each connected user costs one small {@link State} entry plus a slot in a timing wheel. Heartbeats
+ * push the online deadline forward; when it passes, the wheel returns the user and the entry is
+ * dropped, so memory tracks connected users only. Changes are pushed on /topic/presence.{userId};
+ * typing notices go only to the person being typed to, on /user/queue/typing.
+ */
+@Service
+public class PresenceService {
+
+    private static final long TICK_MILLIS = 500;
+    private static final int WHEEL_SIZE = 128;
+
+    private static final class State {
+        private volatile long lastSeen;
+        private volatile Long typingTo;
+        private volatile String typingToEmail;
+
+        private State(long lastSeen) {
+            this.lastSeen = lastSeen;
+        }
+    }
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Map<Long, State> states = new ConcurrentHashMap<>();
+    private final TimingWheel<Long> onlineWheel;
+    private final TimingWheel<Long> typingWheel;
+
+    @Value("${presence.online-ttl-ms:45000}")
+    private long onlineTtlMs;
+
+    @Value("${presence.typing-ttl-ms:6000}")
+    private long typingTtlMs;
+
+    @Value("${presence.max-users:100000}")
+    private int maxUsers;
+
+    public PresenceService(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+        long now = System.currentTimeMillis();
+        this.onlineWheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, now);
+        this.typingWheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, now);
+    }
+
+    // User is active; publishes "online" only on the offline -> online transition
+    public void heartbeat(Long userId) {
+        long now = System.currentTimeMillis();
+        State state = states.get(userId);
+        if (state == null) {
+            if (states.size() >= maxUsers) {
+                return;
+            }
+            State created = new State(now);
+            state = states.putIfAbsent(userId, created);
+            if (state == null) {
+                onlineWheel.schedule(userId, now + onlineTtlMs);
+                publishPresence(userId, created);
+                return;
+            }
+        }
+        state.lastSeen = now;
+        onlineWheel.schedule(userId, now + onlineTtlMs);
+    }
+
+    // Start or stop typing to another user; typing also counts as a heartbeat
+    public void typing(Long userId, Long toUserId, String toUserEmail, boolean isTyping) {
+        heartbeat(userId);
+        State state = states.get(userId);
+        if (state == null) {
+            return;
+        }
+        if (isTyping) {
+            boolean changed = !toUserId.equals(state.typingTo);
+            if (changed && state.typingTo != null) {
+                publishTyping(userId, state.typingToEmail, false);
+            }
+            state.typingTo = toUserId;
+            state.typingToEmail = toUserEmail;
+            typingWheel.schedule(userId, System.currentTimeMillis() + typingTtlMs);
+            if (changed) {
+                publishTyping(userId, toUserEmail, true);
+            }
+        } else if (state.typingTo != null) {
+            clearTyping(userId, state);
+        }
+    }
+
+    // Presence of the given users as seen by viewerId (typing is only reported towards the viewer)
+    public List<Map<String, Object>> getPresence(Collection<Long> userIds, Long viewerId) {
+        List<Map<String, Object>> result = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            State state = states.get(userId);
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("userId", userId);
+            entry.put("online", state != null);
+            entry.put("lastSeen", state != null ? state.lastSeen : null);
+            entry.put("typing", state != null && viewerId.equals(state.typingTo));
+            result.add(entry);
+        }
+        return result;
+    }
+
+    public int getOnlineCount() {
+        return states.size();
+    }
+
+    @Scheduled(fixedDelay = TICK_MILLIS)
+    public void expire() {
+        long now = System.currentTimeMillis();
+        for (Long userId : typingWheel.advance(now)) {
+            State state = states.get(userId);
+            if (state != null && state.typingTo != null) {
+                clearTyping(userId, state);
+            }
+        }
+        for (Long userId : onlineWheel.advance(now)) {
+            State state = states.remove(userId);
+            if (state != null) {
+                if (state.typingTo != null) {
+                    typingWheel.cancel(userId);
+                    publishTyping(userId, state.typingToEmail, false);
+                }
+                publishOffline(userId, state.lastSeen);
+            }
+        }
+    }
+
+    private void clearTyping(Long userId, State state) {
+        String toEmail = state.typingToEmail;
+        state.typingTo = null;
+        state.typingToEmail = null;
+        typingWheel.cancel(userId);
+        publishTyping(userId, toEmail, false);
+    }
+
+    private void publishPresence(Long userId, State state) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("userId", userId);
+        payload.put("online", true);
+        payload.put("lastSeen", state.lastSeen);
+        send("/topic/presence." + userId, payload);
+    }
+
+    private void publishOffline(Long userId, long lastSeen) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("userId", userId);
+        payload.put("online", false);
+        payload.put("lastSeen", lastSeen);
+        send("/topic/presence." + userId, payload);
+    }
+
+    private void publishTyping(Long userId, String toEmail, boolean isTyping) {
+        if (toEmail == null) {
+            return;
+        }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("userId", userId);
+        payload.put("typing", isTyping);
+        try {
+            messagingTemplate.convertAndSendToUser(toEmail, "/queue/typing", payload);
+        } catch (Exception e) {
+            System.err.println("Failed to push typing state: " + e.getMessage());
+        }
+    }
+
+    private void send(String destination, Map<String, Object> payload) {
+        try {
+            messagingTemplate.convertAndSend(destination, payload);
+        } catch (Exception e) {
+            System.err.println("Failed to push presence: " + e.getMessage());
+        }
+    }
+}
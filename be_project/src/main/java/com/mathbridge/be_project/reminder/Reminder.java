@@ -0,0 +1,122 @@
+package com.mathbridge.be_project.reminder;
+
+import com.mathbridge.be_project.common.ReminderStatus;
+import com.mathbridge.be_project.common.ReminderType;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "reminders", indexes = {
+        @Index(name = "IX_reminders_status_fire_at", columnList = "status, fire_at"),
+        @Index(name = "IX_reminders_session_id", columnList = "session_id")
+})
+public class Reminder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "session_id", nullable = false)
+    private Long sessionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 20)
+    private ReminderType type;
+
+    @Column(name = "fire_at", nullable = false)
+    private LocalDateTime fireAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private ReminderStatus status = ReminderStatus.PENDING;
+
+    @Column(name = "fired_at")
+    private LocalDateTime firedAt;
+
+    // Node that claimed and delivered the reminder
+    @Column(name = "fired_by", length = 100)
+    private String firedBy;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public Reminder() {}
+
+    public Reminder(Long sessionId, ReminderType type, LocalDateTime fireAt) {
+        this.sessionId = sessionId;
+        this.type = type;
+        this.fireAt = fireAt;
+        this.status = ReminderStatus.PENDING;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public ReminderType getType() {
+        return type;
+    }
+
+    public void setType(ReminderType type) {
+        this.type = type;
+    }
+
+    public LocalDateTime getFireAt() {
+        return fireAt;
+    }
+
+    public void setFireAt(LocalDateTime fireAt) {
+        this.fireAt = fireAt;
+    }
+
+    public ReminderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ReminderStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getFiredAt() {
+        return firedAt;
+    }
+
+    public void setFiredAt(LocalDateTime firedAt) {
+        this.firedAt = firedAt;
+    }
+
+    public String getFiredBy() {
+        return firedBy;
+    }
+
+    public void setFiredBy(String firedBy) {
+        this.firedBy = firedBy;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,73 @@
+package com.mathbridge.be_project.reminder;
+
+import com.mathbridge.be_project.common.ReminderType;
+import com.mathbridge.be_project.notification.NotificationService;
+import com.mathbridge.be_project.session.Session;
+import com.mathbridge.be_project.session.SessionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+@Service
+public class ReminderDispatcher {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
+    private final ReminderRepository reminderRepository;
+    private final SessionRepository sessionRepository;
+    private final NotificationService notificationService;
+
+    public ReminderDispatcher(ReminderRepository reminderRepository, SessionRepository sessionRepository,
+                              NotificationService notificationService) {
+        this.reminderRepository = reminderRepository;
+        this.sessionRepository = sessionRepository;
+        this.notificationService = notificationService;
+    }
+
+    // Claim and deliver a due reminder; returns false if it was cancelled or another node already fired it
+    @Transactional
+    public boolean fire(Long reminderId, String node) {
+        LocalDateTime now = LocalDateTime.now();
+        if (reminderRepository.claim(reminderId, now, node) == 0) {
+            return false;
+        }
+
+        Optional<Reminder> reminderOpt = reminderRepository.findById(reminderId);
+        if (reminderOpt.isEmpty()) {
+            return false;
+        }
+        Reminder reminder = reminderOpt.get();
+
+        Optional<Session> sessionOpt = sessionRepository.findByIdWithParticipants(reminder.getSessionId());
+        if (sessionOpt.isEmpty()) {
+            return true;
+        }
+        Session session = sessionOpt.get();
+
+        // A "before session" reminder that was delayed past the session start is no longer useful
+        if (reminder.getType() == ReminderType.BEFORE_SESSION && session.getScheduledDate().isBefore(now)) {
+            return true;
+        }
+
+        String message = buildMessage(reminder, session);
+        String type = reminder.getType() == ReminderType.CONFIRMATION ? "SESSION_CONFIRMED" : "SESSION_REMINDER";
+        if (session.getTutor() != null && session.getTutor().getUser() != null) {
+            notificationService.createNotification(session.getTutor().getUser().getId(), message, type);
+        }
+        if (session.getStudent() != null && session.getStudent().getUser() != null) {
+            notificationService.createNotification(session.getStudent().getUser().getId(), message, type);
+        }
+        return true;
+    }
+
+    private String buildMessage(Reminder reminder, Session session) {
+        String when = session.getScheduledDate().format(TIME_FORMAT);
+        if (reminder.getType() == ReminderType.CONFIRMATION) {
+            return "Buổi học " + session.getSubject() + " lúc " + when + " đã được xác nhận";
+        }
+        return "Nhắc lịch: buổi học " + session.getSubject() + " sẽ bắt đầu lúc " + when;
+    }
+}
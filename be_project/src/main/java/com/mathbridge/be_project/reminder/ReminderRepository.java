@@ -0,0 +1,33 @@
+package com.mathbridge.be_project.reminder;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReminderRepository extends JpaRepository<Reminder, Long> {
+
+    // Pending reminders due before the given time (next scheduling window)
+    @Query("SELECT r FROM Reminder r WHERE r.status = 'PENDING' AND r.fireAt < :until ORDER BY r.fireAt ASC")
+    List<Reminder> findPendingDueBefore(@Param("until") LocalDateTime until);
+
+    // Pending reminders of a session
+    @Query("SELECT r FROM Reminder r WHERE r.sessionId = :sessionId AND r.status = 'PENDING'")
+    List<Reminder> findPendingBySessionId(@Param("sessionId") Long sessionId);
+
+    // Cancel pending reminders of a session
+    @Modifying
+    @Query("UPDATE Reminder r SET r.status = 'CANCELLED' WHERE r.sessionId = :sessionId AND r.status = 'PENDING'")
+    int cancelPendingBySessionId(@Param("sessionId") Long sessionId);
+
+    // Atomically claim a pending reminder; only one node can move it out of PENDING
+    @Modifying
+    @Query("UPDATE Reminder r SET r.status = 'FIRED', r.firedAt = :now, r.firedBy = :node " +
+           "WHERE r.id = :id AND r.status = 'PENDING'")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("node") String node);
+}
@@ -0,0 +1,94 @@
+package com.mathbridge.be_project.reminder;
+
+import com.mathbridge.be_project.common.TimingWheel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Keeps the reminders of the next window (reminders.window-minutes) in an in-memory timing wheel
+ * and fires them when due. The reminders table stays the source of truth: every node loads the same
+ * window, and {@link ReminderRepository#claim} makes sure only one node delivers each reminder.
+ */
+@Component
+public class ReminderScheduler {
+
+    private final ReminderRepository reminderRepository;
+    private final ReminderDispatcher reminderDispatcher;
+
+    // 1s x 60 buckets, higher levels (minutes, hours) are added by the wheel as needed
+    private final TimingWheel<Long> wheel = new TimingWheel<>(1000, 60, System.currentTimeMillis());
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+
+    @Value("${reminders.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reminders.window-minutes:60}")
+    private long windowMinutes;
+
+    // Reminders firing before this time are already loaded into the wheel
+    private volatile LocalDateTime loadedUntil = LocalDateTime.MIN;
+
+    public ReminderScheduler(ReminderRepository reminderRepository, ReminderDispatcher reminderDispatcher) {
+        this.reminderRepository = reminderRepository;
+        this.reminderDispatcher = reminderDispatcher;
+    }
+
+    // Load the next window of pending reminders (runs at startup, then slides the window forward)
+    @Scheduled(fixedDelayString = "${reminders.refill-interval-ms:60000}")
+    public void refill() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            LocalDateTime until = LocalDateTime.now().plusMinutes(windowMinutes);
+            for (Reminder reminder : reminderRepository.findPendingDueBefore(until)) {
+                wheel.schedule(reminder.getId(), toEpochMillis(reminder.getFireAt()));
+            }
+            loadedUntil = until;
+        } catch (Exception e) {
+            System.err.println("Failed to load pending reminders: " + e.getMessage());
+        }
+    }
+
+    // Advance the wheel and deliver reminders that became due
+    @Scheduled(fixedDelayString = "${reminders.tick-ms:1000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> due = wheel.advance(System.currentTimeMillis());
+        for (Long reminderId : due) {
+            try {
+                reminderDispatcher.fire(reminderId, nodeId);
+            } catch (Exception e) {
+                // Stays PENDING in the database, the next refill picks it up again
+                System.err.println("Failed to fire reminder " + reminderId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Track a newly committed reminder if it falls inside the loaded window
+    public void track(Reminder reminder) {
+        if (enabled && reminder.getFireAt().isBefore(loadedUntil)) {
+            wheel.schedule(reminder.getId(), toEpochMillis(reminder.getFireAt()));
+        }
+    }
+
+    public void untrack(Long reminderId) {
+        wheel.cancel(reminderId);
+    }
+
+    public int getScheduledCount() {
+        return wheel.size();
+    }
+
+    private long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,81 @@
+package com.mathbridge.be_project.reminder;
+
+import com.mathbridge.be_project.common.ReminderType;
+import com.mathbridge.be_project.common.SessionStatus;
+import com.mathbridge.be_project.session.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@Transactional
+public class ReminderService {
+
+    private final ReminderRepository reminderRepository;
+    private final ReminderScheduler reminderScheduler;
+
+    @Value("${reminders.lead-minutes:30}")
+    private long leadMinutes;
+
+    public ReminderService(ReminderRepository reminderRepository, ReminderScheduler reminderScheduler) {
+        this.reminderRepository = reminderRepository;
+        this.reminderScheduler = reminderScheduler;
+    }
+
+    // (Re)schedule the reminder sent leadMinutes before an active session starts
+    public void scheduleForSession(Session session) {
+        cancelForSession(session.getId());
+        if (session.getStatus() != SessionStatus.SCHEDULED && session.getStatus() != SessionStatus.CONFIRMED) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!session.getScheduledDate().isAfter(now)) {
+            return;
+        }
+        LocalDateTime fireAt = session.getScheduledDate().minusMinutes(leadMinutes);
+        if (fireAt.isBefore(now)) {
+            fireAt = now;
+        }
+        track(reminderRepository.save(new Reminder(session.getId(), ReminderType.BEFORE_SESSION, fireAt)));
+    }
+
+    // Session confirmed: notify right away and keep the upcoming reminder in place
+    public void onSessionConfirmed(Session session) {
+        scheduleForSession(session);
+        track(reminderRepository.save(new Reminder(session.getId(), ReminderType.CONFIRMATION, LocalDateTime.now())));
+    }
+
+    // Cancel every pending reminder of a session
+    public void cancelForSession(Long sessionId) {
+        List<Reminder> pending = reminderRepository.findPendingBySessionId(sessionId);
+        if (pending.isEmpty()) {
+            return;
+        }
+        reminderRepository.cancelPendingBySessionId(sessionId);
+        afterCommit(() -> pending.forEach(reminder -> reminderScheduler.untrack(reminder.getId())));
+    }
+
+    private void track(Reminder reminder) {
+        afterCommit(() -> reminderScheduler.track(reminder));
+    }
+
+    // The in-memory wheel only learns about changes once they are durable
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -16,6 +16,8 @@ import java.io.IOException;
 @Component
 @RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
+    private static final String STREAM_PATH = "/api/notifications/stream";
+
     private final JwtUtils jwtUtils;
     private final UserService userService;
 
@@ -24,13 +26,21 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        String token;
+        boolean valid;
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            token = authHeader.substring(7);
+            valid = jwtUtils.isTokenValid(token);
+        } else if (STREAM_PATH.equals(request.getRequestURI()) && request.getParameter("ticket") != null) {
+            // EventSource cannot set headers: the stream takes a short-lived ?ticket= instead of the login JWT
+            token = request.getParameter("ticket");
+            valid = jwtUtils.isStreamTicketValid(token);
+        } else {
             filterChain.doFilter(request, response);
             return;
         }
 
-        String token = authHeader.substring(7);
-        if (jwtUtils.isTokenValid(token)) {
+        if (valid) {
             String email = jwtUtils.extractEmail(token);
             var user = userService.getUserByEmail(email).orElse(null);
 
@@ -7,15 +7,22 @@ import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Objects;
 
 @Component
 public class JwtUtils {
+    private static final String PURPOSE_CLAIM = "purpose";
+    private static final String STREAM_TICKET_PURPOSE = "notification-stream";
+
     @Value("${jwt.secret:YOUR_SUPER_SECRET_KEY_256BIT_!!!}")
     private String secretKey;
 
     @Value("${jwt.expiration-ms:86400000}")
     private long expirationMs;
 
+    @Value("${jwt.stream-ticket-ms:60000}")
+    private long streamTicketMs;
+
     private Key getSigningKey() {
         return Keys.hmacShaKeyFor(secretKey.getBytes());
     }
@@ -30,6 +37,21 @@ public class JwtUtils {
                 .compact();
     }
 
+    // Short-lived token that only opens the notification stream (EventSource cannot send an Authorization header)
+    public String generateStreamTicket(String email) {
+        return Jwts.builder()
+                .setSubject(email)
+                .claim(PURPOSE_CLAIM, STREAM_TICKET_PURPOSE)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + streamTicketMs))
+                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    public long getStreamTicketMs() {
+        return streamTicketMs;
+    }
+
     public String extractEmail(String token) {
         return Jwts.parserBuilder().setSigningKey(getSigningKey()).build()
                 .parseClaimsJws(token)
@@ -37,10 +59,19 @@ public class JwtUtils {
                 .getSubject();
     }
 
+    // Login token; stream tickets are rejected here
     public boolean isTokenValid(String token) {
+        return hasPurpose(token, null);
+    }
+
+    public boolean isStreamTicketValid(String token) {
+        return hasPurpose(token, STREAM_TICKET_PURPOSE);
+    }
+
+    private boolean hasPurpose(String token, String purpose) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
-            return true;
+            Claims claims = Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token).getBody();
+            return Objects.equals(claims.get(PURPOSE_CLAIM, String.class), purpose);
         } catch (JwtException e) {
             return false;
         }
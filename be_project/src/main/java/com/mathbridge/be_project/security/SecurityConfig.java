@@ -1,5 +1,6 @@
 package com.mathbridge.be_project.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.*;
 import org.springframework.security.authentication.*;
@@ -43,6 +44,8 @@ public class SecurityConfig {
         http.csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
+                        // Re-dispatch of an already authorized async request (SSE stream completion)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
 
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/test/**").permitAll()
@@ -52,6 +55,10 @@ public class SecurityConfig {
                         .requestMatchers("/api/tutors/**").authenticated()
                         // Allow feedback endpoints without authentication
                         .requestMatchers("/api/feedback/**").permitAll()
+                        // Calendar feeds are protected by the secret token in the URL
+                        .requestMatchers("/api/calendar/feed/**").permitAll()
+                        // WebSocket handshake; STOMP CONNECT carries the JWT
+                        .requestMatchers("/ws/**").permitAll()
 
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
 
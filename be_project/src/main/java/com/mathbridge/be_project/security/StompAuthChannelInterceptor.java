@@ -0,0 +1,65 @@
+package com.mathbridge.be_project.security;
+
+import com.mathbridge.be_project.user.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Authenticates STOMP CONNECT frames with the "Authorization: Bearer ..." native header
+ * (browsers cannot set headers on the WebSocket handshake itself).
+ */
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+    public static final String USER_ID_ATTRIBUTE = "userId";
+
+    private final JwtUtils jwtUtils;
+    private final UserService userService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            String authHeader = accessor.getFirstNativeHeader("Authorization");
+            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                throw new MessagingException("Missing bearer token");
+            }
+
+            String token = authHeader.substring(7);
+            if (!jwtUtils.isTokenValid(token)) {
+                throw new MessagingException("Invalid token");
+            }
+
+            String email = jwtUtils.extractEmail(token);
+            var user = userService.getUserByEmail(email)
+                    .orElseThrow(() -> new MessagingException("User not found"));
+            var authorities = List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
+            accessor.setUser(new UsernamePasswordAuthenticationToken(email, null, authorities));
+            // Lets message handlers (presence heartbeats) identify the user without a lookup
+            if (accessor.getSessionAttributes() != null) {
+                accessor.getSessionAttributes().put(USER_ID_ATTRIBUTE, user.getId());
+            }
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand()) || StompCommand.SEND.equals(accessor.getCommand())) {
+            // Everything after CONNECT must come from an authenticated session
+            if (accessor.getUser() == null) {
+                throw new MessagingException("Not authenticated");
+            }
+        }
+        return message;
+    }
+}
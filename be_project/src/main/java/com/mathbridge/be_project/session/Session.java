@@ -12,7 +12,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sessions")
+@Table(name = "sessions", indexes = {
+        @Index(name = "IX_sessions_status_scheduled_date", columnList = "status, scheduled_date")
+})
 public class Session {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,45 @@
+package com.mathbridge.be_project.session;
+
+/**
+ * Published by SessionService (and the lifecycle sweeper) whenever session state changes.
+ * A null tutorId/studentId means many sessions changed at once and per-owner caches should be dropped.
+ */
+public class SessionChangedEvent {
+
+    private final Long sessionId;
+    private final Long tutorId;
+    private final Long studentId;
+
+    public SessionChangedEvent(Long sessionId, Long tutorId, Long studentId) {
+        this.sessionId = sessionId;
+        this.tutorId = tutorId;
+        this.studentId = studentId;
+    }
+
+    public static SessionChangedEvent of(Session session) {
+        return new SessionChangedEvent(session.getId(),
+                session.getTutor() != null ? session.getTutor().getId() : null,
+                session.getStudent() != null ? session.getStudent().getId() : null);
+    }
+
+    // Bulk change (e.g. sweeper) affecting an unknown set of owners
+    public static SessionChangedEvent bulk() {
+        return new SessionChangedEvent(null, null, null);
+    }
+
+    public boolean isBulk() {
+        return sessionId == null;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public Long getTutorId() {
+        return tutorId;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+}
@@ -10,6 +10,7 @@ import com.mathbridge.be_project.user.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -19,10 +20,14 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/sessions")
@@ -32,6 +37,12 @@ public class SessionController {
     @Autowired
     private SessionService sessionService;
     
+    @Autowired
+    private SessionExportService sessionExportService;
+    
+    @Autowired
+    private SessionSummaryService sessionSummaryService;
+    
     @Autowired
     private TutorService tutorService;
     
@@ -331,6 +342,42 @@ public class SessionController {
         return ResponseEntity.ok(sessions);
     }
     
+    @GetMapping("/export")
+    @Operation(summary = "Export sessions", description = "Stream sessions (optionally within a date range) as NDJSON or CSV, gzip-compressed when the client accepts it")
+    public void exportSessions(
+            @Parameter(description = "Start date") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "End date") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(description = "Export format: ndjson or csv") @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+        SessionExportService.Format exportFormat;
+        try {
+            exportFormat = SessionExportService.Format.fromValue(format);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+        
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"sessions-" + LocalDate.now() + "." + exportFormat.getExtension() + "\"");
+        response.setHeader("Vary", "Accept-Encoding");
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192, true);
+            sessionExportService.exportSessions(startDate, endDate, exportFormat, gzipOut);
+            gzipOut.finish();
+        } else {
+            sessionExportService.exportSessions(startDate, endDate, exportFormat, out);
+        }
+        out.flush();
+    }
+    
     @PutMapping("/{id}")
     @Operation(summary = "Update session", description = "Update session information")
     public ResponseEntity<Session> updateSession(
@@ -421,6 +468,31 @@ public class SessionController {
         return ResponseEntity.ok(count);
     }
     
+    @GetMapping("/tutor/{tutorId}/summary")
+    @Operation(summary = "Session summary for tutor", description = "Counts per status, upcoming/this-week counts and revenue for a tutor in one call")
+    public ResponseEntity<SessionSummary> getTutorSummary(
+            @Parameter(description = "Tutor ID") @PathVariable Long tutorId) {
+        return ResponseEntity.ok(sessionSummaryService.getTutorSummary(tutorId));
+    }
+    
+    @GetMapping("/student/{studentId}/summary")
+    @Operation(summary = "Session summary for student", description = "Counts per status, upcoming/this-week counts and amounts for a student in one call")
+    public ResponseEntity<SessionSummary> getStudentSummary(
+            @Parameter(description = "Student ID") @PathVariable Long studentId) {
+        return ResponseEntity.ok(sessionSummaryService.getStudentSummary(studentId));
+    }
+    
+    @GetMapping("/summary")
+    @Operation(summary = "Session summary for all sessions", description = "Admin dashboard summary over all sessions")
+    public ResponseEntity<?> getOverallSummary() {
+        User currentUser = getCurrentUser();
+        if (currentUser == null || currentUser.getRole() != com.mathbridge.be_project.common.UserRole.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(createErrorResponse("Chỉ quản trị viên mới xem được thống kê tổng"));
+        }
+        return ResponseEntity.ok(sessionSummaryService.getOverallSummary());
+    }
+    
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete session", description = "Delete a session")
     public ResponseEntity<Void> deleteSession(
@@ -0,0 +1,92 @@
+package com.mathbridge.be_project.session;
+
+import com.mathbridge.be_project.common.SessionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat, unmanaged projection of a session used by the export endpoints.
+ * Built directly by a JPQL constructor expression so tutor and student names
+ * come from the same query (no lazy loading, nothing kept in the persistence context).
+ */
+public class SessionExportRow {
+
+    private final Long id;
+    private final String subject;
+    private final LocalDateTime scheduledDate;
+    private final Integer duration;
+    private final SessionStatus status;
+    private final String location;
+    private final BigDecimal hourlyRate;
+    private final BigDecimal totalAmount;
+    private final Long tutorId;
+    private final String tutorName;
+    private final Long studentId;
+    private final String studentName;
+
+    public SessionExportRow(Long id, String subject, LocalDateTime scheduledDate, Integer duration,
+                            SessionStatus status, String location, BigDecimal hourlyRate, BigDecimal totalAmount,
+                            Long tutorId, String tutorName, Long studentId, String studentName) {
+        this.id = id;
+        this.subject = subject;
+        this.scheduledDate = scheduledDate;
+        this.duration = duration;
+        this.status = status;
+        this.location = location;
+        this.hourlyRate = hourlyRate;
+        this.totalAmount = totalAmount;
+        this.tutorId = tutorId;
+        this.tutorName = tutorName;
+        this.studentId = studentId;
+        this.studentName = studentName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public LocalDateTime getScheduledDate() {
+        return scheduledDate;
+    }
+
+    public Integer getDuration() {
+        return duration;
+    }
+
+    public SessionStatus getStatus() {
+        return status;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public BigDecimal getHourlyRate() {
+        return hourlyRate;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public Long getTutorId() {
+        return tutorId;
+    }
+
+    public String getTutorName() {
+        return tutorName;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public String getStudentName() {
+        return studentName;
+    }
+}
@@ -0,0 +1,112 @@
+package com.mathbridge.be_project.session;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mathbridge.be_project.common.CsvWriter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class SessionExportService {
+
+    // Flush to the client every N rows so large exports start downloading immediately
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format fromValue(String value) {
+            for (Format format : Format.values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown export format: " + value);
+        }
+    }
+
+    private final SessionRepository sessionRepository;
+    private final ObjectWriter rowWriter;
+
+    public SessionExportService(SessionRepository sessionRepository, ObjectMapper objectMapper) {
+        this.sessionRepository = sessionRepository;
+        this.rowWriter = objectMapper.writerFor(SessionExportRow.class);
+    }
+
+    // Export sessions (optionally within a date range) straight to the output stream, returns number of rows written
+    @Transactional(readOnly = true)
+    public long exportSessions(LocalDateTime startDate, LocalDateTime endDate, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<SessionExportRow> rows = openStream(startDate, endDate)) {
+            long count = format == Format.CSV ? writeCsv(rows.iterator(), writer) : writeNdjson(rows.iterator(), writer);
+            writer.flush();
+            return count;
+        }
+    }
+
+    private Stream<SessionExportRow> openStream(LocalDateTime startDate, LocalDateTime endDate) {
+        if (startDate == null && endDate == null) {
+            return sessionRepository.streamAllExportRows();
+        }
+        LocalDateTime from = startDate != null ? startDate : LocalDateTime.of(1900, 1, 1, 0, 0);
+        LocalDateTime to = endDate != null ? endDate : LocalDateTime.of(9999, 12, 31, 23, 59);
+        return sessionRepository.streamExportRowsByDateRange(from, to);
+    }
+
+    private long writeNdjson(Iterator<SessionExportRow> rows, Writer writer) throws IOException {
+        long count = 0;
+        while (rows.hasNext()) {
+            writer.write(rowWriter.writeValueAsString(rows.next()));
+            writer.write('\n');
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<SessionExportRow> rows, Writer writer) throws IOException {
+        CsvWriter csv = new CsvWriter(writer);
+        csv.writeBom();
+        csv.writeRow("id", "subject", "scheduledDate", "duration", "status", "location",
+                "hourlyRate", "totalAmount", "tutorId", "tutorName", "studentId", "studentName");
+        long count = 0;
+        while (rows.hasNext()) {
+            SessionExportRow row = rows.next();
+            csv.writeRow(row.getId(), row.getSubject(), row.getScheduledDate(), row.getDuration(), row.getStatus(),
+                    row.getLocation(), row.getHourlyRate(), row.getTotalAmount(), row.getTutorId(), row.getTutorName(),
+                    row.getStudentId(), row.getStudentName());
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                csv.flush();
+            }
+        }
+        return count;
+    }
+}
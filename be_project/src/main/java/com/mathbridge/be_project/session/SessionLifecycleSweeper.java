@@ -0,0 +1,92 @@
+package com.mathbridge.be_project.session;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Moves SCHEDULED/CONFIRMED sessions whose end time (plus a grace period) has passed to EXPIRED,
+ * so "upcoming" and conflict queries stop scanning them.
+ * <p>
+ * Works in small set-based UPDATE chunks, each in its own short transaction, so locks are held
+ * only for one chunk. Safe to run on several nodes: the UPDATE is idempotent and skips rows
+ * locked by another node.
+ */
+@Component
+public class SessionLifecycleSweeper {
+
+    private final SessionRepository sessionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter expiredCounter;
+    private final Timer batchTimer;
+
+    @Value("${sessions.sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sessions.sweeper.batch-size:500}")
+    private int batchSize;
+
+    @Value("${sessions.sweeper.grace-minutes:60}")
+    private long graceMinutes;
+
+    @Value("${sessions.sweeper.pause-ms:100}")
+    private long pauseMs;
+
+    public SessionLifecycleSweeper(SessionRepository sessionRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   ApplicationEventPublisher eventPublisher,
+                                   MeterRegistry meterRegistry) {
+        this.sessionRepository = sessionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.expiredCounter = Counter.builder("sessions.sweeper.expired")
+                .description("Sessions moved to EXPIRED by the lifecycle sweeper")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("sessions.sweeper.batch")
+                .description("Duration of one sweeper UPDATE chunk (time row locks are held)")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${sessions.sweeper.interval-ms:300000}", initialDelayString = "${sessions.sweeper.initial-delay-ms:60000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long total = sweepOnce(LocalDateTime.now().minusMinutes(graceMinutes));
+            if (total > 0) {
+                eventPublisher.publishEvent(SessionChangedEvent.bulk());
+                System.out.println("Session sweeper expired " + total + " sessions");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Session sweeper failed: " + e.getMessage());
+        }
+    }
+
+    // Expire sessions that ended before the cutoff, chunk by chunk; returns number of rows updated
+    public long sweepOnce(LocalDateTime cutoff) throws InterruptedException {
+        long total = 0;
+        while (true) {
+            Integer updated = batchTimer.record(() ->
+                    transactionTemplate.execute(status -> sessionRepository.expireEndedSessions(cutoff, batchSize)));
+            int rows = updated != null ? updated : 0;
+            total += rows;
+            expiredCounter.increment(rows);
+            if (rows < batchSize) {
+                return total;
+            }
+            Thread.sleep(pauseMs);
+        }
+    }
+}
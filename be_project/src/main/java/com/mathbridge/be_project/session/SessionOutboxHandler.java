@@ -0,0 +1,54 @@
+package com.mathbridge.be_project.session;
+
+import com.mathbridge.be_project.notification.NotificationCoalescer;
+import com.mathbridge.be_project.outbox.OutboxHandler;
+import com.mathbridge.be_project.outbox.OutboxMessage;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Asynchronous side effects of session changes, delivered from the outbox. Everything here runs in the
+ * dispatcher's delivery transaction, so notifications (or their pending digest) commit with the DONE mark.
+ */
+@Component
+public class SessionOutboxHandler implements OutboxHandler {
+
+    private static final Set<String> EVENT_TYPES = Set.of(
+            SessionService.EVENT_BOOKED, SessionService.EVENT_CANCELLED, SessionService.EVENT_COMPLETED);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationCoalescer notificationCoalescer;
+
+    public SessionOutboxHandler(JdbcTemplate jdbcTemplate, NotificationCoalescer notificationCoalescer) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.notificationCoalescer = notificationCoalescer;
+    }
+
+    @Override
+    public boolean supports(String eventType) {
+        return EVENT_TYPES.contains(eventType);
+    }
+
+    @Override
+    public void handle(OutboxMessage message) {
+        Long tutorId = message.getLong("tutorId");
+        if (SessionService.EVENT_COMPLETED.equals(message.eventType()) && tutorId != null) {
+            // Recount rather than increment, so a redelivered event cannot double count
+            jdbcTemplate.update("UPDATE tutors SET total_sessions = " +
+                    "(SELECT COUNT(*) FROM sessions WHERE tutor_id = ? AND status = 'COMPLETED') WHERE id = ?", tutorId, tutorId);
+        }
+
+        String text = message.getString("message");
+        Object recipients = message.payload().get("notifyUserIds");
+        if (text != null && recipients instanceof List<?> userIds) {
+            for (Object userId : userIds) {
+                if (userId instanceof Number number) {
+                    notificationCoalescer.submit(number.longValue(), text, message.getString("notificationType"));
+                }
+            }
+        }
+    }
+}
@@ -2,12 +2,17 @@ package com.mathbridge.be_project.session;
 
 import com.mathbridge.be_project.common.SessionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface SessionRepository extends JpaRepository<Session, Long> {
@@ -26,6 +31,15 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
            "WHERE s.student.id = :studentId")
     List<Session> findByStudentId(@Param("studentId") Long studentId);
     
+    // Find session with tutor and student users loaded
+    @Query("SELECT s FROM Session s " +
+           "JOIN FETCH s.tutor t " +
+           "LEFT JOIN FETCH t.user " +
+           "LEFT JOIN FETCH s.student st " +
+           "LEFT JOIN FETCH st.user " +
+           "WHERE s.id = :id")
+    Optional<Session> findByIdWithParticipants(@Param("id") Long id);
+    
     // Find sessions by status
     List<Session> findByStatus(SessionStatus status);
     
@@ -90,4 +104,93 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
     // Count sessions by status for student
     @Query("SELECT COUNT(s) FROM Session s WHERE s.student.id = :studentId AND s.status = :status")
     Long countSessionsByStudentAndStatus(@Param("studentId") Long studentId, @Param("status") SessionStatus status);
+    
+    // Stream export rows by date range (forward-only cursor, must be consumed inside a transaction)
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT new com.mathbridge.be_project.session.SessionExportRow(" +
+           "s.id, s.subject, s.scheduledDate, s.duration, s.status, s.location, s.hourlyRate, s.totalAmount, " +
+           "t.id, tu.fullName, st.id, st.fullName) " +
+           "FROM Session s JOIN s.tutor t JOIN t.user tu JOIN s.student st " +
+           "WHERE s.scheduledDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY s.scheduledDate ASC")
+    Stream<SessionExportRow> streamExportRowsByDateRange(@Param("startDate") LocalDateTime startDate,
+                                                         @Param("endDate") LocalDateTime endDate);
+    
+    // Stream export rows for all sessions (forward-only cursor, must be consumed inside a transaction)
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT new com.mathbridge.be_project.session.SessionExportRow(" +
+           "s.id, s.subject, s.scheduledDate, s.duration, s.status, s.location, s.hourlyRate, s.totalAmount, " +
+           "t.id, tu.fullName, st.id, st.fullName) " +
+           "FROM Session s JOIN s.tutor t JOIN t.user tu JOIN s.student st " +
+           "ORDER BY s.scheduledDate ASC")
+    Stream<SessionExportRow> streamAllExportRows();
+    
+    // Expire one chunk of sessions that ended before the cutoff (index seek on status, scheduled_date).
+    // READPAST skips rows locked by another node running the same sweep.
+    @Modifying
+    @Query(value = "UPDATE TOP (:batchSize) sessions WITH (ROWLOCK, READPAST) " +
+                   "SET status = 'EXPIRED', updated_at = SYSDATETIME() " +
+                   "WHERE status IN ('SCHEDULED', 'CONFIRMED') " +
+                   "AND scheduled_date < :cutoff " +
+                   "AND DATEADD(MINUTE, duration, scheduled_date) < :cutoff",
+           nativeQuery = true)
+    int expireEndedSessions(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+    
+    // Stream export rows of a tutor from a given date (calendar feeds)
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT new com.mathbridge.be_project.session.SessionExportRow(" +
+           "s.id, s.subject, s.scheduledDate, s.duration, s.status, s.location, s.hourlyRate, s.totalAmount, " +
+           "t.id, tu.fullName, st.id, st.fullName) " +
+           "FROM Session s JOIN s.tutor t JOIN t.user tu JOIN s.student st " +
+           "WHERE t.id = :tutorId AND s.scheduledDate >= :from " +
+           "ORDER BY s.scheduledDate ASC")
+    Stream<SessionExportRow> streamExportRowsByTutorFrom(@Param("tutorId") Long tutorId,
+                                                         @Param("from") LocalDateTime from);
+    
+    // Stream export rows of a student from a given date (calendar feeds)
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT new com.mathbridge.be_project.session.SessionExportRow(" +
+           "s.id, s.subject, s.scheduledDate, s.duration, s.status, s.location, s.hourlyRate, s.totalAmount, " +
+           "t.id, tu.fullName, st.id, st.fullName) " +
+           "FROM Session s JOIN s.tutor t JOIN t.user tu JOIN s.student st " +
+           "WHERE st.id = :studentId AND s.scheduledDate >= :from " +
+           "ORDER BY s.scheduledDate ASC")
+    Stream<SessionExportRow> streamExportRowsByStudentFrom(@Param("studentId") Long studentId,
+                                                           @Param("from") LocalDateTime from);
+    
+    // Summary rows per status for tutor: [status, count, sum(totalAmount), upcoming, thisWeek]
+    @Query("SELECT s.status, COUNT(s), COALESCE(SUM(s.totalAmount), 0), " +
+           "SUM(CASE WHEN s.scheduledDate > :now AND s.status IN ('SCHEDULED', 'CONFIRMED') THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN s.scheduledDate >= :weekStart AND s.scheduledDate < :weekEnd THEN 1 ELSE 0 END) " +
+           "FROM Session s WHERE s.tutor.id = :tutorId GROUP BY s.status")
+    List<Object[]> summarizeByTutor(@Param("tutorId") Long tutorId, @Param("now") LocalDateTime now,
+                                    @Param("weekStart") LocalDateTime weekStart, @Param("weekEnd") LocalDateTime weekEnd);
+    
+    // Summary rows per status for student: [status, count, sum(totalAmount), upcoming, thisWeek]
+    @Query("SELECT s.status, COUNT(s), COALESCE(SUM(s.totalAmount), 0), " +
+           "SUM(CASE WHEN s.scheduledDate > :now AND s.status IN ('SCHEDULED', 'CONFIRMED') THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN s.scheduledDate >= :weekStart AND s.scheduledDate < :weekEnd THEN 1 ELSE 0 END) " +
+           "FROM Session s WHERE s.student.id = :studentId GROUP BY s.status")
+    List<Object[]> summarizeByStudent(@Param("studentId") Long studentId, @Param("now") LocalDateTime now,
+                                      @Param("weekStart") LocalDateTime weekStart, @Param("weekEnd") LocalDateTime weekEnd);
+    
+    // Summary rows per status for all sessions: [status, count, sum(totalAmount), upcoming, thisWeek]
+    @Query("SELECT s.status, COUNT(s), COALESCE(SUM(s.totalAmount), 0), " +
+           "SUM(CASE WHEN s.scheduledDate > :now AND s.status IN ('SCHEDULED', 'CONFIRMED') THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN s.scheduledDate >= :weekStart AND s.scheduledDate < :weekEnd THEN 1 ELSE 0 END) " +
+           "FROM Session s GROUP BY s.status")
+    List<Object[]> summarizeAll(@Param("now") LocalDateTime now,
+                                @Param("weekStart") LocalDateTime weekStart, @Param("weekEnd") LocalDateTime weekEnd);
 }
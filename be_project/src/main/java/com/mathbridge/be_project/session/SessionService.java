@@ -1,22 +1,36 @@
 package com.mathbridge.be_project.session;
 
 import com.mathbridge.be_project.common.SessionStatus;
+import com.mathbridge.be_project.outbox.OutboxPublisher;
+import com.mathbridge.be_project.reminder.ReminderService;
 import com.mathbridge.be_project.student.Student;
 import com.mathbridge.be_project.student.StudentRepository;
 import com.mathbridge.be_project.tutor.Tutor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 @Transactional
 public class SessionService {
+
+    // Outbox event types (aggregate "session")
+    public static final String EVENT_BOOKED = "SESSION_BOOKED";
+    public static final String EVENT_CANCELLED = "SESSION_CANCELLED";
+    public static final String EVENT_COMPLETED = "SESSION_COMPLETED";
+
+    private static final DateTimeFormatter NOTIFY_TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
     
     @Autowired
     private SessionRepository sessionRepository;
@@ -24,6 +38,15 @@ public class SessionService {
     @Autowired
     private StudentRepository studentRepository;
     
+    @Autowired
+    private ReminderService reminderService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+    
     // Create new session
     public Session createSession(Session session) {
         // Check for conflicts before creating
@@ -33,7 +56,12 @@ public class SessionService {
             throw new RuntimeException("Conflicting session exists for the selected time slot");
         }
         
-        return sessionRepository.save(session);
+        Session saved = sessionRepository.save(session);
+        reminderService.scheduleForSession(saved);
+        eventPublisher.publishEvent(SessionChangedEvent.of(saved));
+        // Booked through the generic endpoint: let the tutor know
+        publishEvent(saved, EVENT_BOOKED, "NEW_BOOKING", "Có lịch học mới: " + describe(saved), tutorUserId(saved));
+        return saved;
     }
     
     // Create session from request (simplified form data)
@@ -91,7 +119,12 @@ public class SessionService {
         }
         
         try {
-            return sessionRepository.save(session);
+            Session saved = sessionRepository.save(session);
+            reminderService.scheduleForSession(saved);
+            eventPublisher.publishEvent(SessionChangedEvent.of(saved));
+            // Scheduled by the tutor: let the student know
+            publishEvent(saved, EVENT_BOOKED, "NEW_BOOKING", "Bạn có lịch học mới: " + describe(saved), studentUserId(saved));
+            return saved;
         } catch (org.springframework.dao.DataIntegrityViolationException e) {
             // Handle foreign key constraint violations
             if (e.getMessage() != null && e.getMessage().contains("FOREIGN KEY")) {
@@ -236,7 +269,10 @@ public class SessionService {
     
     // Update session
     public Session updateSession(Session session) {
-        return sessionRepository.save(session);
+        Session saved = sessionRepository.save(session);
+        reminderService.scheduleForSession(saved);
+        eventPublisher.publishEvent(SessionChangedEvent.of(saved));
+        return saved;
     }
     
     // Confirm session
@@ -246,7 +282,10 @@ public class SessionService {
             Session session = sessionOpt.get();
             if (session.getStatus() == SessionStatus.SCHEDULED) {
                 session.setStatus(SessionStatus.CONFIRMED);
-                return sessionRepository.save(session);
+                Session saved = sessionRepository.save(session);
+                reminderService.onSessionConfirmed(saved);
+                eventPublisher.publishEvent(SessionChangedEvent.of(saved));
+                return saved;
             } else {
                 throw new RuntimeException("Session cannot be confirmed. Current status: " + session.getStatus());
             }
@@ -261,6 +300,10 @@ public class SessionService {
             Session session = sessionOpt.get();
             if (session.getStatus() == SessionStatus.CONFIRMED) {
                 session.setStatus(SessionStatus.COMPLETED);
+                reminderService.cancelForSession(sessionId);
+                eventPublisher.publishEvent(SessionChangedEvent.of(session));
+                // Tutor stats are refreshed asynchronously
+                publishEvent(session, EVENT_COMPLETED, null, null);
                 return sessionRepository.save(session);
             } else {
                 throw new RuntimeException("Session cannot be completed. Current status: " + session.getStatus());
@@ -276,6 +319,10 @@ public class SessionService {
             Session session = sessionOpt.get();
             if (session.getStatus() != SessionStatus.COMPLETED) {
                 session.setStatus(SessionStatus.CANCELLED);
+                reminderService.cancelForSession(sessionId);
+                eventPublisher.publishEvent(SessionChangedEvent.of(session));
+                publishEvent(session, EVENT_CANCELLED, "SESSION_CANCELLED", "Buổi học đã bị hủy: " + describe(session),
+                        tutorUserId(session), studentUserId(session));
                 return sessionRepository.save(session);
             } else {
                 throw new RuntimeException("Cannot cancel completed session");
@@ -309,6 +356,9 @@ public class SessionService {
     
     // Delete session
     public void deleteSession(Long id) {
+        reminderService.cancelForSession(id);
+        sessionRepository.findById(id)
+                .ifPresent(session -> eventPublisher.publishEvent(SessionChangedEvent.of(session)));
         sessionRepository.deleteById(id);
     }
     
@@ -323,4 +373,34 @@ public class SessionService {
     public Long countSessionsByStudentAndStatus(Long studentId, SessionStatus status) {
         return sessionRepository.countSessionsByStudentAndStatus(studentId, status);
     }
+
+    // Side effects (notifications, tutor stats) run from the outbox once this transaction commits
+    private void publishEvent(Session session, String eventType, String notificationType, String message, Long... notifyUserIds) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("sessionId", session.getId());
+        payload.put("tutorId", session.getTutor() != null ? session.getTutor().getId() : null);
+        payload.put("notificationType", notificationType);
+        payload.put("message", message);
+        List<Long> recipients = new ArrayList<>();
+        for (Long userId : notifyUserIds) {
+            if (userId != null) {
+                recipients.add(userId);
+            }
+        }
+        payload.put("notifyUserIds", recipients);
+        outboxPublisher.publish("session", session.getId(), eventType, payload);
+    }
+
+    private Long tutorUserId(Session session) {
+        return session.getTutor() != null && session.getTutor().getUser() != null ? session.getTutor().getUser().getId() : null;
+    }
+
+    private Long studentUserId(Session session) {
+        return session.getStudent() != null && session.getStudent().getUser() != null ? session.getStudent().getUser().getId() : null;
+    }
+
+    private String describe(Session session) {
+        String when = session.getScheduledDate() != null ? session.getScheduledDate().format(NOTIFY_TIME_FORMAT) : "";
+        return session.getSubject() + " lúc " + when;
+    }
 }
@@ -0,0 +1,80 @@
+package com.mathbridge.be_project.session;
+
+import com.mathbridge.be_project.common.SessionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Dashboard summary of sessions for one scope (a tutor, a student, or everything).
+ */
+public class SessionSummary {
+
+    private final String scope;
+    private final Long ownerId;
+    private final Map<SessionStatus, Long> countsByStatus;
+    private final long total;
+    private final long upcoming;
+    private final long thisWeek;
+    private final BigDecimal revenue;
+    private final BigDecimal pendingAmount;
+    private final LocalDateTime generatedAt;
+
+    public SessionSummary(String scope, Long ownerId, Map<SessionStatus, Long> countsByStatus, long upcoming,
+                          long thisWeek, BigDecimal revenue, BigDecimal pendingAmount, LocalDateTime generatedAt) {
+        EnumMap<SessionStatus, Long> counts = new EnumMap<>(SessionStatus.class);
+        for (SessionStatus status : SessionStatus.values()) {
+            counts.put(status, countsByStatus.getOrDefault(status, 0L));
+        }
+        this.scope = scope;
+        this.ownerId = ownerId;
+        this.countsByStatus = Collections.unmodifiableMap(counts);
+        this.total = counts.values().stream().mapToLong(Long::longValue).sum();
+        this.upcoming = upcoming;
+        this.thisWeek = thisWeek;
+        this.revenue = revenue;
+        this.pendingAmount = pendingAmount;
+        this.generatedAt = generatedAt;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public Map<SessionStatus, Long> getCountsByStatus() {
+        return countsByStatus;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getUpcoming() {
+        return upcoming;
+    }
+
+    public long getThisWeek() {
+        return thisWeek;
+    }
+
+    // Sum of totalAmount over COMPLETED sessions
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    // Sum of totalAmount over SCHEDULED and CONFIRMED sessions
+    public BigDecimal getPendingAmount() {
+        return pendingAmount;
+    }
+
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+}
@@ -0,0 +1,168 @@
+package com.mathbridge.be_project.session;
+
+import com.mathbridge.be_project.common.SessionStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Builds dashboard summaries with one GROUP BY query per scope and keeps them in a short-TTL cache.
+ * Entries are dropped as soon as a session of that tutor/student changes; the cache is a bounded LRU so
+ * summaries for ids that are never asked for again do not pile up.
+ */
+@Service
+public class SessionSummaryService {
+
+    private static final String ALL_KEY = "all";
+
+    private static final class CachedSummary {
+        private final SessionSummary summary;
+        private final long expiresAt;
+
+        private CachedSummary(SessionSummary summary, long expiresAt) {
+            this.summary = summary;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final SessionRepository sessionRepository;
+    private final Map<String, CachedSummary> cache;
+
+    @Value("${sessions.summary.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    public SessionSummaryService(SessionRepository sessionRepository,
+                                 @Value("${sessions.summary.max-entries:10000}") int maxEntries) {
+        this.sessionRepository = sessionRepository;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSummary> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public SessionSummary getTutorSummary(Long tutorId) {
+        return cached("tutor:" + tutorId, () -> {
+            Window window = Window.now();
+            return build("tutor", tutorId,
+                    sessionRepository.summarizeByTutor(tutorId, window.now, window.weekStart, window.weekEnd), window);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public SessionSummary getStudentSummary(Long studentId) {
+        return cached("student:" + studentId, () -> {
+            Window window = Window.now();
+            return build("student", studentId,
+                    sessionRepository.summarizeByStudent(studentId, window.now, window.weekStart, window.weekEnd), window);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public SessionSummary getOverallSummary() {
+        return cached(ALL_KEY, () -> {
+            Window window = Window.now();
+            return build("all", null,
+                    sessionRepository.summarizeAll(window.now, window.weekStart, window.weekEnd), window);
+        });
+    }
+
+    // Drop cached summaries touched by a committed session change
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(SessionChangedEvent event) {
+        if (event.isBulk()) {
+            cache.clear();
+            return;
+        }
+        cache.remove(ALL_KEY);
+        if (event.getTutorId() != null) {
+            cache.remove("tutor:" + event.getTutorId());
+        }
+        if (event.getStudentId() != null) {
+            cache.remove("student:" + event.getStudentId());
+        }
+    }
+
+    private SessionSummary cached(String key, Supplier<SessionSummary> loader) {
+        long now = System.currentTimeMillis();
+        CachedSummary entry = cache.get(key);
+        if (entry != null) {
+            if (entry.expiresAt > now) {
+                return entry.summary;
+            }
+            cache.remove(key, entry);
+        }
+        SessionSummary summary = loader.get();
+        cache.put(key, new CachedSummary(summary, now + ttlSeconds * 1000));
+        return summary;
+    }
+
+    private SessionSummary build(String scope, Long ownerId, List<Object[]> rows, Window window) {
+        Map<SessionStatus, Long> counts = new EnumMap<>(SessionStatus.class);
+        long upcoming = 0;
+        long thisWeek = 0;
+        BigDecimal revenue = BigDecimal.ZERO;
+        BigDecimal pendingAmount = BigDecimal.ZERO;
+
+        for (Object[] row : rows) {
+            SessionStatus status = (SessionStatus) row[0];
+            long count = ((Number) row[1]).longValue();
+            BigDecimal amount = toBigDecimal(row[2]);
+            upcoming += row[3] != null ? ((Number) row[3]).longValue() : 0;
+            thisWeek += row[4] != null ? ((Number) row[4]).longValue() : 0;
+            if (status == null) {
+                continue;
+            }
+            counts.put(status, count);
+            if (status == SessionStatus.COMPLETED) {
+                revenue = revenue.add(amount);
+            } else if (status == SessionStatus.SCHEDULED || status == SessionStatus.CONFIRMED) {
+                pendingAmount = pendingAmount.add(amount);
+            }
+        }
+        return new SessionSummary(scope, ownerId, counts, upcoming, thisWeek, revenue, pendingAmount, window.now);
+    }
+
+    private BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        return new BigDecimal(value.toString());
+    }
+
+    // "Now" and the current Monday-to-Monday week
+    private static final class Window {
+        private final LocalDateTime now;
+        private final LocalDateTime weekStart;
+        private final LocalDateTime weekEnd;
+
+        private Window(LocalDateTime now, LocalDateTime weekStart) {
+            this.now = now;
+            this.weekStart = weekStart;
+            this.weekEnd = weekStart.plusWeeks(1);
+        }
+
+        private static Window now() {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDate monday = now.toLocalDate().with(DayOfWeek.MONDAY);
+            return new Window(now, monday.atStartOfDay());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.mathbridge.be_project.tutor;
+
+import com.mathbridge.be_project.notification.NotificationService;
+import com.mathbridge.be_project.outbox.OutboxHandler;
+import com.mathbridge.be_project.outbox.OutboxMessage;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells tutors about the outcome of their application, delivered from the outbox.
+ */
+@Component
+public class TutorOutboxHandler implements OutboxHandler {
+
+    private final NotificationService notificationService;
+
+    public TutorOutboxHandler(NotificationService notificationService) {
+        this.notificationService = notificationService;
+    }
+
+    @Override
+    public boolean supports(String eventType) {
+        return TutorService.EVENT_APPROVED.equals(eventType) || TutorService.EVENT_REJECTED.equals(eventType);
+    }
+
+    @Override
+    public void handle(OutboxMessage message) {
+        Long userId = message.getLong("userId");
+        if (userId == null) {
+            return;
+        }
+        if (TutorService.EVENT_APPROVED.equals(message.eventType())) {
+            notificationService.createNotification(userId, "Hồ sơ gia sư của bạn đã được duyệt", TutorService.EVENT_APPROVED);
+        } else {
+            notificationService.createNotification(userId, "Hồ sơ gia sư của bạn chưa được duyệt", TutorService.EVENT_REJECTED);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.mathbridge.be_project.tutor;
 
 import com.mathbridge.be_project.common.ApprovalStatus;
+import com.mathbridge.be_project.outbox.OutboxPublisher;
 import com.mathbridge.be_project.user.User;
 import com.mathbridge.be_project.user.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,15 +11,23 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 @Transactional
 public class TutorService {
+
+    // Outbox event types (aggregate "tutor")
+    public static final String EVENT_APPROVED = "TUTOR_APPROVED";
+    public static final String EVENT_REJECTED = "TUTOR_REJECTED";
     
     @Autowired
     private TutorRepository tutorRepository;
     
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+    
     @Autowired
     private UserService userService;
     
@@ -210,6 +219,8 @@ public class TutorService {
             // Activate the user account
             userService.activateUser(tutor.getUser().getId());
             
+            outboxPublisher.publish("tutor", tutorId, EVENT_APPROVED,
+                    Map.of("tutorId", tutorId, "userId", tutor.getUser().getId()));
             return tutorRepository.save(tutor);
         }
         throw new RuntimeException("Tutor not found with id: " + tutorId);
@@ -231,6 +242,8 @@ public class TutorService {
             // Deactivate the user account
             userService.deactivateUser(tutor.getUser().getId());
             
+            outboxPublisher.publish("tutor", tutorId, EVENT_REJECTED,
+                    Map.of("tutorId", tutorId, "userId", tutor.getUser().getId()));
             return tutorRepository.save(tutor);
         }
         throw new RuntimeException("Tutor not found with id: " + tutorId);
@@ -0,0 +1,82 @@
+package com.mathbridge.be_project.user;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-through cache of the few user fields the hot paths need (id, email, name),
+ * so validating chat participants does not cost two SELECTs per message.
+ * Entries expire after a TTL and are evicted by {@link UserService} on updates.
+ */
+@Component
+public class UserDirectory {
+
+    public static final class Entry {
+        private final Long id;
+        private final String email;
+        private final String fullName;
+        private final long expiresAt;
+
+        private Entry(User user, long expiresAt) {
+            this.id = user.getId();
+            this.email = user.getEmail();
+            this.fullName = user.getFullName();
+            this.expiresAt = expiresAt;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getFullName() {
+            return fullName;
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${users.directory.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${users.directory.max-entries:100000}")
+    private int maxEntries;
+
+    public UserDirectory(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public Optional<Entry> find(Long userId) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.expiresAt > now) {
+            return Optional.of(entry);
+        }
+        Optional<User> user = userRepository.findById(userId);
+        if (user.isEmpty()) {
+            entries.remove(userId);
+            return Optional.empty();
+        }
+        if (entries.size() >= maxEntries) {
+            // Crude bound: start over rather than track recency on this hot path
+            entries.clear();
+        }
+        Entry loaded = new Entry(user.get(), now + ttlSeconds * 1000);
+        entries.put(userId, loaded);
+        return Optional.of(loaded);
+    }
+
+    public void evict(Long userId) {
+        if (userId != null) {
+            entries.remove(userId);
+        }
+    }
+}
@@ -16,6 +16,9 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private UserDirectory userDirectory;
+    
     // Create new user
     public User createUser(User user) {
         return userRepository.save(user);
@@ -77,6 +80,7 @@ public class UserService {
     
     // Update user
     public User updateUser(User user) {
+        userDirectory.evict(user.getId());
         return userRepository.save(user);
     }
     
@@ -86,6 +90,7 @@ public class UserService {
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             user.setStatus(status);
+            userDirectory.evict(userId);
             return userRepository.save(user);
         }
         throw new RuntimeException("User not found with id: " + userId);
@@ -93,6 +98,7 @@ public class UserService {
     
     // Delete user
     public void deleteUser(Long id) {
+        userDirectory.evict(id);
         userRepository.deleteById(id);
     }
     
@@ -0,0 +1,13 @@
+-- Inverted index for per-user message search: one row per (user, accent-folded term, message)
+
+IF OBJECT_ID('dbo.message_search_terms', 'U') IS NULL
+BEGIN
+    CREATE TABLE dbo.message_search_terms (
+        user_id BIGINT NOT NULL,
+        term NVARCHAR(64) NOT NULL,
+        message_id BIGINT NOT NULL,
+        -- Clustered on the lookup order so a term's postings for one user are a single contiguous range
+        CONSTRAINT PK_message_search_terms PRIMARY KEY CLUSTERED (user_id, term, message_id)
+    )
+    PRINT 'Created table dbo.message_search_terms'
+END
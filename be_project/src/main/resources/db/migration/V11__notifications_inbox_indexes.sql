@@ -0,0 +1,17 @@
+-- Keyset paging of a user's notifications (newest first) and an unread-only filtered index
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_notifications_user_created' AND object_id = OBJECT_ID('dbo.notifications'))
+BEGIN
+    CREATE NONCLUSTERED INDEX IX_notifications_user_created
+        ON dbo.notifications (user_id, created_at DESC, id DESC)
+    PRINT 'Created index IX_notifications_user_created'
+END
+
+-- Only unread rows: small, and it serves the unread filter, badge counts and mark-all-read
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_notifications_user_unread' AND object_id = OBJECT_ID('dbo.notifications'))
+BEGIN
+    CREATE NONCLUSTERED INDEX IX_notifications_user_unread
+        ON dbo.notifications (user_id, created_at DESC, id DESC)
+        WHERE is_read = 0
+    PRINT 'Created index IX_notifications_user_unread'
+END
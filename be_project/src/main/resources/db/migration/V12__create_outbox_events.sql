@@ -0,0 +1,39 @@
+-- Transactional outbox: domain events written with the change that caused them, delivered asynchronously
+
+IF OBJECT_ID('dbo.outbox_events', 'U') IS NULL
+BEGIN
+    CREATE TABLE dbo.outbox_events (
+        id BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+        aggregate_type NVARCHAR(50) NOT NULL,
+        aggregate_id NVARCHAR(64) NOT NULL,
+        event_type NVARCHAR(100) NOT NULL,
+        payload NVARCHAR(MAX) NOT NULL,
+        status NVARCHAR(20) NOT NULL DEFAULT 'PENDING',
+        attempts INT NOT NULL DEFAULT 0,
+        available_at DATETIME2 NOT NULL,
+        locked_by NVARCHAR(100) NULL,
+        last_error NVARCHAR(1000) NULL,
+        created_at DATETIME2 NOT NULL,
+        processed_at DATETIME2 NULL
+    )
+    PRINT 'Created table dbo.outbox_events'
+END
+
+-- Claim scan: only pending rows, in id order
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_outbox_events_pending' AND object_id = OBJECT_ID('dbo.outbox_events'))
+BEGIN
+    CREATE NONCLUSTERED INDEX IX_outbox_events_pending
+        ON dbo.outbox_events (id)
+        INCLUDE (available_at, aggregate_type, aggregate_id)
+        WHERE status = 'PENDING'
+    PRINT 'Created index IX_outbox_events_pending'
+END
+
+-- Per-aggregate ordering check: earlier pending events of the same aggregate
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_outbox_events_aggregate' AND object_id = OBJECT_ID('dbo.outbox_events'))
+BEGIN
+    CREATE NONCLUSTERED INDEX IX_outbox_events_aggregate
+        ON dbo.outbox_events (aggregate_type, aggregate_id, id)
+        INCLUDE (available_at, status)
+    PRINT 'Created index IX_outbox_events_aggregate'
+END
@@ -0,0 +1,42 @@
+-- Incrementally maintained feedback statistics per teacher, per course and overall (scope ALL, key '*')
+
+IF OBJECT_ID('dbo.feedback_aggregates', 'U') IS NULL
+BEGIN
+    CREATE TABLE dbo.feedback_aggregates (
+        id BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+        scope NVARCHAR(20) NOT NULL,
+        scope_key NVARCHAR(255) NOT NULL,
+        display_name NVARCHAR(255) NULL,
+        total_count BIGINT NOT NULL DEFAULT 0,
+        rating_sum BIGINT NOT NULL DEFAULT 0,
+        rating_1 BIGINT NOT NULL DEFAULT 0,
+        rating_2 BIGINT NOT NULL DEFAULT 0,
+        rating_3 BIGINT NOT NULL DEFAULT 0,
+        rating_4 BIGINT NOT NULL DEFAULT 0,
+        rating_5 BIGINT NOT NULL DEFAULT 0,
+        useful_yes BIGINT NOT NULL DEFAULT 0,
+        useful_no BIGINT NOT NULL DEFAULT 0,
+        mode_in_person BIGINT NOT NULL DEFAULT 0,
+        mode_online BIGINT NOT NULL DEFAULT 0,
+        mode_hybrid BIGINT NOT NULL DEFAULT 0,
+        mode_other BIGINT NOT NULL DEFAULT 0,
+        updated_at DATETIME2 NULL
+    )
+    PRINT 'Created table dbo.feedback_aggregates'
+END
+
+-- Stats lookups and the MERGE upsert seek on (scope, scope_key)
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'UX_feedback_aggregates_scope_key' AND object_id = OBJECT_ID('dbo.feedback_aggregates'))
+BEGIN
+    CREATE UNIQUE NONCLUSTERED INDEX UX_feedback_aggregates_scope_key
+        ON dbo.feedback_aggregates (scope, scope_key)
+    PRINT 'Created index UX_feedback_aggregates_scope_key'
+END
+
+-- "Most reviewed" listings
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_feedback_aggregates_scope_count' AND object_id = OBJECT_ID('dbo.feedback_aggregates'))
+BEGIN
+    CREATE NONCLUSTERED INDEX IX_feedback_aggregates_scope_count
+        ON dbo.feedback_aggregates (scope, total_count DESC)
+    PRINT 'Created index IX_feedback_aggregates_scope_count'
+END
@@ -0,0 +1,15 @@
+-- Submission id from the async feedback endpoint, unique so spool replays never insert a row twice
+
+IF COL_LENGTH('dbo.feedbacks', 'submission_id') IS NULL
+BEGIN
+    ALTER TABLE dbo.feedbacks ADD submission_id NVARCHAR(36) NULL
+    PRINT 'Added submission_id to dbo.feedbacks'
+END
+
+-- Filtered: rows saved through the synchronous path have no submission id
+-- (dynamic SQL because the column may have been added in this same batch)
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'UX_feedbacks_submission_id' AND object_id = OBJECT_ID('dbo.feedbacks'))
+BEGIN
+    EXEC('CREATE UNIQUE NONCLUSTERED INDEX UX_feedbacks_submission_id ON dbo.feedbacks (submission_id) WHERE submission_id IS NOT NULL')
+    PRINT 'Created index UX_feedbacks_submission_id'
+END
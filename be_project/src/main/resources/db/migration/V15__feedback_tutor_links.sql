@@ -0,0 +1,41 @@
+-- Link feedback to tutors and sessions instead of relying on free-text teacher names
+
+IF COL_LENGTH('dbo.feedbacks', 'tutor_id') IS NULL
+BEGIN
+    ALTER TABLE dbo.feedbacks ADD tutor_id BIGINT NULL
+    PRINT 'Added tutor_id to dbo.feedbacks'
+END
+
+IF COL_LENGTH('dbo.feedbacks', 'session_id') IS NULL
+BEGIN
+    ALTER TABLE dbo.feedbacks ADD session_id BIGINT NULL
+    PRINT 'Added session_id to dbo.feedbacks'
+END
+
+-- SET NULL: deleting a tutor or session keeps its feedback (with the teacher name) but drops the link
+-- (dynamic SQL because the columns may have been added in this same batch)
+IF NOT EXISTS (SELECT 1 FROM sys.foreign_keys WHERE name = 'FK_feedbacks_tutor' AND parent_object_id = OBJECT_ID('dbo.feedbacks'))
+BEGIN
+    EXEC('ALTER TABLE dbo.feedbacks ADD CONSTRAINT FK_feedbacks_tutor FOREIGN KEY (tutor_id) REFERENCES dbo.tutors (id) ON DELETE SET NULL')
+    PRINT 'Created foreign key FK_feedbacks_tutor'
+END
+
+IF NOT EXISTS (SELECT 1 FROM sys.foreign_keys WHERE name = 'FK_feedbacks_session' AND parent_object_id = OBJECT_ID('dbo.feedbacks'))
+BEGIN
+    EXEC('ALTER TABLE dbo.feedbacks ADD CONSTRAINT FK_feedbacks_session FOREIGN KEY (session_id) REFERENCES dbo.sessions (id) ON DELETE SET NULL')
+    PRINT 'Created foreign key FK_feedbacks_session'
+END
+
+-- Per-tutor pages: seek on tutor_id, already ordered newest first
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_feedbacks_tutor_created' AND object_id = OBJECT_ID('dbo.feedbacks'))
+BEGIN
+    EXEC('CREATE INDEX IX_feedbacks_tutor_created ON dbo.feedbacks (tutor_id, created_at DESC, id DESC)')
+    PRINT 'Created index IX_feedbacks_tutor_created'
+END
+
+-- Also backs the foreign key, so deleting a session does not scan feedbacks
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_feedbacks_session' AND object_id = OBJECT_ID('dbo.feedbacks'))
+BEGIN
+    EXEC('CREATE INDEX IX_feedbacks_session ON dbo.feedbacks (session_id) WHERE session_id IS NOT NULL')
+    PRINT 'Created index IX_feedbacks_session'
+END
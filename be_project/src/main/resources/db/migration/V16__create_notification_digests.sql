@@ -0,0 +1,31 @@
+-- Durable notification digests: outbox-delivered notifications wait here for their coalescing window
+
+IF OBJECT_ID('dbo.notification_digests', 'U') IS NULL
+BEGIN
+    CREATE TABLE dbo.notification_digests (
+        id BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+        user_id BIGINT NOT NULL,
+        type NVARCHAR(50) NOT NULL,
+        pending_count INT NOT NULL DEFAULT 0,
+        last_message NVARCHAR(1000) NOT NULL,
+        due_at DATETIME2 NOT NULL,
+        created_at DATETIME2 NOT NULL
+    )
+    PRINT 'Created table dbo.notification_digests'
+END
+
+-- MERGE upsert seeks on (user_id, type)
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'UX_notification_digests_user_type' AND object_id = OBJECT_ID('dbo.notification_digests'))
+BEGIN
+    CREATE UNIQUE NONCLUSTERED INDEX UX_notification_digests_user_type
+        ON dbo.notification_digests (user_id, type)
+    PRINT 'Created index UX_notification_digests_user_type'
+END
+
+-- Flush scan: digests whose window has closed
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_notification_digests_due' AND object_id = OBJECT_ID('dbo.notification_digests'))
+BEGIN
+    CREATE NONCLUSTERED INDEX IX_notification_digests_due
+        ON dbo.notification_digests (due_at)
+    PRINT 'Created index IX_notification_digests_due'
+END
@@ -0,0 +1,7 @@
+-- Drop the unfiltered (status, id) index that ddl-auto created next to V12's filtered IX_outbox_events_pending
+
+IF EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_outbox_events_status_id' AND object_id = OBJECT_ID('dbo.outbox_events'))
+BEGIN
+    DROP INDEX IX_outbox_events_status_id ON dbo.outbox_events
+    PRINT 'Dropped index IX_outbox_events_status_id'
+END
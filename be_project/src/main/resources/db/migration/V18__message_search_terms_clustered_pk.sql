@@ -0,0 +1,28 @@
+-- One clustered (user_id, term, message_id) primary key for message_search_terms instead of a primary key
+-- plus a second unique index on the same columns (V10 shape), or a primary key in another column order
+-- (tables created by ddl-auto)
+
+IF OBJECT_ID('dbo.message_search_terms', 'U') IS NOT NULL
+BEGIN
+    IF EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_message_search_terms_lookup' AND object_id = OBJECT_ID('dbo.message_search_terms'))
+    BEGIN
+        DROP INDEX IX_message_search_terms_lookup ON dbo.message_search_terms
+        PRINT 'Dropped index IX_message_search_terms_lookup'
+    END
+
+    DECLARE @pk SYSNAME, @pkType TINYINT, @firstColumn SYSNAME
+    SELECT @pk = i.name, @pkType = i.type, @firstColumn = c.name
+    FROM sys.indexes i
+    JOIN sys.index_columns ic ON ic.object_id = i.object_id AND ic.index_id = i.index_id AND ic.key_ordinal = 1
+    JOIN sys.columns c ON c.object_id = ic.object_id AND c.column_id = ic.column_id
+    WHERE i.object_id = OBJECT_ID('dbo.message_search_terms') AND i.is_primary_key = 1
+
+    IF @pk IS NULL OR @pkType <> 1 OR @firstColumn <> 'user_id'
+    BEGIN
+        IF @pk IS NOT NULL
+            EXEC('ALTER TABLE dbo.message_search_terms DROP CONSTRAINT ' + QUOTENAME(@pk))
+        ALTER TABLE dbo.message_search_terms
+            ADD CONSTRAINT PK_message_search_terms PRIMARY KEY CLUSTERED (user_id, term, message_id)
+        PRINT 'Recreated PK_message_search_terms as clustered (user_id, term, message_id)'
+    END
+END
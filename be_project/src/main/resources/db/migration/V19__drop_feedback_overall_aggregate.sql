@@ -0,0 +1,7 @@
+-- Overall feedback stats are now summed from the course rows; the single ALL row serialized every submission
+
+IF OBJECT_ID('dbo.feedback_aggregates', 'U') IS NOT NULL
+BEGIN
+    DELETE FROM dbo.feedback_aggregates WHERE scope = 'ALL'
+    PRINT 'Removed overall feedback aggregate row'
+END
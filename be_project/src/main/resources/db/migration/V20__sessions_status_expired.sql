@@ -0,0 +1,37 @@
+-- Allow the EXPIRED session status set by the lifecycle sweeper.
+-- ddl-auto created dbo.sessions with CHECK (status in ('SCHEDULED','CONFIRMED','COMPLETED','CANCELLED')) and
+-- "update" never changes an existing constraint, so every status CHECK without EXPIRED is dropped and replaced.
+
+IF OBJECT_ID('dbo.sessions', 'U') IS NOT NULL
+BEGIN
+    DECLARE @CheckName NVARCHAR(128)
+    DECLARE @StatusColumnId INT = COLUMNPROPERTY(OBJECT_ID('dbo.sessions'), 'status', 'ColumnId')
+
+    WHILE 1 = 1
+    BEGIN
+        SET @CheckName = NULL
+        SELECT TOP (1) @CheckName = name
+        FROM sys.check_constraints
+        WHERE parent_object_id = OBJECT_ID('dbo.sessions')
+        AND (parent_column_id = @StatusColumnId OR definition LIKE '%\[status\]%' ESCAPE '\')
+        AND definition NOT LIKE '%''EXPIRED''%'
+
+        IF @CheckName IS NULL
+            BREAK
+
+        EXEC('ALTER TABLE dbo.sessions DROP CONSTRAINT ' + QUOTENAME(@CheckName))
+        PRINT 'Dropped session status check constraint: ' + @CheckName
+    END
+
+    IF NOT EXISTS (
+        SELECT 1
+        FROM sys.check_constraints
+        WHERE parent_object_id = OBJECT_ID('dbo.sessions')
+        AND (parent_column_id = @StatusColumnId OR definition LIKE '%\[status\]%' ESCAPE '\')
+    )
+    BEGIN
+        ALTER TABLE dbo.sessions ADD CONSTRAINT CK_sessions_status
+            CHECK (status IN ('SCHEDULED', 'CONFIRMED', 'COMPLETED', 'CANCELLED', 'EXPIRED'))
+        PRINT 'Created check constraint CK_sessions_status'
+    END
+END
@@ -0,0 +1,29 @@
+-- Reminders for upcoming sessions (fed into the in-memory timing wheel)
+
+IF OBJECT_ID('dbo.reminders', 'U') IS NULL
+BEGIN
+    CREATE TABLE dbo.reminders (
+        id BIGINT IDENTITY PRIMARY KEY,
+        session_id BIGINT NOT NULL,
+        type VARCHAR(20) NOT NULL,
+        fire_at DATETIME2 NOT NULL,
+        status VARCHAR(20) NOT NULL,
+        fired_at DATETIME2 NULL,
+        fired_by VARCHAR(100) NULL,
+        created_at DATETIME2 NOT NULL DEFAULT SYSDATETIME()
+    )
+    PRINT 'Created table dbo.reminders'
+END
+
+-- Startup/refill loads only the next window of pending reminders
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_reminders_status_fire_at' AND object_id = OBJECT_ID('dbo.reminders'))
+BEGIN
+    CREATE INDEX IX_reminders_status_fire_at ON dbo.reminders (status, fire_at)
+    PRINT 'Created index IX_reminders_status_fire_at'
+END
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_reminders_session_id' AND object_id = OBJECT_ID('dbo.reminders'))
+BEGIN
+    CREATE INDEX IX_reminders_session_id ON dbo.reminders (session_id)
+    PRINT 'Created index IX_reminders_session_id'
+END
@@ -0,0 +1,7 @@
+-- Index used by the "upcoming"/conflict queries and the session lifecycle sweeper
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_sessions_status_scheduled_date' AND object_id = OBJECT_ID('dbo.sessions'))
+BEGIN
+    CREATE INDEX IX_sessions_status_scheduled_date ON dbo.sessions (status, scheduled_date) INCLUDE (duration)
+    PRINT 'Created index IX_sessions_status_scheduled_date'
+END
@@ -0,0 +1,15 @@
+-- Secret per-user tokens for iCalendar subscription feeds
+
+IF NOT EXISTS (SELECT 1 FROM sys.tables WHERE name = 'calendar_feed_tokens')
+BEGIN
+    CREATE TABLE dbo.calendar_feed_tokens (
+        id BIGINT IDENTITY(1,1) NOT NULL PRIMARY KEY,
+        user_id BIGINT NOT NULL,
+        token NVARCHAR(64) NOT NULL,
+        created_at DATETIME2 NOT NULL,
+        CONSTRAINT UQ_calendar_feed_tokens_user_id UNIQUE (user_id),
+        CONSTRAINT UQ_calendar_feed_tokens_token UNIQUE (token),
+        CONSTRAINT FK_calendar_feed_tokens_users FOREIGN KEY (user_id) REFERENCES dbo.users(id) ON DELETE CASCADE
+    )
+    PRINT 'Created table calendar_feed_tokens'
+END
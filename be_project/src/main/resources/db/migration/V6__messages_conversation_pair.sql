@@ -0,0 +1,27 @@
+-- Normalized conversation key on messages so history can be paged by (pair, id)
+
+IF COL_LENGTH('dbo.messages', 'user_low_id') IS NULL
+BEGIN
+    ALTER TABLE dbo.messages ADD user_low_id BIGINT NULL, user_high_id BIGINT NULL
+    PRINT 'Added user_low_id/user_high_id to dbo.messages'
+END
+
+-- Backfill existing rows in chunks to keep the log and lock footprint small
+-- (dynamic SQL because the columns may have been added in this same batch)
+EXEC('
+DECLARE @rows INT = 1
+WHILE @rows > 0
+BEGIN
+    UPDATE TOP (5000) dbo.messages
+    SET user_low_id = CASE WHEN sender_id < receiver_id THEN sender_id ELSE receiver_id END,
+        user_high_id = CASE WHEN sender_id < receiver_id THEN receiver_id ELSE sender_id END
+    WHERE user_low_id IS NULL
+    SET @rows = @@ROWCOUNT
+END
+')
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_messages_pair_id' AND object_id = OBJECT_ID('dbo.messages'))
+BEGIN
+    EXEC('CREATE INDEX IX_messages_pair_id ON dbo.messages (user_low_id, user_high_id, id)')
+    PRINT 'Created index IX_messages_pair_id'
+END
@@ -0,0 +1,49 @@
+-- Per-pair conversation summaries for the inbox (maintained on every send / mark-read)
+
+IF OBJECT_ID('dbo.conversations', 'U') IS NULL
+BEGIN
+    CREATE TABLE dbo.conversations (
+        id BIGINT IDENTITY PRIMARY KEY,
+        user_low_id BIGINT NOT NULL,
+        user_high_id BIGINT NOT NULL,
+        last_message_id BIGINT NOT NULL,
+        last_sender_id BIGINT NOT NULL,
+        last_snippet NVARCHAR(200) NULL,
+        last_message_at DATETIME2 NOT NULL,
+        unread_low INT NOT NULL DEFAULT 0,
+        unread_high INT NOT NULL DEFAULT 0,
+        created_at DATETIME2 NOT NULL DEFAULT SYSDATETIME(),
+        updated_at DATETIME2 NOT NULL DEFAULT SYSDATETIME(),
+        CONSTRAINT UQ_conversations_pair UNIQUE (user_low_id, user_high_id)
+    )
+    PRINT 'Created table dbo.conversations'
+END
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_conversations_low_last' AND object_id = OBJECT_ID('dbo.conversations'))
+BEGIN
+    CREATE INDEX IX_conversations_low_last ON dbo.conversations (user_low_id, last_message_at)
+    PRINT 'Created index IX_conversations_low_last'
+END
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_conversations_high_last' AND object_id = OBJECT_ID('dbo.conversations'))
+BEGIN
+    CREATE INDEX IX_conversations_high_last ON dbo.conversations (user_high_id, last_message_at)
+    PRINT 'Created index IX_conversations_high_last'
+END
+
+-- Backfill from existing messages (requires V6 pair columns)
+INSERT INTO dbo.conversations (user_low_id, user_high_id, last_message_id, last_sender_id, last_snippet,
+                               last_message_at, unread_low, unread_high)
+SELECT g.user_low_id, g.user_high_id, m.id, m.sender_id, LEFT(m.content, 200), m.created_at, g.unread_low, g.unread_high
+FROM (
+    SELECT user_low_id, user_high_id, MAX(id) AS last_id,
+           SUM(CASE WHEN is_read = 0 AND receiver_id = user_low_id AND sender_id <> receiver_id THEN 1 ELSE 0 END) AS unread_low,
+           SUM(CASE WHEN is_read = 0 AND receiver_id = user_high_id AND sender_id <> receiver_id THEN 1 ELSE 0 END) AS unread_high
+    FROM dbo.messages
+    WHERE user_low_id IS NOT NULL
+    GROUP BY user_low_id, user_high_id
+) g
+JOIN dbo.messages m ON m.id = g.last_id
+WHERE NOT EXISTS (SELECT 1 FROM dbo.conversations c
+                  WHERE c.user_low_id = g.user_low_id AND c.user_high_id = g.user_high_id)
+PRINT 'Backfilled dbo.conversations'
@@ -0,0 +1,62 @@
+-- Read state as per-participant watermarks on conversations (replaces per-message is_read updates)
+
+IF COL_LENGTH('dbo.conversations', 'last_read_low_id') IS NULL
+BEGIN
+    ALTER TABLE dbo.conversations ADD last_read_low_id BIGINT NOT NULL DEFAULT 0,
+                                      last_read_high_id BIGINT NOT NULL DEFAULT 0
+    PRINT 'Added read watermarks to dbo.conversations'
+END
+
+-- Migrate is_read: the watermark sits just below the participant's oldest unread received message
+EXEC('
+UPDATE c
+SET last_read_low_id = ISNULL((SELECT MIN(m.id) - 1 FROM dbo.messages m
+                               WHERE m.user_low_id = c.user_low_id AND m.user_high_id = c.user_high_id
+                                 AND m.receiver_id = c.user_low_id AND m.sender_id <> m.receiver_id AND m.is_read = 0),
+                              c.last_message_id),
+    last_read_high_id = ISNULL((SELECT MIN(m.id) - 1 FROM dbo.messages m
+                                WHERE m.user_low_id = c.user_low_id AND m.user_high_id = c.user_high_id
+                                  AND m.receiver_id = c.user_high_id AND m.sender_id <> m.receiver_id AND m.is_read = 0),
+                               c.last_message_id)
+FROM dbo.conversations c
+WHERE c.last_read_low_id = 0 AND c.last_read_high_id = 0
+')
+PRINT 'Migrated is_read into read watermarks'
+
+-- Drop the per-participant counters (and their default constraints); counts now come from the watermark
+DECLARE @column SYSNAME, @constraint SYSNAME, @sql NVARCHAR(400)
+DECLARE counter_columns CURSOR LOCAL FAST_FORWARD FOR
+    SELECT name FROM sys.columns WHERE object_id = OBJECT_ID('dbo.conversations') AND name IN ('unread_low', 'unread_high')
+OPEN counter_columns
+FETCH NEXT FROM counter_columns INTO @column
+WHILE @@FETCH_STATUS = 0
+BEGIN
+    SELECT @constraint = dc.name FROM sys.default_constraints dc
+    JOIN sys.columns col ON col.object_id = dc.parent_object_id AND col.column_id = dc.parent_column_id
+    WHERE dc.parent_object_id = OBJECT_ID('dbo.conversations') AND col.name = @column
+    IF @constraint IS NOT NULL
+    BEGIN
+        SET @sql = N'ALTER TABLE dbo.conversations DROP CONSTRAINT ' + QUOTENAME(@constraint)
+        EXEC sp_executesql @sql
+    END
+    SET @sql = N'ALTER TABLE dbo.conversations DROP COLUMN ' + QUOTENAME(@column)
+    EXEC sp_executesql @sql
+    PRINT 'Dropped dbo.conversations.' + @column
+    SET @constraint = NULL
+    FETCH NEXT FROM counter_columns INTO @column
+END
+CLOSE counter_columns
+DEALLOCATE counter_columns
+
+-- Unread counting seeks (pair, id) and filters on sender without touching the base table
+IF EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_messages_pair_id' AND object_id = OBJECT_ID('dbo.messages'))
+   AND NOT EXISTS (SELECT 1 FROM sys.index_columns ic
+                   JOIN sys.indexes i ON i.object_id = ic.object_id AND i.index_id = ic.index_id
+                   JOIN sys.columns col ON col.object_id = ic.object_id AND col.column_id = ic.column_id
+                   WHERE i.name = 'IX_messages_pair_id' AND i.object_id = OBJECT_ID('dbo.messages')
+                     AND col.name = 'sender_id' AND ic.is_included_column = 1)
+BEGIN
+    CREATE INDEX IX_messages_pair_id ON dbo.messages (user_low_id, user_high_id, id) INCLUDE (sender_id)
+        WITH (DROP_EXISTING = ON)
+    PRINT 'Rebuilt IX_messages_pair_id with sender_id included'
+END
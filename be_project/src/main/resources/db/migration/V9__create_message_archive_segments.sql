@@ -0,0 +1,26 @@
+-- Compressed archive segments for old messages (one conversation per segment)
+
+IF OBJECT_ID('dbo.message_archive_segments', 'U') IS NULL
+BEGIN
+    CREATE TABLE dbo.message_archive_segments (
+        id BIGINT IDENTITY PRIMARY KEY,
+        user_low_id BIGINT NOT NULL,
+        user_high_id BIGINT NOT NULL,
+        first_id BIGINT NOT NULL,
+        last_id BIGINT NOT NULL,
+        message_count INT NOT NULL,
+        first_created_at DATETIME2 NOT NULL,
+        last_created_at DATETIME2 NOT NULL,
+        payload VARBINARY(MAX) NOT NULL,
+        created_at DATETIME2 NOT NULL DEFAULT SYSDATETIME()
+    )
+    PRINT 'Created table dbo.message_archive_segments'
+END
+
+-- Sparse per-conversation index: which segment holds which id range
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_archive_segments_pair_last' AND object_id = OBJECT_ID('dbo.message_archive_segments'))
+BEGIN
+    CREATE INDEX IX_archive_segments_pair_last ON dbo.message_archive_segments (user_low_id, user_high_id, last_id)
+        INCLUDE (first_id)
+    PRINT 'Created index IX_archive_segments_pair_last'
+END
@@ -0,0 +1,63 @@
+package com.mathbridge.be_project.badge;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UnreadCountersTest {
+
+	@Test
+	void reconcileKeepsDeltasAppliedWhileScanning() throws Exception {
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		UnreadCounters counters = new UnreadCounters(jdbcTemplate, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(counters, "maxEntries", 200_000);
+
+		// Users 1 and 65 share a stripe; both receive messages while the scan runs
+		doAnswer(invocation -> {
+			counters.addMessages(1L, 2);
+			counters.addMessages(65L, 1);
+			counters.addNotifications(2L, 1);
+			emit(invocation.getArgument(1), 1L, 5);
+			return null;
+		}).when(jdbcTemplate).query(contains("FROM conversations"), any(RowCallbackHandler.class));
+		doAnswer(invocation -> {
+			emit(invocation.getArgument(1), 2L, 3);
+			return null;
+		}).when(jdbcTemplate).query(contains("FROM notifications"), any(RowCallbackHandler.class));
+
+		counters.reconcile(true);
+
+		assertEquals(Map.of("messages", 7L, "notifications", 0L), counters.getBadges(1L));
+		assertEquals(Map.of("messages", 1L, "notifications", 0L), counters.getBadges(65L));
+		assertEquals(Map.of("messages", 0L, "notifications", 4L), counters.getBadges(2L));
+		verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Long.class), any(Object[].class));
+
+		// Deltas after the scan are applied to the installed counts and no longer recorded
+		counters.addMessages(1L, -7);
+		assertEquals(Map.of("messages", 0L, "notifications", 0L), counters.getBadges(1L));
+		assertEquals(3, counters.size());
+	}
+
+	private static void emit(RowCallbackHandler handler, long userId, long count) throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong(1)).thenReturn(userId);
+		when(rs.getLong(2)).thenReturn(count);
+		handler.processRow(rs);
+	}
+}
@@ -0,0 +1,48 @@
+package com.mathbridge.be_project.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CsvWriterTest {
+
+	@Test
+	void quotesSeparatorsQuotesAndLineBreaks() throws Exception {
+		StringWriter out = new StringWriter();
+		CsvWriter csv = new CsvWriter(out);
+		csv.writeRow("a,b", "say \"hi\"", "line\nbreak", null, 5);
+		assertEquals("\"a,b\",\"say \"\"hi\"\"\",\"line\nbreak\",,5\r\n", out.toString());
+	}
+
+	@Test
+	void escapesTextThatLooksLikeAFormula() {
+		assertEquals("'=HYPERLINK(\"http://x\",\"y\")", CsvWriter.escapeFormula("=HYPERLINK(\"http://x\",\"y\")"));
+		assertEquals("'=cmd|' /C calc'!A0", CsvWriter.escapeFormula("=cmd|' /C calc'!A0"));
+		assertEquals("'+1", CsvWriter.escapeFormula("+1"));
+		assertEquals("'-1+2", CsvWriter.escapeFormula("-1+2"));
+		assertEquals("'@SUM(A1)", CsvWriter.escapeFormula("@SUM(A1)"));
+		assertEquals("'\t=1", CsvWriter.escapeFormula("\t=1"));
+		assertEquals("'\r=1", CsvWriter.escapeFormula("\r=1"));
+	}
+
+	@Test
+	void leavesPlainTextAndNonTextValuesAlone() {
+		assertEquals("Nguyễn Văn A", CsvWriter.escapeFormula("Nguyễn Văn A"));
+		assertEquals("a=b", CsvWriter.escapeFormula("a=b"));
+		assertEquals("", CsvWriter.escapeFormula(""));
+		Integer negative = -5;
+		assertSame(negative, CsvWriter.escapeFormula(negative));
+		assertEquals(null, CsvWriter.escapeFormula(null));
+	}
+
+	@Test
+	void escapedFormulaIsStillQuotedWhenNeeded() throws Exception {
+		StringWriter out = new StringWriter();
+		CsvWriter csv = new CsvWriter(out);
+		csv.writeRow(CsvWriter.escapeFormula("=HYPERLINK(\"http://x\",\"y\")"));
+		assertEquals("\"'=HYPERLINK(\"\"http://x\"\",\"\"y\"\")\"\r\n", out.toString());
+	}
+}
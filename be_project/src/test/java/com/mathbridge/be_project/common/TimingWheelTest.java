@@ -0,0 +1,110 @@
+package com.mathbridge.be_project.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+	// 10 ms ticks, 4 buckets: level 0 spans 40 ms, level 1 160 ms, level 2 640 ms, level 3 2560 ms
+	private static final long TICK = 10;
+	private static final int SIZE = 4;
+
+	@Test
+	void firesOnTheTickBoundaryAtOrAfterTheDeadline() {
+		TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, 0);
+		wheel.schedule("a", 25);
+
+		assertEquals(List.of(), wheel.advance(29));
+		assertTrue(wheel.contains("a"));
+		assertEquals(List.of("a"), wheel.advance(30));
+		assertFalse(wheel.contains("a"));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void pastDeadlinesFireOnTheNextAdvance() {
+		TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, 1_000);
+		wheel.schedule("late", 500);
+
+		assertEquals(List.of("late"), wheel.advance(1_000));
+	}
+
+	@Test
+	void cascadesFarDeadlinesDownThroughEveryLevel() {
+		TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, 0);
+		wheel.schedule("level1", 100);
+		wheel.schedule("level2", 400);
+		wheel.schedule("level3", 1_000);
+
+		List<String> fired = new ArrayList<>();
+		List<Long> firedAt = new ArrayList<>();
+		for (long now = 1; now <= 1_200; now++) {
+			for (String key : wheel.advance(now)) {
+				fired.add(key);
+				firedAt.add(now);
+			}
+		}
+		assertEquals(List.of("level1", "level2", "level3"), fired);
+		assertEquals(List.of(100L, 400L, 1_000L), firedAt);
+	}
+
+	@Test
+	void oneLargeAdvanceReturnsEverythingDue() {
+		TimingWheel<Integer> wheel = new TimingWheel<>(TICK, SIZE, 3);
+		for (int i = 0; i < 100; i++) {
+			wheel.schedule(i, 3 + i * 37L);
+		}
+
+		List<Integer> fired = wheel.advance(3 + 50 * 37L + TICK - 1);
+		assertEquals(51, fired.size());
+		assertTrue(fired.containsAll(List.of(0, 25, 50)));
+		assertFalse(fired.contains(51));
+		assertEquals(49, wheel.size());
+		assertEquals(49, wheel.advance(10_000).size());
+	}
+
+	@Test
+	void cancelledKeysNeverFire() {
+		TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, 0);
+		wheel.schedule("a", 500);
+		wheel.schedule("b", 500);
+		wheel.schedule("past", -5);
+
+		assertTrue(wheel.cancel("a"));
+		assertFalse(wheel.cancel("a"));
+		assertTrue(wheel.cancel("past"));
+		assertFalse(wheel.cancel("unknown"));
+
+		assertEquals(List.of(), wheel.advance(499));
+		assertEquals(List.of("b"), wheel.advance(500));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void reschedulingMovesTheDeadline() {
+		TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, 0);
+		wheel.schedule("later", 100);
+		wheel.schedule("sooner", 1_000);
+		wheel.schedule("later", 300);
+		wheel.schedule("sooner", 50);
+		assertEquals(2, wheel.size());
+
+		assertEquals(List.of("sooner"), wheel.advance(50));
+		assertEquals(List.of(), wheel.advance(299));
+		assertEquals(List.of("later"), wheel.advance(300));
+		assertEquals(List.of(), wheel.advance(2_000));
+	}
+
+	@Test
+	void rejectsInvalidGeometry() {
+		assertThrows(IllegalArgumentException.class, () -> new TimingWheel<>(0, SIZE, 0));
+		assertThrows(IllegalArgumentException.class, () -> new TimingWheel<>(TICK, 1, 0));
+	}
+}
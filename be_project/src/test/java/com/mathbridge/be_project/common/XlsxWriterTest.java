@@ -0,0 +1,106 @@
+package com.mathbridge.be_project.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class XlsxWriterTest {
+
+	@Test
+	void escapesXmlAndDropsControlCharacters() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (XlsxWriter xlsx = new XlsxWriter(out, "Feedback")) {
+			xlsx.writeHeader("Tên", "Điểm");
+			xlsx.writeRow("<b>Tom & \"Jerry\"</b>\u0001\u0007 tab\tok", 4.5);
+		}
+
+		String sheet = unzip(out).get("xl/worksheets/sheet1.xml");
+		assertTrue(sheet.contains("<t>Tên</t>"));
+		assertTrue(sheet.contains("<t xml:space=\"preserve\">&lt;b&gt;Tom &amp; &quot;Jerry&quot;&lt;/b&gt; tab\tok</t>"));
+		assertTrue(sheet.contains("<c><v>4.5</v></c>"));
+		assertFalse(sheet.contains("\u0001"));
+	}
+
+	@Test
+	void writesNumbersAsValuesAndNonFiniteOnesAsText() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (XlsxWriter xlsx = new XlsxWriter(out, "Sessions")) {
+			xlsx.writeRow(new BigDecimal("1E+3"), 7, Double.NaN, null);
+		}
+
+		String sheet = unzip(out).get("xl/worksheets/sheet1.xml");
+		assertTrue(sheet.contains("<row r=\"1\"><c><v>1000</v></c><c><v>7</v></c>"
+				+ "<c t=\"inlineStr\"><is><t xml:space=\"preserve\">NaN</t></is></c><c/></row>"));
+	}
+
+	@Test
+	void rollsOverToANewSheetWithTheHeaderAtTheRowLimit() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (XlsxWriter xlsx = new XlsxWriter(out, "Export", 3)) {
+			xlsx.writeHeader("id");
+			for (int i = 1; i <= 5; i++) {
+				xlsx.writeRow(i);
+			}
+		}
+
+		Map<String, String> parts = unzip(out);
+		String first = parts.get("xl/worksheets/sheet1.xml");
+		String second = parts.get("xl/worksheets/sheet2.xml");
+		String third = parts.get("xl/worksheets/sheet3.xml");
+		assertEquals(3, count(first, "<row "));
+		assertTrue(first.contains("<row r=\"3\"><c><v>2</v></c></row>"));
+		assertTrue(second.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+				+ "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>"
+				+ "<row r=\"1\"><c t=\"inlineStr\" s=\"1\"><is><t>id</t></is></c></row>"
+				+ "<row r=\"2\"><c><v>3</v></c></row><row r=\"3\"><c><v>4</v></c></row>"));
+		assertTrue(third.contains("<row r=\"2\"><c><v>5</v></c></row></sheetData></worksheet>"));
+		assertFalse(parts.containsKey("xl/worksheets/sheet4.xml"));
+
+		String workbook = parts.get("xl/workbook.xml");
+		assertTrue(workbook.contains("<sheet name=\"Export 1\" sheetId=\"1\" r:id=\"rId1\"/>"));
+		assertTrue(workbook.contains("<sheet name=\"Export 3\" sheetId=\"3\" r:id=\"rId3\"/>"));
+		assertTrue(parts.get("[Content_Types].xml").contains("/xl/worksheets/sheet3.xml"));
+		assertTrue(parts.get("xl/_rels/workbook.xml.rels").contains("Id=\"rId4\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\""));
+	}
+
+	@Test
+	void emptyWorkbookStillHasOneSheet() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new XlsxWriter(out, "Empty").close();
+
+		Map<String, String> parts = unzip(out);
+		assertTrue(parts.get("xl/worksheets/sheet1.xml").endsWith("<sheetData></sheetData></worksheet>"));
+		assertTrue(parts.get("xl/workbook.xml").contains("<sheet name=\"Empty\" sheetId=\"1\""));
+	}
+
+	private static Map<String, String> unzip(ByteArrayOutputStream out) throws IOException {
+		Map<String, String> parts = new LinkedHashMap<>();
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()), StandardCharsets.UTF_8)) {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				parts.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+			}
+		}
+		return parts;
+	}
+
+	private static int count(String text, String needle) {
+		int count = 0;
+		for (int i = text.indexOf(needle); i >= 0; i = text.indexOf(needle, i + 1)) {
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,108 @@
+package com.mathbridge.be_project.feedback;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FeedbackTutorMatcherTest {
+
+	@Test
+	void normalizeFoldsCaseDiacriticsAndHonorifics() {
+		assertEquals("nguyen van duc", FeedbackTutorMatcher.normalize("Thầy Nguyễn Văn Đức"));
+		assertEquals("tran thi huong", FeedbackTutorMatcher.normalize("ThS.  Trần   Thị Hương"));
+		assertEquals("le minh", FeedbackTutorMatcher.normalize("Cô Lê-Minh"));
+		assertEquals("hung", FeedbackTutorMatcher.normalize("GV: hùng!"));
+		assertEquals("", FeedbackTutorMatcher.normalize("Thầy cô"));
+		assertEquals("", FeedbackTutorMatcher.normalize(null));
+	}
+
+	@Test
+	void exactNameMatchesAfterNormalization() throws Exception {
+		FeedbackTutorMatcher matcher = matcher("Nguyễn Văn Đức", "Trần Thị Hương");
+
+		assertEquals(1L, matcher.matchExact("thầy nguyen van duc"));
+		assertEquals(new FeedbackTutorMatcher.Match(2L, 1.0, false), matcher.matchFuzzy("Cô TRẦN THỊ HƯƠNG"));
+		assertNull(matcher.matchExact("Nguyễn Văn"));
+	}
+
+	@Test
+	void fuzzyMatchAcceptsTyposAndReorderedNames() throws Exception {
+		FeedbackTutorMatcher matcher = matcher("Nguyễn Văn Đức", "Trần Thị Hương", "Lê Văn Hùng");
+
+		FeedbackTutorMatcher.Match typo = matcher.matchFuzzy("Nguyen Van Duk");
+		assertEquals(1L, typo.tutorId());
+		assertTrue(typo.score() >= 0.85);
+
+		assertEquals(1L, matcher.matchFuzzy("Đức Nguyễn Văn").tutorId());
+	}
+
+	@Test
+	void givenNameAloneOnlyMatchesWhenUnique() throws Exception {
+		FeedbackTutorMatcher unique = matcher("Nguyễn Văn Đức", "Lê Văn Hùng");
+		assertEquals(new FeedbackTutorMatcher.Match(2L, 0.9, false), unique.matchFuzzy("Thầy Hùng"));
+
+		FeedbackTutorMatcher shared = matcher("Lê Văn Hùng", "Đỗ Hùng");
+		assertEquals(new FeedbackTutorMatcher.Match(null, 0.9, true), shared.matchFuzzy("Thầy Hùng"));
+	}
+
+	@Test
+	void closeRunnerUpMakesTheMatchAmbiguous() throws Exception {
+		FeedbackTutorMatcher matcher = matcher("Trần Văn Anh", "Trần Văn Ang");
+
+		FeedbackTutorMatcher.Match match = matcher.matchFuzzy("Tran Van Anb");
+		assertNull(match.tutorId());
+		assertTrue(match.ambiguous());
+	}
+
+	@Test
+	void duplicateNamesAreAmbiguous() throws Exception {
+		FeedbackTutorMatcher matcher = matcher("Phạm Minh Anh", "Pham Minh Anh");
+
+		assertNull(matcher.matchExact("Phạm Minh Anh"));
+		assertEquals(new FeedbackTutorMatcher.Match(null, 1.0, true), matcher.matchFuzzy("Phạm Minh Anh"));
+	}
+
+	@Test
+	void weakMatchesAreRejectedWithoutAmbiguity() throws Exception {
+		FeedbackTutorMatcher matcher = matcher("Nguyễn Văn Đức", "Trần Thị Hương");
+
+		FeedbackTutorMatcher.Match match = matcher.matchFuzzy("Phạm Quốc Bảo");
+		assertNull(match.tutorId());
+		assertFalse(match.ambiguous());
+		assertEquals(new FeedbackTutorMatcher.Match(null, 0, false), matcher.matchFuzzy("Thầy"));
+	}
+
+	// Tutors get ids 1..n in the order given
+	private static FeedbackTutorMatcher matcher(String... tutorNames) throws Exception {
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		doAnswer(invocation -> {
+			RowCallbackHandler handler = invocation.getArgument(1);
+			for (int i = 0; i < tutorNames.length; i++) {
+				ResultSet rs = mock(ResultSet.class);
+				when(rs.getLong(1)).thenReturn(i + 1L);
+				when(rs.getString(2)).thenReturn(tutorNames[i]);
+				handler.processRow(rs);
+			}
+			return null;
+		}).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+		FeedbackTutorMatcher matcher = new FeedbackTutorMatcher(jdbcTemplate);
+		ReflectionTestUtils.setField(matcher, "cacheTtlSeconds", 300L);
+		ReflectionTestUtils.setField(matcher, "minScore", 0.85);
+		ReflectionTestUtils.setField(matcher, "minMargin", 0.05);
+		return matcher;
+	}
+}
@@ -3,7 +3,12 @@
 import React, { useEffect, useState, useRef } from "react";
 import { useRouter } from "next/navigation";
 import Link from "next/link";
-import { sendMessage, getConversation, getAllMessages, markConversationAsRead, Message, apiCall } from "@/lib/api";
+import { sendMessage, getConversation, getInbox, getMessagesSince, getPresence, markConversationAsRead, InboxEntry, Message, PresenceEntry, apiCall } from "@/lib/api";
+import { StompClient } from "@/lib/stomp";
+
+const PAGE_SIZE = 50;
+const PRESENCE_HEARTBEAT_MS = 20000;
+const TYPING_THROTTLE_MS = 3000;
 
 interface User {
   id: number;
@@ -22,8 +27,17 @@ export default function ChatPage() {
   const [loading, setLoading] = useState(true);
   const [sending, setSending] = useState(false);
   const [conversations, setConversations] = useState<Map<number, Message[]>>(new Map());
+  const [inbox, setInbox] = useState<Map<number, InboxEntry>>(new Map());
+  const [hasOlder, setHasOlder] = useState(false);
+  const [loadingOlder, setLoadingOlder] = useState(false);
   const messagesEndRef = useRef<HTMLDivElement>(null);
-  const pollIntervalRef = useRef<NodeJS.Timeout | null>(null);
+  const selectedUserIdRef = useRef<number | null>(null);
+  const lastSeenIdRef = useRef(0);
+  const clientRef = useRef<StompClient | null>(null);
+  const lastTypingSentRef = useRef(0);
+  const [stompConnected, setStompConnected] = useState(false);
+  const [presence, setPresence] = useState<Map<number, PresenceEntry>>(new Map());
+  const [typingFrom, setTypingFrom] = useState<Set<number>>(new Set());
 
   useEffect(() => {
     if (typeof window === "undefined") return;
@@ -40,6 +54,7 @@ export default function ChatPage() {
   useEffect(() => {
     if (currentUser) {
       loadUsers();
+      loadInbox();
     }
   }, [currentUser]);
 
@@ -47,28 +62,128 @@ export default function ChatPage() {
     if (selectedUserId) {
       loadConversation(selectedUserId);
       markConversationAsRead(selectedUserId).catch(console.error);
+      updateInboxEntry(selectedUserId, (entry) => ({ ...entry, unreadCount: 0 }));
     }
   }, [selectedUserId]);
 
+  const lastMessageId = messages.length > 0 ? messages[messages.length - 1].id : 0;
+
   useEffect(() => {
-    // Auto-scroll to bottom when messages change
+    // Auto-scroll to bottom when a newer message arrives (not when older pages are prepended)
     scrollToBottom();
-  }, [messages]);
+  }, [lastMessageId]);
 
   useEffect(() => {
-    // Poll for new messages every 3 seconds
-    if (selectedUserId) {
-      pollIntervalRef.current = setInterval(() => {
-        loadConversation(selectedUserId);
-      }, 3000);
-    }
+    selectedUserIdRef.current = selectedUserId;
+  }, [selectedUserId]);
+
+  useEffect(() => {
+    // Real-time delivery over WebSocket; on every (re)connect catch up from the last seen message id
+    if (!currentUser) return;
+
+    const client = new StompClient({
+      onConnect: () => {
+        client.send("/app/presence.heartbeat", {});
+        setStompConnected(true);
+        if (lastSeenIdRef.current > 0) {
+          getMessagesSince(lastSeenIdRef.current)
+            .then((missed) => missed.forEach(receiveMessage))
+            .catch(console.error);
+        }
+      },
+    });
+    client.subscribe("/user/queue/messages", (body) => receiveMessage(JSON.parse(body) as Message));
+    client.subscribe("/user/queue/typing", (body) => {
+      const { userId, typing } = JSON.parse(body) as { userId: number; typing: boolean };
+      setTypingFrom((prev) => {
+        const next = new Set(prev);
+        if (typing) next.add(userId);
+        else next.delete(userId);
+        return next;
+      });
+    });
+    client.connect();
+    clientRef.current = client;
+    const heartbeat = setInterval(() => client.send("/app/presence.heartbeat", {}), PRESENCE_HEARTBEAT_MS);
 
     return () => {
-      if (pollIntervalRef.current) {
-        clearInterval(pollIntervalRef.current);
-      }
+      clearInterval(heartbeat);
+      clientRef.current = null;
+      setStompConnected(false);
+      client.disconnect();
     };
-  }, [selectedUserId]);
+  }, [currentUser]);
+
+  useEffect(() => {
+    // Initial presence of the contact list in one batched call, then live updates per contact
+    const client = clientRef.current;
+    if (!client || !stompConnected || users.length === 0) return;
+
+    getPresence(users.map((u) => u.id))
+      .then((entries) => setPresence(new Map(entries.map((e) => [e.userId, e]))))
+      .catch(console.error);
+    const unsubscribers = users.map((u) =>
+      client.subscribe(`/topic/presence.${u.id}`, (body) => {
+        const update = JSON.parse(body) as PresenceEntry;
+        setPresence((prev) => new Map(prev).set(update.userId, { ...update, typing: false }));
+      })
+    );
+    return () => unsubscribers.forEach((unsubscribe) => unsubscribe());
+  }, [users, stompConnected]);
+
+  const notifyTyping = (value: string) => {
+    const client = clientRef.current;
+    if (!client || !selectedUserId) return;
+    const now = Date.now();
+    if (value && now - lastTypingSentRef.current > TYPING_THROTTLE_MS) {
+      lastTypingSentRef.current = now;
+      client.send("/app/presence.typing", { toUserId: selectedUserId, typing: true });
+    } else if (!value && lastTypingSentRef.current > 0) {
+      lastTypingSentRef.current = 0;
+      client.send("/app/presence.typing", { toUserId: selectedUserId, typing: false });
+    }
+  };
+
+  const rememberLastSeen = (list: Message[]) => {
+    for (const message of list) {
+      if (message.id > lastSeenIdRef.current) lastSeenIdRef.current = message.id;
+    }
+  };
+
+  const appendUnique = (list: Message[], message: Message) =>
+    list.some((m) => m.id === message.id) ? list : [...list, message];
+
+  const receiveMessage = (message: Message) => {
+    if (!currentUser) return;
+    rememberLastSeen([message]);
+
+    const otherUserId = message.senderId === currentUser.id ? message.receiverId : message.senderId;
+    setConversations((prev) => {
+      const newMap = new Map(prev);
+      newMap.set(otherUserId, appendUnique(prev.get(otherUserId) || [], message));
+      return newMap;
+    });
+
+    const isOpen = otherUserId === selectedUserIdRef.current;
+    updateInboxEntry(otherUserId, (entry) =>
+      message.id <= entry.lastMessageId
+        ? entry
+        : {
+            ...entry,
+            lastMessageId: message.id,
+            lastSenderId: message.senderId,
+            lastMessage: message.content,
+            lastMessageAt: message.createdAt,
+            unreadCount: !isOpen && message.senderId !== currentUser.id ? entry.unreadCount + 1 : entry.unreadCount,
+          });
+
+    if (isOpen) {
+      setMessages((prev) => appendUnique(prev, message));
+      if (message.senderId !== currentUser.id) {
+        markConversationAsRead(otherUserId).catch(console.error);
+      }
+    }
+  };
 
   const loadCurrentUser = async () => {
     try {
@@ -214,9 +329,40 @@ export default function ChatPage() {
     }
   };
 
+  const loadInbox = async () => {
+    try {
+      // The inbox is one row per conversation, so one page covers the sidebar
+      const page = await getInbox(0, 100);
+      setInbox(new Map(page.items.map((entry) => [entry.otherUserId, entry])));
+    } catch (error) {
+      console.error("Failed to load inbox:", error);
+    }
+  };
+
+  const updateInboxEntry = (otherUserId: number, update: (entry: InboxEntry) => InboxEntry) => {
+    setInbox((prev) => {
+      const entry = prev.get(otherUserId) ?? {
+        conversationId: 0,
+        otherUserId,
+        otherUserName: "",
+        otherUserEmail: "",
+        lastMessageId: 0,
+        lastSenderId: 0,
+        lastMessage: "",
+        lastMessageAt: "",
+        unreadCount: 0,
+      };
+      const newMap = new Map(prev);
+      newMap.set(otherUserId, update(entry));
+      return newMap;
+    });
+  };
+
   const loadConversation = async (otherUserId: number) => {
     try {
-      const conversationMessages = await getConversation(otherUserId);
+      const conversationMessages = await getConversation(otherUserId, { limit: PAGE_SIZE });
+      rememberLastSeen(conversationMessages);
+      setHasOlder(conversationMessages.length === PAGE_SIZE);
       setMessages(conversationMessages);
       setConversations((prev) => {
         const newMap = new Map(prev);
@@ -229,6 +375,21 @@ export default function ChatPage() {
     }
   };
 
+  const loadOlderMessages = async () => {
+    if (!selectedUserId || messages.length === 0 || loadingOlder) return;
+
+    setLoadingOlder(true);
+    try {
+      const older = await getConversation(selectedUserId, { before: messages[0].id, limit: PAGE_SIZE });
+      setHasOlder(older.length === PAGE_SIZE);
+      setMessages((prev) => [...older, ...prev]);
+    } catch (error) {
+      console.error("Failed to load older messages:", error);
+    } finally {
+      setLoadingOlder(false);
+    }
+  };
+
   const handleSendMessage = async () => {
     if (!newMessage.trim() || !selectedUserId || sending) return;
 
@@ -239,8 +400,9 @@ export default function ChatPage() {
         content: newMessage.trim(),
       });
       setNewMessage("");
-      // Reload conversation to get the new message
-      await loadConversation(selectedUserId);
+      notifyTyping("");
+      // The WebSocket push may arrive first; receiveMessage ignores duplicates
+      receiveMessage(sentMessage);
     } catch (error) {
       console.error("Failed to send message:", error);
       alert("Không thể gửi tin nhắn. Vui lòng thử lại.");
@@ -274,10 +436,12 @@ export default function ChatPage() {
     }
   };
 
-  const getUnreadCount = (userId: number) => {
-    const conversation = conversations.get(userId) || [];
-    return conversation.filter((msg) => !msg.isRead && msg.receiverId === currentUser?.id).length;
-  };
+  const getUnreadCount = (userId: number) => inbox.get(userId)?.unreadCount ?? 0;
+
+  // Users with recent conversations first
+  const sortedUsers = [...users].sort(
+    (a, b) => (inbox.get(b.id)?.lastMessageId ?? 0) - (inbox.get(a.id)?.lastMessageId ?? 0)
+  );
 
   if (loading) {
     return (
@@ -326,8 +490,9 @@ export default function ChatPage() {
               Chưa có {isTutor ? "học sinh" : "giảng viên"} nào.
             </div>
           ) : (
-            users.map((user) => {
+            sortedUsers.map((user) => {
               const unreadCount = getUnreadCount(user.id);
+              const lastMessage = inbox.get(user.id)?.lastMessage;
               return (
                 <button
                   key={user.id}
@@ -339,7 +504,7 @@ export default function ChatPage() {
                   <div className="flex items-center justify-between">
                     <div className="flex-1 min-w-0">
                       <p className="font-semibold text-orange-100 truncate">{user.fullName || user.email}</p>
-                      <p className="text-xs text-orange-200/60 truncate">{user.email}</p>
+                      <p className="text-xs text-orange-200/60 truncate">{lastMessage || user.email}</p>
                     </div>
                     {unreadCount > 0 && (
                       <span className="ml-2 flex-shrink-0 rounded-full bg-orange-500 px-2 py-1 text-xs font-bold text-white">
@@ -367,7 +532,13 @@ export default function ChatPage() {
                     <h3 className="text-lg font-semibold text-orange-200">
                       {selectedUser?.fullName || selectedUser?.email || "Người dùng"}
                     </h3>
-                    <p className="text-sm text-orange-200/60">{selectedUser?.email}</p>
+                    <p className="text-sm text-orange-200/60">
+                      {typingFrom.has(selectedUserId)
+                        ? "Đang nhập..."
+                        : presence.get(selectedUserId)?.online
+                          ? "Đang hoạt động"
+                          : selectedUser?.email}
+                    </p>
                   </div>
                 );
               })()}
@@ -375,6 +546,17 @@ export default function ChatPage() {
 
             {/* Messages */}
             <div className="flex-1 overflow-y-auto p-4 space-y-4">
+              {hasOlder && (
+                <div className="flex justify-center">
+                  <button
+                    onClick={loadOlderMessages}
+                    disabled={loadingOlder}
+                    className="text-xs text-orange-300 hover:text-orange-200 disabled:opacity-50"
+                  >
+                    {loadingOlder ? "Đang tải..." : "Xem tin nhắn cũ hơn"}
+                  </button>
+                </div>
+              )}
               {messages.length === 0 ? (
                 <div className="flex items-center justify-center h-full">
                   <p className="text-orange-200/70">Chưa có tin nhắn nào. Hãy bắt đầu cuộc trò chuyện!</p>
@@ -413,7 +595,10 @@ export default function ChatPage() {
                 <input
                   type="text"
                   value={newMessage}
-                  onChange={(e) => setNewMessage(e.target.value)}
+                  onChange={(e) => {
+                    setNewMessage(e.target.value);
+                    notifyTyping(e.target.value);
+                  }}
                   onKeyPress={(e) => {
                     if (e.key === "Enter" && !e.shiftKey) {
                       e.preventDefault();
@@ -140,6 +140,7 @@ export default function MySchedulePage() {
             CONFIRMED: "Đã xác nhận",
             COMPLETED: "Đã hoàn thành",
             CANCELLED: "Đã hủy",
+            EXPIRED: "Đã quá hạn",
         };
         return statusMap[status] || status;
     };
@@ -150,6 +151,7 @@ export default function MySchedulePage() {
             CONFIRMED: "bg-green-500/20 text-green-300 border-green-500/50",
             COMPLETED: "bg-gray-500/20 text-gray-300 border-gray-500/50",
             CANCELLED: "bg-red-500/20 text-red-300 border-red-500/50",
+            EXPIRED: "bg-yellow-500/20 text-yellow-300 border-yellow-500/50",
         };
         return colorMap[status] || "bg-orange-500/20 text-orange-300 border-orange-500/50";
     };
@@ -37,6 +37,8 @@ export interface FeedbackRequest {
   comments: string;
   suggestions?: string;
   anonymous?: boolean;
+  tutorId?: number; // optional, otherwise matched from teacher
+  sessionId?: number; // optional, implies the tutor
 }
 
 export interface Feedback {
@@ -51,10 +53,22 @@ export interface Feedback {
   comments: string;
   suggestions?: string;
   anonymous: boolean;
+  tutorId?: number | null;
+  sessionId?: number | null;
   createdAt: string;
   updatedAt: string;
 }
 
+export interface FeedbackStats {
+  name: string | null;
+  count: number;
+  averageRating: number | null;
+  ratingHistogram: Record<'1' | '2' | '3' | '4' | '5', number>;
+  usefulRatio: number | null;
+  modes: Record<'IN_PERSON' | 'ONLINE' | 'HYBRID' | 'OTHER', number>;
+  updatedAt?: string;
+}
+
 /**
  * Login API call
  */
@@ -275,11 +289,17 @@ export async function apiCall<T>(
   }
 }
 
+export interface FeedbackSubmission {
+  submissionId: string;
+  status: 'QUEUED' | 'SPOOLED' | 'PENDING' | 'SAVED';
+  feedbackId?: number;
+}
+
 /**
- * Create feedback
+ * Create feedback (202 + submission id when the server queues it, the saved feedback otherwise)
  */
-export async function createFeedback(data: FeedbackRequest): Promise<Feedback> {
-  return apiCall<Feedback>('/api/feedback', {
+export async function createFeedback(data: FeedbackRequest): Promise<Feedback | FeedbackSubmission> {
+  return apiCall<Feedback | FeedbackSubmission>('/api/feedback', {
     method: 'POST',
     body: JSON.stringify(data),
   });
@@ -292,6 +312,94 @@ export async function getAllFeedbacks(): Promise<Feedback[]> {
   return apiCall<Feedback[]>('/api/feedback');
 }
 
+/**
+ * Check whether a queued feedback submission has been saved
+ */
+export async function getFeedbackSubmission(submissionId: string): Promise<FeedbackSubmission> {
+  return apiCall<FeedbackSubmission>(`/api/feedback/submissions/${encodeURIComponent(submissionId)}`);
+}
+
+/**
+ * Get a tutor's feedback, newest first; pass the previous page's nextCursor to go further back
+ */
+export async function getTutorFeedbacks(
+  tutorId: number,
+  cursor?: string | null,
+  limit = 20
+): Promise<{ items: Feedback[]; nextCursor: string | null }> {
+  const params = new URLSearchParams({ limit: String(limit) });
+  if (cursor) params.set('cursor', cursor);
+  return apiCall<{ items: Feedback[]; nextCursor: string | null }>(`/api/feedback/tutor/${tutorId}?${params}`);
+}
+
+/**
+ * Get feedback statistics for a teacher, a course, or overall
+ */
+export async function getFeedbackStats(scope?: { teacher?: string; course?: string }): Promise<FeedbackStats> {
+  if (scope?.teacher) {
+    return apiCall<FeedbackStats>(`/api/feedback/stats/teacher/${encodeURIComponent(scope.teacher)}`);
+  }
+  if (scope?.course) {
+    return apiCall<FeedbackStats>(`/api/feedback/stats/course/${encodeURIComponent(scope.course)}`);
+  }
+  return apiCall<FeedbackStats>('/api/feedback/stats');
+}
+
+// Admin export interfaces and functions
+export interface ExportRequest {
+  dataset: 'FEEDBACK' | 'SESSIONS';
+  format?: 'CSV' | 'XLSX';
+  from?: string; // yyyy-MM-dd
+  to?: string;
+  tutorId?: number;
+  teacher?: string;
+  course?: string;
+}
+
+export interface ExportJob extends ExportRequest {
+  jobId: string;
+  status: 'QUEUED' | 'RUNNING' | 'DONE' | 'FAILED' | 'CANCELLED';
+  rows: number;
+  sizeBytes: number | null;
+  createdAt: string;
+  startedAt: string | null;
+  finishedAt: string | null;
+  error: string | null;
+  downloadUrl: string | null;
+}
+
+/**
+ * Start a background export (admin); poll getExport until status is DONE
+ */
+export async function createExport(data: ExportRequest): Promise<ExportJob> {
+  return apiCall<ExportJob>('/api/admin/exports', {
+    method: 'POST',
+    body: JSON.stringify(data),
+  });
+}
+
+export async function getExport(jobId: string): Promise<ExportJob> {
+  return apiCall<ExportJob>(`/api/admin/exports/${jobId}`);
+}
+
+export async function getExports(): Promise<ExportJob[]> {
+  return apiCall<ExportJob[]>('/api/admin/exports');
+}
+
+/**
+ * Download a finished export as a Blob (the endpoint needs the bearer token, so a plain link will not work)
+ */
+export async function downloadExport(job: ExportJob): Promise<Blob> {
+  const token = getToken();
+  const response = await fetch(`${API_BASE_URL}${job.downloadUrl}`, {
+    headers: token ? { Authorization: `Bearer ${token}` } : {},
+  });
+  if (!response.ok) {
+    throw new Error(`Không thể tải file xuất (${response.status})`);
+  }
+  return response.blob();
+}
+
 // Message/Chat interfaces and functions
 export interface Message {
   id: number;
@@ -321,11 +429,23 @@ export async function sendMessage(data: MessageRequest): Promise<Message> {
   });
 }
 
+export interface ConversationPageParams {
+  before?: number; // Older than this message id
+  after?: number; // Newer than this message id
+  limit?: number;
+}
+
 /**
- * Get conversation between current user and another user
+ * Get one page of the conversation between current user and another user (oldest first).
+ * Without cursors this returns the latest page.
  */
-export async function getConversation(otherUserId: number): Promise<Message[]> {
-  return apiCall<Message[]>(`/api/messages/conversation/${otherUserId}`);
+export async function getConversation(otherUserId: number, params: ConversationPageParams = {}): Promise<Message[]> {
+  const query = new URLSearchParams();
+  if (params.before !== undefined) query.set('before', String(params.before));
+  if (params.after !== undefined) query.set('after', String(params.after));
+  if (params.limit !== undefined) query.set('limit', String(params.limit));
+  const suffix = query.toString() ? `?${query.toString()}` : '';
+  return apiCall<Message[]>(`/api/messages/conversation/${otherUserId}${suffix}`);
 }
 
 /**
@@ -342,6 +462,66 @@ export async function getAllMessages(): Promise<Message[]> {
   return apiCall<Message[]>('/api/messages/all');
 }
 
+export interface Badges {
+  messages: number;
+  notifications: number;
+}
+
+/**
+ * Unread message and notification counts for the header badge
+ */
+export async function getBadges(): Promise<Badges> {
+  return apiCall<Badges>('/api/me/badges');
+}
+
+export interface InboxEntry {
+  conversationId: number;
+  otherUserId: number;
+  otherUserName: string;
+  otherUserEmail: string;
+  lastMessageId: number;
+  lastSenderId: number;
+  lastMessage: string;
+  lastMessageAt: string;
+  unreadCount: number;
+}
+
+export interface InboxPage {
+  items: InboxEntry[];
+  page: number;
+  size: number;
+  totalElements: number;
+  totalPages: number;
+}
+
+/**
+ * Get one page of the inbox (one entry per conversation, most recent first)
+ */
+export async function getInbox(page = 0, size = 20): Promise<InboxPage> {
+  return apiCall<InboxPage>(`/api/messages/inbox?page=${page}&size=${size}`);
+}
+
+/**
+ * Get messages sent or received after the given id (catch-up after a WebSocket reconnect)
+ */
+export async function getMessagesSince(afterId: number): Promise<Message[]> {
+  return apiCall<Message[]>(`/api/messages/since?afterId=${afterId}`);
+}
+
+export interface PresenceEntry {
+  userId: number;
+  online: boolean;
+  lastSeen: number | null;
+  typing: boolean;
+}
+
+/**
+ * Get online/typing state of several users in one call
+ */
+export async function getPresence(userIds: number[]): Promise<PresenceEntry[]> {
+  return apiCall<PresenceEntry[]>(`/api/presence?ids=${userIds.join(',')}`);
+}
+
 /**
  * Mark conversation as read
  */
@@ -354,3 +534,88 @@ export async function markConversationAsRead(otherUserId: number): Promise<void>
 
 
 
+
+export interface AppNotification {
+  id: number;
+  userId: number;
+  message: string;
+  type: string;
+  read: boolean;
+  createdAt: string;
+}
+
+/**
+ * Subscribe to live notifications (Server-Sent Events). The browser reconnects on its own
+ * and sends Last-Event-ID so missed notifications are replayed. Returns a close function.
+ */
+export function openNotificationStream(onNotification: (notification: AppNotification) => void): () => void {
+  if (!getToken() || typeof EventSource === 'undefined') return () => {};
+  let source: EventSource | null = null;
+  let lastEventId: string | null = null;
+  // A resumed stream may repeat a few recent notifications
+  const seenIds = new Set<number>();
+  let closed = false;
+  let retryTimer: ReturnType<typeof setTimeout> | undefined;
+
+  // The stream takes a short-lived ticket, never the login token; an expired ticket closes the
+  // EventSource, so reconnect with a fresh ticket and resume after the last event received
+  const connect = async () => {
+    try {
+      const { ticket } = await apiCall<{ ticket: string }>('/api/notifications/stream-ticket', { method: 'POST' });
+      if (closed) return;
+      const params = new URLSearchParams({ ticket });
+      if (lastEventId) params.set('lastEventId', lastEventId);
+      source = new EventSource(`${API_BASE_URL}/api/notifications/stream?${params}`);
+      source.addEventListener('notification', (event) => {
+        const message = event as MessageEvent;
+        if (message.lastEventId) lastEventId = message.lastEventId;
+        const notification = JSON.parse(message.data) as AppNotification;
+        if (seenIds.has(notification.id)) return;
+        seenIds.add(notification.id);
+        if (seenIds.size > 500) seenIds.delete(seenIds.values().next().value as number);
+        onNotification(notification);
+      });
+      source.onerror = () => {
+        if (source?.readyState === EventSource.CLOSED && !closed) {
+          retryTimer = setTimeout(connect, 5000);
+        }
+      };
+    } catch {
+      if (!closed) retryTimer = setTimeout(connect, 5000);
+    }
+  };
+  connect();
+
+  return () => {
+    closed = true;
+    clearTimeout(retryTimer);
+    source?.close();
+  };
+}
+
+export interface NotificationPage {
+  items: AppNotification[];
+  nextCursor: string | null;
+}
+
+/**
+ * Current user's notifications, newest first (pass nextCursor to load older ones)
+ */
+export async function getNotifications(params: { cursor?: string; limit?: number; unreadOnly?: boolean } = {}): Promise<NotificationPage> {
+  const query = new URLSearchParams();
+  if (params.cursor) query.set('cursor', params.cursor);
+  if (params.limit) query.set('limit', String(params.limit));
+  if (params.unreadOnly) query.set('unreadOnly', 'true');
+  return apiCall<NotificationPage>(`/api/notifications?${query.toString()}`);
+}
+
+export async function markNotificationsRead(ids: number[]): Promise<{ updated: number }> {
+  return apiCall<{ updated: number }>('/api/notifications/read', {
+    method: 'POST',
+    body: JSON.stringify({ ids }),
+  });
+}
+
+export async function markAllNotificationsRead(): Promise<{ updated: number }> {
+  return apiCall<{ updated: number }>('/api/notifications/read-all', { method: 'POST' });
+}
@@ -0,0 +1,167 @@
+// Minimal STOMP 1.2 client over the browser WebSocket, used for real-time chat.
+// Handles CONNECT with the JWT, heart-beats and automatic reconnect with backoff.
+
+import { getToken } from './api';
+
+const API_BASE_URL = process.env.NEXT_PUBLIC_API_URL || 'http://localhost:8081';
+const WS_URL = process.env.NEXT_PUBLIC_WS_URL || `${API_BASE_URL.replace(/^http/, 'ws')}/ws`;
+const HEARTBEAT_MS = 10000;
+const MAX_RECONNECT_DELAY_MS = 30000;
+
+type FrameHandler = (body: string, headers: Record<string, string>) => void;
+
+interface Frame {
+  command: string;
+  headers: Record<string, string>;
+  body: string;
+}
+
+export interface StompClientOptions {
+  // Called after every successful (re)connect; use it to resume from the last seen message
+  onConnect?: () => void;
+  onDisconnect?: () => void;
+}
+
+export class StompClient {
+  private socket: WebSocket | null = null;
+  private subscriptions = new Map<string, { destination: string; handler: FrameHandler }>();
+  private nextSubscriptionId = 0;
+  private connected = false;
+  private closedByUser = false;
+  private reconnectDelay = 1000;
+  private reconnectTimer: ReturnType<typeof setTimeout> | null = null;
+  private heartbeatTimer: ReturnType<typeof setInterval> | null = null;
+  private lastServerActivity = 0;
+
+  constructor(private options: StompClientOptions = {}) {}
+
+  connect(): void {
+    this.closedByUser = false;
+    const token = getToken();
+    if (!token) return;
+
+    const socket = new WebSocket(WS_URL);
+    this.socket = socket;
+
+    socket.onopen = () => {
+      this.sendFrame('CONNECT', {
+        'accept-version': '1.2',
+        host: new URL(WS_URL).host,
+        'heart-beat': `${HEARTBEAT_MS},${HEARTBEAT_MS}`,
+        Authorization: `Bearer ${token}`,
+      });
+    };
+
+    socket.onmessage = (event) => {
+      this.lastServerActivity = Date.now();
+      this.handleData(String(event.data));
+    };
+
+    socket.onclose = () => this.handleClose();
+    socket.onerror = () => socket.close();
+  }
+
+  disconnect(): void {
+    this.closedByUser = true;
+    if (this.reconnectTimer) clearTimeout(this.reconnectTimer);
+    if (this.connected) this.sendFrame('DISCONNECT', {});
+    this.socket?.close();
+  }
+
+  // Subscriptions survive reconnects; returns an unsubscribe function
+  subscribe(destination: string, handler: FrameHandler): () => void {
+    const id = `sub-${this.nextSubscriptionId++}`;
+    this.subscriptions.set(id, { destination, handler });
+    if (this.connected) {
+      this.sendFrame('SUBSCRIBE', { id, destination });
+    }
+    return () => {
+      this.subscriptions.delete(id);
+      if (this.connected) this.sendFrame('UNSUBSCRIBE', { id });
+    };
+  }
+
+  send(destination: string, body: unknown): void {
+    if (!this.connected) return;
+    this.sendFrame('SEND', { destination, 'content-type': 'application/json' }, JSON.stringify(body));
+  }
+
+  private handleData(data: string): void {
+    // A bare EOL is a server heart-beat; several frames may arrive in one WebSocket message
+    for (const raw of data.split('\0')) {
+      const text = raw.replace(/^[\r\n]+/, '');
+      if (!text) continue;
+      const frame = parseFrame(text);
+      this.handleFrame(frame);
+    }
+  }
+
+  private handleFrame(frame: Frame): void {
+    switch (frame.command) {
+      case 'CONNECTED':
+        this.connected = true;
+        this.reconnectDelay = 1000;
+        this.startHeartbeat(frame.headers['heart-beat']);
+        this.subscriptions.forEach((sub, id) =>
+          this.sendFrame('SUBSCRIBE', { id, destination: sub.destination }));
+        this.options.onConnect?.();
+        break;
+      case 'MESSAGE': {
+        const sub = this.subscriptions.get(frame.headers['subscription']);
+        sub?.handler(frame.body, frame.headers);
+        break;
+      }
+      case 'ERROR':
+        console.error('STOMP error:', frame.headers['message'] || frame.body);
+        this.socket?.close();
+        break;
+    }
+  }
+
+  private handleClose(): void {
+    const wasConnected = this.connected;
+    this.connected = false;
+    this.socket = null;
+    if (this.heartbeatTimer) clearInterval(this.heartbeatTimer);
+    if (wasConnected) this.options.onDisconnect?.();
+    if (this.closedByUser) return;
+
+    this.reconnectTimer = setTimeout(() => this.connect(), this.reconnectDelay);
+    this.reconnectDelay = Math.min(this.reconnectDelay * 2, MAX_RECONNECT_DELAY_MS);
+  }
+
+  private startHeartbeat(serverHeartbeat: string | undefined): void {
+    const [serverSends] = (serverHeartbeat || '0,0').split(',').map(Number);
+    this.lastServerActivity = Date.now();
+    this.heartbeatTimer = setInterval(() => {
+      if (this.socket?.readyState === WebSocket.OPEN) {
+        this.socket.send('\n');
+      }
+      // Treat the connection as dead after missing ~3 server heart-beats
+      if (serverSends > 0 && Date.now() - this.lastServerActivity > serverSends * 3) {
+        this.socket?.close();
+      }
+    }, HEARTBEAT_MS);
+  }
+
+  private sendFrame(command: string, headers: Record<string, string>, body = ''): void {
+    if (this.socket?.readyState !== WebSocket.OPEN) return;
+    const headerLines = Object.entries(headers).map(([key, value]) => `${key}:${value}`).join('\n');
+    this.socket.send(`${command}\n${headerLines}\n\n${body}\0`);
+  }
+}
+
+function parseFrame(text: string): Frame {
+  const headerEnd = text.indexOf('\n\n');
+  const head = headerEnd >= 0 ? text.substring(0, headerEnd) : text;
+  const body = headerEnd >= 0 ? text.substring(headerEnd + 2) : '';
+  const [command, ...lines] = head.split('\n').map((line) => line.replace(/\r$/, ''));
+  const headers: Record<string, string> = {};
+  for (const line of lines) {
+    const idx = line.indexOf(':');
+    if (idx > 0 && !(line.substring(0, idx) in headers)) {
+      headers[line.substring(0, idx)] = line.substring(idx + 1);
+    }
+  }
+  return { command, headers, body };
+}